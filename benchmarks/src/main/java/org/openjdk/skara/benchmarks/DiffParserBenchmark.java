@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.benchmarks;
+
+import org.openjdk.skara.vcs.*;
+import org.openjdk.skara.vcs.git.GitCombinedDiffParser;
+import org.openjdk.skara.vcs.tools.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiffParserBenchmark {
+    @Param({"10", "1000"})
+    public int files;
+
+    @Param({"5"})
+    public int hunksPerFile;
+
+    @Param({"20"})
+    public int linesPerHunk;
+
+    private byte[] unified;
+    private byte[] combined;
+    private List<Hash> bases;
+    private Hash head;
+
+    @Setup
+    public void setup() {
+        unified = Fixtures.unifiedDiff(files, hunksPerFile, linesPerHunk);
+        combined = Fixtures.combinedDiff(files, hunksPerFile, linesPerHunk);
+        bases = List.of(new Hash("0123456789012345678901234567890123456789"),
+                        new Hash("1234567890123456789012345678901234567890"));
+        head = new Hash("2345678901234567890123456789012345678901");
+    }
+
+    @Benchmark
+    public List<Patch> unified() throws IOException {
+        return UnifiedDiffParser.parseGitRaw(new ByteArrayInputStream(unified));
+    }
+
+    @Benchmark
+    public List<Diff> combined() throws IOException {
+        var parser = new GitCombinedDiffParser(bases, head, null);
+        return parser.parse(new UnixStreamReader(new ByteArrayInputStream(combined)));
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.benchmarks;
+
+import org.openjdk.skara.vcs.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Generates the inputs for the benchmarks. All fixtures are derived from a fixed seed, so
+ * that results from different runs and different commits are comparable.
+ */
+class Fixtures {
+    private static final long SEED = 4711;
+
+    private static String hash(Random random) {
+        var hex = new StringBuilder(40);
+        for (int i = 0; i < 40; i++) {
+            hex.append(Character.forDigit(random.nextInt(16), 16));
+        }
+        return hex.toString();
+    }
+
+    private static String line(Random random) {
+        var words = new StringBuilder();
+        var numWords = 2 + random.nextInt(10);
+        for (int i = 0; i < numWords; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            words.append("word").append(random.nextInt(1000));
+        }
+        return words.toString();
+    }
+
+    /**
+     * Returns the output of {@code git diff --raw --patch --unified=0} for a change to
+     * the given number of files.
+     */
+    static byte[] unifiedDiff(int files, int hunksPerFile, int linesPerHunk) {
+        var random = new Random(SEED);
+        var paths = new ArrayList<String>();
+        var sb = new StringBuilder();
+        for (int i = 0; i < files; i++) {
+            var path = "src/dir" + (i % 10) + "/File" + i + ".java";
+            paths.add(path);
+            sb.append(":100644 100644 ").append(hash(random)).append(" ").append(hash(random))
+              .append(" M\t").append(path).append("\n");
+        }
+        sb.append("\n");
+        for (var path : paths) {
+            sb.append("diff --git a/").append(path).append(" b/").append(path).append("\n");
+            sb.append("index 1234567..89abcde 100644\n");
+            sb.append("--- a/").append(path).append("\n");
+            sb.append("+++ b/").append(path).append("\n");
+            var start = 1;
+            for (int h = 0; h < hunksPerFile; h++) {
+                sb.append("@@ -").append(start).append(",").append(linesPerHunk)
+                  .append(" +").append(start).append(",").append(linesPerHunk).append(" @@\n");
+                for (int l = 0; l < linesPerHunk; l++) {
+                    sb.append("-").append(line(random)).append("\n");
+                }
+                for (int l = 0; l < linesPerHunk; l++) {
+                    sb.append("+").append(line(random)).append("\n");
+                }
+                start += linesPerHunk + 10;
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the output of {@code git diff-tree -c --raw} for a merge commit with two
+     * parents, where every file has been changed with respect to both parents.
+     */
+    static byte[] combinedDiff(int files, int hunksPerFile, int linesPerHunk) {
+        var random = new Random(SEED);
+        var paths = new ArrayList<String>();
+        var sb = new StringBuilder();
+        for (int i = 0; i < files; i++) {
+            var path = "src/dir" + (i % 10) + "/File" + i + ".java";
+            paths.add(path);
+            sb.append("::100644 100644 100644 ").append(hash(random)).append(" ").append(hash(random))
+              .append(" ").append(hash(random)).append(" MM\t").append(path).append("\n");
+        }
+        sb.append("\n");
+        for (var path : paths) {
+            sb.append("diff --combined ").append(path).append("\n");
+            sb.append("index 1234567,89abcde..fedcba9\n");
+            sb.append("--- a/").append(path).append("\n");
+            sb.append("+++ b/").append(path).append("\n");
+            var start = 1;
+            for (int h = 0; h < hunksPerFile; h++) {
+                var range = start + "," + linesPerHunk;
+                sb.append("@@@ -").append(range).append(" -").append(range)
+                  .append(" +").append(range).append(" @@@\n");
+                for (int l = 0; l < linesPerHunk; l++) {
+                    sb.append("--").append(line(random)).append("\n");
+                }
+                for (int l = 0; l < linesPerHunk; l++) {
+                    sb.append("++").append(line(random)).append("\n");
+                }
+                start += linesPerHunk + 10;
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String username(int i) {
+        return "user" + i;
+    }
+
+    /**
+     * Returns a single-file census with the given number of people. Everybody is an
+     * author in one of the projects, and every tenth person is a committer.
+     */
+    static List<String> census(int people, int projects) {
+        var lines = new ArrayList<String>();
+        lines.add("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
+        lines.add("<census time=\"2019-01-22T13:51:55-08:00\">");
+        for (int i = 0; i < people; i++) {
+            lines.add("  <person name=\"" + username(i) + "\">");
+            lines.add("    <full-name>User Number " + i + "</full-name>");
+            lines.add("    <org>Organization " + (i % 50) + "</org>");
+            lines.add("  </person>");
+        }
+        lines.add("  <group name=\"group\">");
+        lines.add("    <full-name>The Group</full-name>");
+        lines.add("    <person ref=\"" + username(0) + "\" role=\"lead\" />");
+        for (int i = 1; i < people; i += 10) {
+            lines.add("    <person ref=\"" + username(i) + "\" />");
+        }
+        lines.add("  </group>");
+        for (int p = 0; p < projects; p++) {
+            lines.add("  <project name=\"" + (p == 0 ? "test" : "project" + p) + "\">");
+            lines.add("    <full-name>Project " + p + "</full-name>");
+            lines.add("    <sponsor ref=\"group\" />");
+            lines.add("    <person role=\"lead\" ref=\"" + username(0) + "\" />");
+            for (int i = 1; i < people; i++) {
+                if (i % projects != p && p != 0) {
+                    continue;
+                }
+                var role = i % 100 == 1 ? "reviewer" : i % 10 == 1 ? "committer" : "author";
+                lines.add("    <person role=\"" + role + "\" ref=\"" + username(i) + "\" />");
+            }
+            lines.add("  </project>");
+        }
+        lines.add("</census>");
+        return lines;
+    }
+
+    private static void string(StringBuilder sb, Random random) {
+        sb.append('"').append(line(random));
+        if (random.nextInt(4) == 0) {
+            sb.append("\\n\\\"quoted\\\"\\u00e5");
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Returns a JSON array of objects shaped like the pull request payloads returned by
+     * the forges, with nested objects and arrays, escaped strings and numbers.
+     */
+    static String json(int objects) {
+        var random = new Random(SEED);
+        var sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < objects; i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append("{\"id\":").append(random.nextInt(1_000_000));
+            sb.append(",\"number\":").append(i);
+            sb.append(",\"state\":\"open\"");
+            sb.append(",\"title\":");
+            string(sb, random);
+            sb.append(",\"body\":");
+            string(sb, random);
+            sb.append(",\"draft\":").append(random.nextBoolean());
+            sb.append(",\"merged_at\":null");
+            sb.append(",\"score\":").append(random.nextDouble());
+            sb.append(",\"user\":{\"login\":\"").append(username(random.nextInt(100)))
+              .append("\",\"id\":").append(random.nextInt(100000)).append(",\"site_admin\":false}");
+            sb.append(",\"head\":{\"ref\":\"branch").append(i).append("\",\"sha\":\"").append(hash(random)).append("\"}");
+            sb.append(",\"labels\":[");
+            var labels = random.nextInt(5);
+            for (int l = 0; l < labels; l++) {
+                if (l > 0) {
+                    sb.append(",");
+                }
+                sb.append("{\"name\":\"label").append(l).append("\",\"color\":\"ededed\"}");
+            }
+            sb.append("]}");
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Creates a git repository with a jcheck configuration and the given number of
+     * commits on top of the initial one. Every commit appends a line to a file and
+     * refers to its own issue.
+     */
+    static Repository repository(Path dir, int commits) throws IOException {
+        var repo = Repository.init(dir, VCS.GIT);
+
+        Files.createDirectories(dir.resolve(".jcheck"));
+        var conf = dir.resolve(".jcheck/conf");
+        Files.write(conf, List.of(
+            "[general]",
+            "project=test",
+            "jbs=TEST",
+            "",
+            "[checks]",
+            "error=author,committer,reviewers,merge,message,issues,executable,whitespace,blacklist,binary",
+            "",
+            "[census]",
+            "version=0",
+            "domain=openjdk.java.net",
+            "",
+            "[checks \"whitespace\"]",
+            "files=.*\\.java|.*\\.txt",
+            "",
+            "[checks \"reviewers\"]",
+            "minimum=1"
+        ));
+        repo.add(conf);
+
+        var file = dir.resolve("README.txt");
+        Files.writeString(file, "A file that grows\n");
+        repo.add(file);
+        var author = username(0);
+        var email = author + "@openjdk.java.net";
+        repo.commit("Initial commit", author, email);
+
+        var random = new Random(SEED);
+        for (int i = 0; i < commits; i++) {
+            Files.writeString(file, line(random) + "\n", StandardOpenOption.APPEND);
+            repo.add(file);
+            repo.commit(String.format("%07d: Issue number %d\n\nReviewed-by: %s", 1000000 + i, i, username(1)),
+                        author, email);
+        }
+        return repo;
+    }
+}
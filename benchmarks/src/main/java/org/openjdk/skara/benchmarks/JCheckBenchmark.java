@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.benchmarks;
+
+import org.openjdk.skara.census.Census;
+import org.openjdk.skara.jcheck.JCheck;
+import org.openjdk.skara.vcs.Repository;
+import org.openjdk.skara.vcs.openjdk.CommitMessageParsers;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class JCheckBenchmark {
+    @Param({"100"})
+    public int commits;
+
+    /**
+     * Whether results from the previous run are left in the repository, so that the
+     * benchmark measures a repeated check of the same range.
+     */
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private Path dir;
+    private Repository repo;
+    private Census census;
+    private String range;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("jcheck-benchmark");
+        repo = Fixtures.repository(dir, commits);
+        census = Census.parse(Fixtures.census(1000, 10));
+        range = repo.resolve("HEAD~" + commits).orElseThrow().hex() + "..HEAD";
+    }
+
+    @Setup(Level.Invocation)
+    public void clearResults() throws IOException {
+        if (!cached) {
+            delete(dir.resolve(".git").resolve("jcheck-results"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        delete(dir);
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (var paths = Files.walk(path)) {
+            for (var p : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public void check(Blackhole blackhole) throws Exception {
+        try (var issues = JCheck.check(repo, census, CommitMessageParsers.v1, range, new HashMap<>(), new HashSet<>())) {
+            for (var issue : issues) {
+                blackhole.consume(issue);
+            }
+        }
+    }
+}
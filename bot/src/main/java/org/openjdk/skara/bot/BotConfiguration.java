@@ -27,6 +27,7 @@ import org.openjdk.skara.issuetracker.IssueProject;
 import org.openjdk.skara.json.JSONObject;
 
 import java.nio.file.Path;
+import java.util.Optional;
 
 public interface BotConfiguration {
     /**
@@ -35,6 +36,13 @@ public interface BotConfiguration {
      */
     Path storageFolder();
 
+    /**
+     * Folder that WorkItems may use to share repository objects between clones of the same remote,
+     * if configured.
+     * @return
+     */
+    Optional<Path> objectCacheFolder();
+
     /**
      * Configuration-specific name mapped to a HostedRepository.
      * @param name
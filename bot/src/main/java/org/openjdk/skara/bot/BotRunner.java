@@ -205,6 +205,8 @@ public class BotRunner {
             scratchPaths.addLast(folder);
         }
 
+        CensusService.setFolder(config.censusFolder());
+
         executor = new ScheduledThreadPoolExecutor(config.concurrency());
         log = Logger.getLogger("org.openjdk.skara.bot");
     }
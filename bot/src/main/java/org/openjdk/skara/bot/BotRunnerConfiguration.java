@@ -214,6 +214,14 @@ public class BotRunnerConfiguration {
                 return Paths.get(config.get("storage").get("path").asString()).resolve(botName);
             }
 
+            @Override
+            public Optional<Path> objectCacheFolder() {
+                if (!config.contains("cache") || !config.get("cache").contains("path")) {
+                    return Optional.empty();
+                }
+                return Optional.of(Paths.get(config.get("cache").get("path").asString()));
+            }
+
             @Override
             public HostedRepository repository(String name) {
                 try {
@@ -305,6 +313,21 @@ public class BotRunnerConfiguration {
         return Paths.get(config.get("scratch").get("path").asString());
     }
 
+    /**
+     * Folder that the census service checks out censuses in.
+     * @return
+     */
+    Path censusFolder() {
+        if (!config.contains("storage") || !config.get("storage").contains("path")) {
+            try {
+                return Files.createTempDirectory("census");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return Paths.get(config.get("storage").get("path").asString()).resolve("census");
+    }
+
     Optional<Integer> restReceiverPort() {
         if (!config.contains("webhooks")) {
             return Optional.empty();
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018, 2019 Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.bot;
+
+import org.openjdk.skara.census.Census;
+import org.openjdk.skara.forge.HostedRepository;
+import org.openjdk.skara.vcs.*;
+
+import java.io.*;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Provides the parsed census for a census repository, shared by all bots and work items
+ * in the process. The census is only checked out and parsed again when the census ref
+ * has moved since it was last parsed; otherwise the same immutable snapshot is handed out.
+ *
+ * Censuses are checked out below a folder of their own, set by the bot runner. If no folder
+ * has been set, a temporary folder is used.
+ */
+public class CensusService {
+    private static final Map<String, CensusService> services = new ConcurrentHashMap<>();
+    private static final Logger log = Logger.getLogger("org.openjdk.skara.bot");
+    private static Path folder;
+
+    private final HostedRepository censusRepo;
+    private final String censusRef;
+    private final Path repoFolder;
+
+    private Hash parsedHash = null;
+    private Census census = null;
+
+    private CensusService(HostedRepository censusRepo, String censusRef, Path repoFolder) {
+        this.censusRepo = censusRepo;
+        this.censusRef = censusRef;
+        this.repoFolder = repoFolder;
+    }
+
+    /**
+     * Sets the folder below which censuses are checked out. Services that have already been
+     * created keep using their current folder.
+     */
+    public static synchronized void setFolder(Path folder) {
+        CensusService.folder = folder;
+    }
+
+    private static synchronized Path folder() {
+        if (folder == null) {
+            try {
+                folder = Files.createTempDirectory("census");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return folder;
+    }
+
+    /**
+     * Returns the service for the given census repository and ref.
+     */
+    public static CensusService of(HostedRepository censusRepo, String censusRef) {
+        var key = censusRepo.url() + "#" + censusRef;
+        return services.computeIfAbsent(key, k -> {
+            var repoName = censusRepo.url().getHost() + "/" + censusRepo.name() + "/" + censusRef;
+            var repoFolder = folder().resolve(URLEncoder.encode(repoName, StandardCharsets.UTF_8));
+            return new CensusService(censusRepo, censusRef, repoFolder);
+        });
+    }
+
+    private Hash update() throws IOException {
+        try {
+            var localRepo = Repository.get(repoFolder);
+            if (localRepo.isPresent()) {
+                var hash = localRepo.get().fetch(censusRepo.url(), censusRef);
+                localRepo.get().checkout(hash, true);
+                return hash;
+            }
+        } catch (IOException e) {
+            log.warning("Failed to update census at " + repoFolder + ", retrieving it again: " + e.getMessage());
+        }
+        return Repository.materialize(repoFolder, censusRepo.url(), censusRef).head();
+    }
+
+    /**
+     * Returns the census at the current head of the census ref.
+     */
+    public synchronized Census census() throws IOException {
+        Hash head = null;
+        try {
+            head = censusRepo.branchHash(censusRef);
+        } catch (RuntimeException e) {
+            log.warning("Failed to look up the head of the census: " + e.getMessage());
+        }
+        if (census != null && head != null && head.equals(parsedHash)) {
+            return census;
+        }
+
+        var hash = update();
+        if (census == null || !hash.equals(parsedHash)) {
+            log.info("Parsing census at " + hash.hex());
+            census = Census.parse(repoFolder);
+            parsedHash = hash;
+        }
+        return census;
+    }
+}
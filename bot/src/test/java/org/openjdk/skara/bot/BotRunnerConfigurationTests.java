@@ -39,6 +39,7 @@ class BotRunnerConfigurationTests {
         var botCfg = cfg.perBotConfiguration("xbot");
 
         assertEquals(Path.of("/x/xbot"), botCfg.storageFolder());
+        assertEquals(Path.of("/x/census"), cfg.censusFolder());
     }
 
     @Test
@@ -46,13 +46,21 @@ class ForwardBot implements Bot, WorkItem {
     private final HostedRepository toHostedRepo;
     private final Branch toBranch;
 
+    private final Path objectCache;
+
     ForwardBot(Path storage, HostedRepository fromHostedRepo, Branch fromBranch,
-               HostedRepository toHostedRepo, Branch toBranch) {
+               HostedRepository toHostedRepo, Branch toBranch, Path objectCache) {
         this.storage = storage;
         this.fromHostedRepo = fromHostedRepo;
         this.fromBranch = fromBranch;
         this.toHostedRepo = toHostedRepo;
         this.toBranch = toBranch;
+        this.objectCache = objectCache;
+    }
+
+    ForwardBot(Path storage, HostedRepository fromHostedRepo, Branch fromBranch,
+               HostedRepository toHostedRepo, Branch toBranch) {
+        this(storage, fromHostedRepo, fromBranch, toHostedRepo, toBranch, null);
     }
 
     @Override
@@ -74,7 +82,7 @@ class ForwardBot implements Bot, WorkItem {
             if (!Files.exists(toDir)) {
                 log.info("Cloning " + toHostedRepo.name());
                 Files.createDirectories(toDir);
-                toLocalRepo = Repository.clone(toHostedRepo.url(), toDir, true);
+                toLocalRepo = Repository.clone(toHostedRepo.url(), toDir, true, objectCache);
             } else {
                 log.info("Found existing scratch directory for " + toHostedRepo.name());
                 toLocalRepo = Repository.get(toDir).orElseThrow(() -> {
@@ -60,7 +60,8 @@ public class ForwardBotFactory implements BotFactory {
             var toRepo = configuration.repository(to[0]);
             var toBranch = new Branch(to[1]);
 
-            var bot = new ForwardBot(storage, fromRepo, fromBranch, toRepo, toBranch);
+            var bot = new ForwardBot(storage, fromRepo, fromBranch, toRepo, toBranch,
+                                     configuration.objectCacheFolder().orElse(null));
             log.info("Setting up forwarding from " +
                      fromRepo.name() + ":" + fromBranch.name() +
                      "to " + toRepo.name() + ":" + toBranch.name());
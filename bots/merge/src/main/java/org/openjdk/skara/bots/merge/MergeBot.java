@@ -43,14 +43,21 @@ class MergeBot implements Bot, WorkItem {
     private final Branch fromBranch;
     private final HostedRepository to;
     private final Branch toBranch;
+    private final Path objectCache;
 
     MergeBot(Path storage, HostedRepository from, Branch fromBranch,
-              HostedRepository to, Branch toBranch) {
+              HostedRepository to, Branch toBranch, Path objectCache) {
         this.storage = storage;
         this.from = from;
         this.fromBranch = fromBranch;
         this.to = to;
         this.toBranch = toBranch;
+        this.objectCache = objectCache;
+    }
+
+    MergeBot(Path storage, HostedRepository from, Branch fromBranch,
+              HostedRepository to, Branch toBranch) {
+        this(storage, from, fromBranch, to, toBranch, null);
     }
 
     @Override
@@ -72,7 +79,7 @@ class MergeBot implements Bot, WorkItem {
             if (!Files.exists(dir)) {
                 log.info("Cloning " + to.name());
                 Files.createDirectories(dir);
-                repo = Repository.clone(to.url(), dir);
+                repo = Repository.clone(to.url(), dir, false, objectCache);
             } else {
                 log.info("Found existing scratch directory for " + to.name());
                 repo = Repository.get(dir).orElseThrow(() -> {
@@ -58,7 +58,8 @@ public class MergeBotFactory implements BotFactory {
 
             log.info("Setting up merging from " + fromRepo.name() + ":" + fromBranch.name() +
                      " to " + toRepo.name() + ":" + toBranch.name());
-            bots.add(new MergeBot(storage, fromRepo, fromBranch, toRepo, toBranch));
+            bots.add(new MergeBot(storage, fromRepo, fromBranch, toRepo, toBranch,
+                                  configuration.objectCacheFolder().orElse(null)));
         }
         return bots;
     }
@@ -40,11 +40,17 @@ class MirrorBot implements Bot, WorkItem {
     private final Path storage;
     private final HostedRepository from;
     private final HostedRepository to;
+    private final Path objectCache;
 
     MirrorBot(Path storage, HostedRepository from, HostedRepository to) {
+        this(storage, from, to, null);
+    }
+
+    MirrorBot(Path storage, HostedRepository from, HostedRepository to, Path objectCache) {
         this.storage = storage;
         this.from = from;
         this.to = to;
+        this.objectCache = objectCache;
     }
 
     @Override
@@ -66,7 +72,7 @@ class MirrorBot implements Bot, WorkItem {
             if (!Files.exists(dir)) {
                 log.info("Cloning " + from.name());
                 Files.createDirectories(dir);
-                repo = Repository.mirror(from.url(), dir);
+                repo = Repository.mirror(from.url(), dir, objectCache);
             } else {
                 log.info("Found existing scratch directory for " + from.name());
                 repo = Repository.get(dir).orElseThrow(() -> {
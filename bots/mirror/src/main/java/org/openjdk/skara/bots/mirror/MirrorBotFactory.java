@@ -56,7 +56,7 @@ public class MirrorBotFactory implements BotFactory {
             var toRepo = configuration.repository(toName);
 
             log.info("Setting up mirroring from " + fromRepo.name() + "to " + toRepo.name());
-            bots.add(new MirrorBot(storage, fromRepo, toRepo));
+            bots.add(new MirrorBot(storage, fromRepo, toRepo, configuration.objectCacheFolder().orElse(null)));
         }
         return bots;
     }
@@ -35,6 +35,7 @@ import java.net.URI;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.*;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -228,17 +229,16 @@ class ArchiveWorkItem implements WorkItem {
             }
         }
 
-        var census = CensusInstance.create(bot.censusRepo(), bot.censusRef(), scratchPath.resolve("census"), pr);
+        var census = CensusInstance.create(bot.censusRepo(), bot.censusRef(), pr);
         var jbs = census.configuration().general().jbs();
         if (jbs == null) {
             jbs = census.configuration().general().project();
         }
-        var prInstance = new PullRequestInstance(scratchPath.resolve("mlbridge-mergebase"), pr, bot.issueTracker(),
+        var prInstance = new PullRequestInstance(scratchPath.resolve("mlbridge-mergebase"), bot.objectCache(), pr, bot.issueTracker(),
                                                  jbs.toUpperCase());
         var reviewArchive = new ReviewArchive(bot.emailAddress(), prInstance, census, sentMails);
         var webrevPath = scratchPath.resolve("mlbridge-webrevs");
-        var listServer = MailingListServerFactory.createMailmanServer(bot.listArchive(), bot.smtpServer(), bot.sendInterval());
-        var list = listServer.getList(bot.listAddress().address());
+        var list = bot.listServer().getList(bot.listAddress().address());
 
         // First post
         if (sentMails.isEmpty()) {
@@ -308,7 +308,8 @@ class ArchiveWorkItem implements WorkItem {
         newMails.forEach(reviewArchiveList::post);
         pushMbox(archiveRepo, "Adding comments for PR " + bot.codeRepo().name() + "/" + pr.id());
 
-        // Finally post all new mails to the actual list
+        // Finally post all new mails to the actual list, they are sent in the background
+        var posts = new ArrayList<CompletableFuture<Void>>();
         for (var newMail : newMails) {
             var filteredHeaders = newMail.headers().stream()
                                          .filter(header -> !header.startsWith("PR-"))
@@ -318,8 +319,16 @@ class ArchiveWorkItem implements WorkItem {
                                      .replaceHeaders(filteredHeaders)
                                      .headers(bot.headers())
                                      .build();
-            list.post(filteredEmail);
+            posts.add(list.post(filteredEmail));
         }
+        CompletableFuture.allOf(posts.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> {
+            if (error == null) {
+                log.fine("Sent " + posts.size() + " mails for PR " + pr.id());
+            } else {
+                log.warning("Failed to send mails for PR " + pr.id() + ": " + error.getMessage());
+                handleRuntimeException(new RuntimeException("Failed to send mails for PR " + pr.id(), error));
+            }
+        });
     }
 
     @Override
@@ -25,6 +25,7 @@ package org.openjdk.skara.bots.mlbridge;
 import org.openjdk.skara.bot.*;
 import org.openjdk.skara.email.EmailAddress;
 import org.openjdk.skara.forge.*;
+import org.openjdk.skara.mailinglist.*;
 
 import java.net.URI;
 import java.nio.file.Path;
@@ -41,15 +42,14 @@ public class MailingListBridgeBot implements Bot {
     private final EmailAddress listAddress;
     private final Set<String> ignoredUsers;
     private final Set<Pattern> ignoredComments;
-    private final URI listArchive;
-    private final String smtpServer;
+    private final MailingListServer listServer;
     private final WebrevStorage webrevStorage;
     private final Set<String> readyLabels;
     private final Map<String, Pattern> readyComments;
     private final Map<String, String> headers;
     private final URI issueTracker;
     private final PullRequestUpdateCache updateCache;
-    private final Duration sendInterval;
+    private final Path objectCache;
 
     MailingListBridgeBot(EmailAddress from, HostedRepository repo, HostedRepository archive,
                          HostedRepository censusRepo, String censusRef, EmailAddress list,
@@ -57,7 +57,7 @@ public class MailingListBridgeBot implements Bot {
                          HostedRepository webrevStorageRepository, String webrevStorageRef,
                          Path webrevStorageBase, URI webrevStorageBaseUri, Set<String> readyLabels,
                          Map<String, Pattern> readyComments, URI issueTracker, Map<String, String> headers,
-                         Duration sendInterval) {
+                         Duration sendInterval, Path objectCache) {
         emailAddress = from;
         codeRepo = repo;
         archiveRepo = archive;
@@ -66,19 +66,30 @@ public class MailingListBridgeBot implements Bot {
         listAddress = list;
         this.ignoredUsers = ignoredUsers;
         this.ignoredComments = ignoredComments;
-        this.listArchive = listArchive;
-        this.smtpServer = smtpServer;
+        this.listServer = MailingListServerFactory.createMailmanServer(listArchive, smtpServer, sendInterval);
         this.readyLabels = readyLabels;
         this.readyComments = readyComments;
         this.headers = headers;
         this.issueTracker = issueTracker;
-        this.sendInterval = sendInterval;
+        this.objectCache = objectCache;
 
         this.webrevStorage = new WebrevStorage(webrevStorageRepository, webrevStorageRef, webrevStorageBase,
                                                webrevStorageBaseUri, from);
         this.updateCache = new PullRequestUpdateCache();
     }
 
+    MailingListBridgeBot(EmailAddress from, HostedRepository repo, HostedRepository archive,
+                         HostedRepository censusRepo, String censusRef, EmailAddress list,
+                         Set<String> ignoredUsers, Set<Pattern> ignoredComments, URI listArchive, String smtpServer,
+                         HostedRepository webrevStorageRepository, String webrevStorageRef,
+                         Path webrevStorageBase, URI webrevStorageBaseUri, Set<String> readyLabels,
+                         Map<String, Pattern> readyComments, URI issueTracker, Map<String, String> headers,
+                         Duration sendInterval) {
+        this(from, repo, archive, censusRepo, censusRef, list, ignoredUsers, ignoredComments, listArchive, smtpServer,
+             webrevStorageRepository, webrevStorageRef, webrevStorageBase, webrevStorageBaseUri, readyLabels,
+             readyComments, issueTracker, headers, sendInterval, null);
+    }
+
     HostedRepository codeRepo() {
         return codeRepo;
     }
@@ -103,8 +114,8 @@ public class MailingListBridgeBot implements Bot {
         return listAddress;
     }
 
-    Duration sendInterval() {
-        return sendInterval;
+    Path objectCache() {
+        return objectCache;
     }
 
     Set<String> ignoredUsers() {
@@ -115,12 +126,8 @@ public class MailingListBridgeBot implements Bot {
         return ignoredComments;
     }
 
-    URI listArchive() {
-        return listArchive;
-    }
-
-    String smtpServer() {
-        return smtpServer;
+    MailingListServer listServer() {
+        return listServer;
     }
 
     WebrevStorage webrevStorage() {
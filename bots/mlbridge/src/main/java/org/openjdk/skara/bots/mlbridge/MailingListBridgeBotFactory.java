@@ -93,7 +93,8 @@ public class MailingListBridgeBotFactory implements BotFactory {
                                                list, ignoredUsers, ignoredComments, listArchive, listSmtp,
                                                webrevRepo, webrevRef, Path.of(folder),
                                                URIBuilder.base(webrevWeb).build(), readyLabels, readyComments,
-                                               issueTracker, headers, interval);
+                                               issueTracker, headers, interval,
+                                               configuration.objectCacheFolder().orElse(null));
             ret.add(bot);
 
             allListNames.add(list);
@@ -42,7 +42,7 @@ class PullRequestInstance {
     private final URI issueTracker;
     private final String projectPrefix;
 
-    PullRequestInstance(Path localRepoPath, PullRequest pr, URI issueTracker, String projectPrefix) {
+    PullRequestInstance(Path localRepoPath, Path objectCache, PullRequest pr, URI issueTracker, String projectPrefix) {
         this.pr = pr;
         this.issueTracker = issueTracker;
         this.projectPrefix = projectPrefix;
@@ -50,7 +50,7 @@ class PullRequestInstance {
         // Materialize the PR's target ref
         try {
             var repository = pr.repository();
-            localRepo = Repository.materialize(localRepoPath, repository.url(), pr.targetRef());
+            localRepo = Repository.materialize(localRepoPath, repository.url(), pr.targetRef(), objectCache);
             targetHash = localRepo.fetch(repository.url(), pr.targetRef());
             headHash = localRepo.fetch(repository.url(), pr.headHash().hex());
             baseHash = localRepo.mergeBase(targetHash, headHash);
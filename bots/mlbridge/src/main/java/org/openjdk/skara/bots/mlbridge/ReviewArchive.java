@@ -309,16 +309,20 @@ class ReviewArchive {
 
     private String projectRole(Contributor contributor) {
         var version = censusInstance.configuration().census().version();
-        if (censusInstance.project().isLead(contributor.username(), version)) {
-            return "Lead";
-        } else if (censusInstance.project().isReviewer(contributor.username(), version)) {
-            return "Reviewer";
-        } else if (censusInstance.project().isCommitter(contributor.username(), version)) {
-            return "Committer";
-        } else if (censusInstance.project().isAuthor(contributor.username(), version)) {
-            return "Author";
+        var role = censusInstance.project().role(contributor.username(), version);
+        if (role.isEmpty()) {
+            return "none";
+        }
+        switch (role.get()) {
+            case LEAD:
+                return "Lead";
+            case REVIEWER:
+                return "Reviewer";
+            case COMMITTER:
+                return "Committer";
+            default:
+                return "Author";
         }
-        return "none";
     }
 
     void addReview(Review review) {
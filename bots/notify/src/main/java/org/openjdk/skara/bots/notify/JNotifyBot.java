@@ -45,14 +45,23 @@ class JNotifyBot implements Bot, WorkItem {
     private final StorageBuilder<Tag> tagStorageBuilder;
     private final StorageBuilder<ResolvedBranch> branchStorageBuilder;
     private final List<UpdateConsumer> updaters;
+    private final Path objectCache;
 
-    JNotifyBot(HostedRepository repository, Path storagePath, Pattern branches, StorageBuilder<Tag> tagStorageBuilder, StorageBuilder<ResolvedBranch> branchStorageBuilder, List<UpdateConsumer> updaters) {
+    // Kept between runs so that its commit graph only has to be updated with new commits
+    private Repository localRepo = null;
+
+    JNotifyBot(HostedRepository repository, Path storagePath, Pattern branches, StorageBuilder<Tag> tagStorageBuilder, StorageBuilder<ResolvedBranch> branchStorageBuilder, List<UpdateConsumer> updaters, Path objectCache) {
         this.repository = repository;
         this.storagePath = storagePath;
         this.branches = branches;
         this.tagStorageBuilder = tagStorageBuilder;
         this.branchStorageBuilder = branchStorageBuilder;
         this.updaters = updaters;
+        this.objectCache = objectCache;
+    }
+
+    JNotifyBot(HostedRepository repository, Path storagePath, Pattern branches, StorageBuilder<Tag> tagStorageBuilder, StorageBuilder<ResolvedBranch> branchStorageBuilder, List<UpdateConsumer> updaters) {
+        this(repository, storagePath, branches, tagStorageBuilder, branchStorageBuilder, updaters, null);
     }
 
     @Override
@@ -67,7 +76,7 @@ class JNotifyBot implements Bot, WorkItem {
         return false;
     }
 
-    private void handleNewRef(Repository localRepo, Reference ref, Collection<Reference> allRefs) {
+    private void handleNewRef(Repository localRepo, CommitGraph graph, Reference ref, Collection<Reference> allRefs) throws IOException {
         // Figure out the best parent ref
         var candidates = new HashSet<>(allRefs);
         candidates.remove(ref);
@@ -76,24 +85,23 @@ class JNotifyBot implements Bot, WorkItem {
             return;
         }
 
+        if (!graph.contains(ref.hash())) {
+            throw new IOException("Commit " + ref.hash() + " for branch " + ref.name() + " not found");
+        }
         var bestParent = candidates.stream()
-                                   .map(c -> {
-                                       try {
-                                           return new AbstractMap.SimpleEntry<>(c, localRepo.commits(c.hash().hex() + ".." + ref.hash(), true).asList());
-                                       } catch (IOException e) {
-                                           throw new UncheckedIOException(e);
-                                       }
-                                   })
-                                   .min(Comparator.comparingInt(entry -> entry.getValue().size()))
+                                   .filter(c -> graph.contains(c.hash()))
+                                   .map(c -> new AbstractMap.SimpleEntry<>(c, graph.count(c.hash(), ref.hash())))
+                                   .min(Comparator.comparingInt(Map.Entry::getValue))
                                    .orElseThrow();
-        if (bestParent.getValue().size() > 1000) {
+        if (bestParent.getValue() > 1000) {
             throw new RuntimeException("Excessive amount of unique commits on new branch " + ref.name() +
-                                               " detected (" + bestParent.getValue().size() + ") - skipping notifications");
+                                               " detected (" + bestParent.getValue() + ") - skipping notifications");
         }
+        var commits = localRepo.commits(bestParent.getKey().hash().hex() + ".." + ref.hash(), true).asList();
         for (var updater : updaters) {
             var branch = new Branch(ref.name());
             var parent = new Branch(bestParent.getKey().name());
-            updater.handleNewBranch(repository, bestParent.getValue(), parent, branch);
+            updater.handleNewBranch(repository, commits, parent, branch);
         }
     }
 
@@ -104,14 +112,26 @@ class JNotifyBot implements Bot, WorkItem {
         }
     }
 
-    private void handleRef(Repository localRepo, UpdateHistory history, Reference ref, Collection<Reference> allRefs) throws IOException {
+    private void handleRef(Repository localRepo, CommitGraph graph, UpdateHistory history, Reference ref, Collection<Reference> allRefs) throws IOException {
         var branch = new Branch(ref.name());
         var lastHash = history.branchHash(branch);
         if (lastHash.isEmpty()) {
             log.warning("No previous history found for branch '" + branch + "' - resetting mark");
             history.setBranchHash(branch, ref.hash());
-            handleNewRef(localRepo, ref, allRefs);
+            handleNewRef(localRepo, graph, ref, allRefs);
         } else {
+            if (graph.contains(lastHash.get()) && graph.contains(ref.hash())) {
+                // Avoid listing the commits when there is nothing (or too much) to report
+                var count = graph.count(lastHash.get(), ref.hash());
+                if (count == 0) {
+                    return;
+                }
+                if (count > 1000) {
+                    history.setBranchHash(branch, ref.hash());
+                    throw new RuntimeException("Excessive amount of new commits on branch " + branch.name() +
+                                                       " detected (" + count + ") - skipping notifications");
+                }
+            }
             var commits = localRepo.commits(lastHash.get() + ".." + ref.hash()).asList();
             if (commits.size() == 0) {
                 return;
@@ -198,15 +218,14 @@ class JNotifyBot implements Bot, WorkItem {
     }
 
     private Repository fetchAll(Path dir, URI remote) throws IOException {
-        Repository repo = null;
         if (!Files.exists(dir)) {
             Files.createDirectories(dir);
-            repo = Repository.clone(remote, dir);
-        } else {
-            repo = Repository.get(dir).orElseThrow(() -> new RuntimeException("Repository in " + dir + " has vanished"));
+            localRepo = Repository.clone(remote, dir, false, objectCache);
+        } else if (localRepo == null) {
+            localRepo = Repository.get(dir).orElseThrow(() -> new RuntimeException("Repository in " + dir + " has vanished"));
         }
-        repo.fetchAll();
-        return repo;
+        localRepo.fetchAll();
+        return localRepo;
     }
 
     @Override
@@ -217,23 +236,29 @@ class JNotifyBot implements Bot, WorkItem {
 
         try {
             var localRepo = fetchAll(path, repository.url());
+            var graph = localRepo.commitGraph();
             var history = UpdateHistory.create(tagStorageBuilder, historyPath.resolve("tags"), branchStorageBuilder, historyPath.resolve("branches"));
-            handleTags(localRepo, history);
-
-            var knownRefs = localRepo.remoteBranches("origin")
-                                     .stream()
-                                     .filter(ref -> branches.matcher(ref.name()).matches())
-                                     .collect(Collectors.toList());
-            boolean hasBranchHistory = knownRefs.stream()
-                                                .map(ref -> history.branchHash(new Branch(ref.name())))
-                                                .anyMatch(Optional::isPresent);
-            for (var ref : knownRefs) {
-                if (!hasBranchHistory) {
-                    log.warning("No previous history found for any branch - resetting mark for '" + ref.name() + "'");
-                    history.setBranchHash(new Branch(ref.name()), ref.hash());
-                } else {
-                    handleRef(localRepo, history, ref, knownRefs);
+            try {
+                handleTags(localRepo, history);
+
+                var knownRefs = localRepo.remoteBranches("origin")
+                                         .stream()
+                                         .filter(ref -> branches.matcher(ref.name()).matches())
+                                         .collect(Collectors.toList());
+                boolean hasBranchHistory = knownRefs.stream()
+                                                    .map(ref -> history.branchHash(new Branch(ref.name())))
+                                                    .anyMatch(Optional::isPresent);
+                for (var ref : knownRefs) {
+                    if (!hasBranchHistory) {
+                        log.warning("No previous history found for any branch - resetting mark for '" + ref.name() + "'");
+                        history.setBranchHash(new Branch(ref.name()), ref.hash());
+                    } else {
+                        handleRef(localRepo, graph, history, ref, knownRefs);
+                    }
                 }
+            } finally {
+                // Push all history updates made during this run at once
+                history.flush();
             }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -118,11 +118,16 @@ public class JNotifyBotFactory implements BotFactory {
 
             var baseName = repo.value().contains("basename") ? repo.value().get("basename").asString() : configuration.repositoryName(repoName);
 
+            // Deferred history updates must survive restarts, so they are kept in the storage folder
+            var journalFolder = configuration.storageFolder().resolve("history-journal");
             var tagStorageBuilder = new StorageBuilder<Tag>(baseName + ".tags.txt")
-                    .remoteRepository(databaseRepo, databaseRef, databaseName, databaseEmail, "Added tag for " + repoName);
+                    .remoteRepository(databaseRepo, databaseRef, databaseName, databaseEmail, "Added tag for " + repoName)
+                    .writeBehind(Duration.ofMinutes(1), journalFolder);
             var branchStorageBuilder = new StorageBuilder<ResolvedBranch>(baseName + ".branches.txt")
-                    .remoteRepository(databaseRepo, databaseRef, databaseName, databaseEmail, "Added branch hash for " + repoName);
-            var bot = new JNotifyBot(configuration.repository(repoName), configuration.storageFolder(), branchPattern, tagStorageBuilder, branchStorageBuilder, updaters);
+                    .remoteRepository(databaseRepo, databaseRef, databaseName, databaseEmail, "Added branch hash for " + repoName)
+                    .writeBehind(Duration.ofMinutes(1), journalFolder);
+            var bot = new JNotifyBot(configuration.repository(repoName), configuration.storageFolder(), branchPattern, tagStorageBuilder, branchStorageBuilder, updaters,
+                                     configuration.objectCacheFolder().orElse(null));
             ret.add(bot);
         }
 
@@ -25,7 +25,6 @@ package org.openjdk.skara.bots.notify;
 import org.openjdk.skara.json.*;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.UUID;
 
@@ -41,7 +40,9 @@ public class JsonUpdateWriter implements AutoCloseable {
         var finalName = path.resolve(String.format("%s.%03d.json", baseName, sequence));
 
         try {
-            Files.write(tempName, current.toString().getBytes(StandardCharsets.UTF_8));
+            try (var writer = new JSONWriter(Files.newOutputStream(tempName))) {
+                writer.write(current);
+            }
             Files.move(tempName, finalName);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -63,6 +63,14 @@ public class MailingListUpdater implements UpdateConsumer {
         this.headers = headers;
     }
 
+    /**
+     * The update history is only recorded once all updaters have returned, so wait for the
+     * mail to be sent to make sure that a failure is noticed before the update is recorded.
+     */
+    private void post(Email email) {
+        list.post(email).join();
+    }
+
     private String patchToText(Patch patch) {
         if (patch.status().isAdded()) {
             return "+ " + patch.target().path().orElseThrow();
@@ -170,7 +178,7 @@ public class MailingListUpdater implements UpdateConsumer {
                              .recipient(recipient)
                              .headers(headers)
                              .build();
-            list.post(email);
+            post(email);
         }
 
         return ret;
@@ -197,7 +205,7 @@ public class MailingListUpdater implements UpdateConsumer {
                          .headers(headers)
                          .build();
 
-        list.post(email);
+        post(email);
     }
 
     @Override
@@ -243,7 +251,7 @@ public class MailingListUpdater implements UpdateConsumer {
                          .headers(headers)
                          .build();
 
-        list.post(email);
+        post(email);
     }
 
     private String newBranchSubject(HostedRepository repository, List<Commit> commits, Branch parent, Branch branch) {
@@ -292,6 +300,6 @@ public class MailingListUpdater implements UpdateConsumer {
                          .recipient(recipient)
                          .headers(headers)
                          .build();
-        list.post(email);
+        post(email);
     }
 }
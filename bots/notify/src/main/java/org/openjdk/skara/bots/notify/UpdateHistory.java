@@ -34,6 +34,7 @@ class UpdateHistory {
     private final Storage<Tag> tagStorage;
     private final Storage<ResolvedBranch> branchStorage;
 
+    private Set<ResolvedBranch> branchSource;
     private Map<Branch, Hash> branches;
     private Set<Tag> tags;
 
@@ -74,7 +75,8 @@ class UpdateHistory {
     }
 
     private Map<Branch, Hash> currentBranchHashes() {
-        return branchStorage.current().stream()
+        branchSource = branchStorage.current();
+        return branchSource.stream()
                 .collect(Collectors.toMap(ResolvedBranch::branch, ResolvedBranch::hash));
     }
 
@@ -82,11 +84,13 @@ class UpdateHistory {
         this.tagStorage = tagStorageBuilder
                 .serializer(this::serializeTags)
                 .deserializer(this::loadTags)
+                .key(tag -> tag)
                 .materialize(tagLocation);
 
         this.branchStorage = branchStorageBuilder
                 .serializer(this::serializeBranches)
                 .deserializer(this::loadBranches)
+                .key(ResolvedBranch::branch)
                 .materialize(branchLocation);
 
         tags = currentTags();
@@ -120,6 +124,11 @@ class UpdateHistory {
         var entry = new ResolvedBranch(branch, hash);
 
         branchStorage.put(entry);
+        if (branchStorage.current() == branchSource) {
+            // A live view of the stored items, only the added entry can have changed
+            branches.put(branch, hash);
+            return;
+        }
         var newBranchHashes = currentBranchHashes();
 
         // Sanity check
@@ -133,6 +142,11 @@ class UpdateHistory {
         branches = newBranchHashes;
     }
 
+    void flush() {
+        tagStorage.flush();
+        branchStorage.flush();
+    }
+
     Optional<Hash> branchHash(Branch branch) {
         var hash = branches.get(branch);
         return Optional.ofNullable(hash);
@@ -31,7 +31,8 @@ import org.openjdk.skara.vcs.*;
 import org.junit.jupiter.api.*;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.*;
+import java.time.Duration;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -57,6 +58,73 @@ class UpdateHistoryTests {
         return UpdateHistory.create(tagStorage,folder.resolve("tags"), branchStorage, folder.resolve("branches"));
     }
 
+    private UpdateHistory createWriteBehindHistory(HostedRepository repository, String ref, Path journalFolder) throws IOException {
+        // Every run gets a fresh local folder, only the journal folder is kept
+        var folder = Files.createTempDirectory("updatehistory");
+        var tagStorage = new StorageBuilder<Tag>("tags.txt")
+                .remoteRepository(repository, ref, "Duke", "duke@openjdk.java.net", "Updated tags")
+                .writeBehind(Duration.ofHours(1), journalFolder);
+        var branchStorage = new StorageBuilder<ResolvedBranch>("branches.txt")
+                .remoteRepository(repository, ref, "Duke", "duke@openjdk.java.net", "Updated branches")
+                .writeBehind(Duration.ofHours(1), journalFolder);
+        return UpdateHistory.create(tagStorage, folder.resolve("tags"), branchStorage, folder.resolve("branches"));
+    }
+
+    @Test
+    void writeBehind(TestInfo testInfo) throws IOException {
+        try (var credentials = new HostCredentials(testInfo)) {
+            var repository = credentials.getHostedRepository();
+            var ref = resetHostedRepository(repository);
+            var folder = Files.createTempDirectory("updatehistory");
+            var history = createWriteBehindHistory(repository, ref, folder);
+
+            history.addTags(List.of(new Tag("1")));
+            history.setBranchHash(new Branch("1"), new Hash("a"));
+            history.setBranchHash(new Branch("1"), new Hash("b"));
+            assertTrue(history.hasTag(new Tag("1")));
+            assertEquals(new Hash("b"), history.branchHash(new Branch("1")).orElseThrow());
+
+            // Nothing has been pushed yet
+            var remoteHistory = createHistory(repository, ref);
+            assertFalse(remoteHistory.hasTag(new Tag("1")));
+            assertTrue(remoteHistory.branchHash(new Branch("1")).isEmpty());
+
+            // The pending updates are recovered from the local journal
+            var restartedHistory = createWriteBehindHistory(repository, ref, folder);
+            assertTrue(restartedHistory.hasTag(new Tag("1")));
+            assertEquals(new Hash("b"), restartedHistory.branchHash(new Branch("1")).orElseThrow());
+
+            restartedHistory.flush();
+            remoteHistory = createHistory(repository, ref);
+            assertTrue(remoteHistory.hasTag(new Tag("1")));
+            assertEquals(new Hash("b"), remoteHistory.branchHash(new Branch("1")).orElseThrow());
+        }
+    }
+
+    @Test
+    void staleJournalIsDiscarded(TestInfo testInfo) throws IOException {
+        try (var credentials = new HostCredentials(testInfo)) {
+            var repository = credentials.getHostedRepository();
+            var ref = resetHostedRepository(repository);
+            var journalFolder = Files.createTempDirectory("updatehistory");
+            var history = createWriteBehindHistory(repository, ref, journalFolder);
+
+            history.setBranchHash(new Branch("1"), new Hash("a"));
+            assertEquals(new Hash("a"), history.branchHash(new Branch("1")).orElseThrow());
+
+            // Someone else moves the remote history forward before the journal is replayed
+            var remoteHistory = createHistory(repository, ref);
+            remoteHistory.setBranchHash(new Branch("1"), new Hash("b"));
+
+            var restartedHistory = createWriteBehindHistory(repository, ref, journalFolder);
+            assertEquals(new Hash("b"), restartedHistory.branchHash(new Branch("1")).orElseThrow());
+            restartedHistory.flush();
+
+            remoteHistory = createHistory(repository, ref);
+            assertEquals(new Hash("b"), remoteHistory.branchHash(new Branch("1")).orElseThrow());
+        }
+    }
+
     @Test
     void tagsRetained(TestInfo testInfo) throws IOException {
         try (var credentials = new HostCredentials(testInfo)) {
@@ -22,16 +22,12 @@
  */
 package org.openjdk.skara.bots.pr;
 
+import org.openjdk.skara.bot.CensusService;
 import org.openjdk.skara.census.*;
 import org.openjdk.skara.forge.*;
 import org.openjdk.skara.jcheck.JCheckConfiguration;
-import org.openjdk.skara.vcs.*;
 
 import java.io.*;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 class CensusInstance {
@@ -47,14 +43,6 @@ class CensusInstance {
         this.namespace = namespace;
     }
 
-    private static Repository initialize(HostedRepository repo, String ref, Path folder) {
-        try {
-            return Repository.materialize(folder, repo.url(), ref);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to retrieve census to " + folder, e);
-        }
-    }
-
     private static Project project(JCheckConfiguration configuration, Census census) {
         var project = census.project(configuration.general().project());
 
@@ -80,27 +68,15 @@ class CensusInstance {
         return JCheckConfiguration.parse(confFile.lines().collect(Collectors.toList()));
     }
 
-    static CensusInstance create(HostedRepository censusRepo, String censusRef, Path folder, PullRequest pr) {
-        var repoName = censusRepo.url().getHost() + "/" + censusRepo.name();
-        var repoFolder = folder.resolve(URLEncoder.encode(repoName, StandardCharsets.UTF_8));
-        try {
-            var localRepo = Repository.get(repoFolder)
-                                      .or(() -> Optional.of(initialize(censusRepo, censusRef, repoFolder)))
-                                      .orElseThrow();
-            var hash = localRepo.fetch(censusRepo.url(), censusRef);
-            localRepo.checkout(hash, true);
-        } catch (IOException e) {
-            initialize(censusRepo, censusRef, repoFolder);
-        }
-
+    static CensusInstance create(HostedRepository censusRepo, String censusRef, PullRequest pr) {
         try {
             var configuration = configuration(pr.repository(), pr.targetRef());
-            var census = Census.parse(repoFolder);
+            var census = CensusService.of(censusRepo, censusRef).census();
             var project = project(configuration, census);
             var namespace = namespace(census, pr.repository().namespace());
             return new CensusInstance(census, configuration, project, namespace);
         } catch (IOException e) {
-            throw new UncheckedIOException("Cannot parse census at " + repoFolder, e);
+            throw new UncheckedIOException("Cannot retrieve census from " + censusRepo.url(), e);
         }
     }
 
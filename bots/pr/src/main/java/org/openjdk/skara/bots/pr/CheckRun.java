@@ -213,15 +213,19 @@ class CheckRun {
     private String getRole(String username) {
         var project = censusInstance.project();
         var version = censusInstance.census().version().format();
-        if (project.isReviewer(username, version)) {
-            return "**Reviewer**";
-        } else if (project.isCommitter(username, version)) {
-            return "Committer";
-        } else if (project.isAuthor(username, version)) {
-            return "Author";
-        } else {
+        var role = project.role(username, version);
+        if (role.isEmpty()) {
             return "no project role";
         }
+        switch (role.get()) {
+            case LEAD:
+            case REVIEWER:
+                return "**Reviewer**";
+            case COMMITTER:
+                return "Committer";
+            default:
+                return "Author";
+        }
     }
 
     private String formatReviewer(HostUser reviewer) {
@@ -455,12 +459,15 @@ class CheckRun {
             // Post check in-progress
             log.info("Starting to run jcheck on PR head");
             pr.createCheck(checkBuilder.build());
-            var localHash = prInstance.commit(censusInstance.namespace(), censusDomain, null);
+            // Use the dates of the PR head so that an unchanged PR results in the same
+            // commit on every run, which lets the jcheck result cache be reused
+            var headDate = prInstance.headDate();
+            var localHash = prInstance.commit(censusInstance.namespace(), censusDomain, null, headDate);
 
             // Try to rebase
             boolean rebasePossible = true;
             var ignored = new PrintWriter(new StringWriter());
-            var rebasedHash = prInstance.rebase(localHash, ignored);
+            var rebasedHash = prInstance.rebase(localHash, ignored, headDate);
             if (rebasedHash.isEmpty()) {
                 rebasePossible = false;
             } else {
@@ -22,6 +22,7 @@
  */
 package org.openjdk.skara.bots.pr;
 
+import org.openjdk.skara.census.Role;
 import org.openjdk.skara.forge.*;
 import org.openjdk.skara.host.*;
 import org.openjdk.skara.issuetracker.*;
@@ -43,17 +44,19 @@ class CheckWorkItem extends PullRequestWorkItem {
     private final String censusRef;
     private final Map<String, String> blockingLabels;
     private final IssueProject issueProject;
+    private final Path objectCache;
 
     private final Pattern metadataComments = Pattern.compile("<!-- (?:(add|remove) contributor)|(?:summary: ')");
     private final Logger log = Logger.getLogger("org.openjdk.skara.bots.pr");
 
     CheckWorkItem(PullRequest pr, HostedRepository censusRepo, String censusRef, Map<String, String> blockingLabels,
-                  Consumer<RuntimeException> errorHandler, IssueProject issueProject) {
+                  Consumer<RuntimeException> errorHandler, IssueProject issueProject, Path objectCache) {
         super(pr, errorHandler);
         this.censusRepo = censusRepo;
         this.censusRef = censusRef;
         this.blockingLabels = blockingLabels;
         this.issueProject = issueProject;
+        this.objectCache = objectCache;
     }
 
     private String encodeReviewer(HostUser reviewer, CensusInstance censusInstance) {
@@ -65,10 +68,11 @@ class CheckWorkItem extends PullRequestWorkItem {
             return "unknown-" + reviewer.id();
         } else {
             var censusVersion = census.version().format();
-            var userName = contributor.username();
-            return contributor.username() + project.isLead(userName, censusVersion) +
-                    project.isReviewer(userName, censusVersion) + project.isCommitter(userName, censusVersion) +
-                    project.isAuthor(userName, censusVersion);
+            var role = project.role(contributor.username(), censusVersion);
+            return contributor.username() + role.map(r -> r.includes(Role.LEAD)).orElse(false) +
+                    role.map(r -> r.includes(Role.REVIEWER)).orElse(false) +
+                    role.map(r -> r.includes(Role.COMMITTER)).orElse(false) +
+                    role.map(r -> r.includes(Role.AUTHOR)).orElse(false);
         }
     }
 
@@ -143,7 +147,7 @@ class CheckWorkItem extends PullRequestWorkItem {
     @Override
     public void run(Path scratchPath) {
         // First determine if the current state of the PR has already been checked
-        var census = CensusInstance.create(censusRepo, censusRef, scratchPath.resolve("census"), pr);
+        var census = CensusInstance.create(censusRepo, censusRef, pr);
         var comments = pr.comments();
         var allReviews = pr.reviews();
         var labels = new HashSet<>(pr.labels());
@@ -157,7 +161,8 @@ class CheckWorkItem extends PullRequestWorkItem {
             }
 
             try {
-                var prInstance = new PullRequestInstance(scratchPath.resolve("pr"), pr);
+                // The checks look at the complete history, for example to find reused issues
+                var prInstance = PullRequestInstance.readOnly(scratchPath.resolve("pr"), pr, objectCache, 0, true);
                 CheckRun.execute(this, pr, prInstance, comments, allReviews, activeReviews, labels, census,
                                  blockingLabels, issueProject);
             } catch (IOException e) {
@@ -149,7 +149,7 @@ public class CommandWorkItem extends PullRequestWorkItem {
             return;
         }
 
-        var census = CensusInstance.create(censusRepo, censusRef, scratchPath.resolve("census"), pr);
+        var census = CensusInstance.create(censusRepo, censusRef, pr);
         for (var entry : unprocessedCommands) {
             processCommand(pr, census, scratchPath.resolve("pr"), entry.getKey(), entry.getValue(), comments);
         }
@@ -34,13 +34,18 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class LabelerWorkItem extends PullRequestWorkItem {
+    // Only the changed files are needed, the history is deepened if the PR is based on an older commit
+    private static final int SHALLOW_DEPTH = 32;
+
     private final Map<String, List<Pattern>> labelPatterns;
     private final ConcurrentMap<Hash, Boolean> currentLabels;
+    private final Path objectCache;
 
-    LabelerWorkItem(PullRequest pr, Map<String, List<Pattern>> labelPatterns, ConcurrentMap<Hash, Boolean> currentLabels, Consumer<RuntimeException> errorHandler) {
+    LabelerWorkItem(PullRequest pr, Map<String, List<Pattern>> labelPatterns, ConcurrentMap<Hash, Boolean> currentLabels, Consumer<RuntimeException> errorHandler, Path objectCache) {
         super(pr, errorHandler);
         this.labelPatterns = labelPatterns;
         this.currentLabels = currentLabels;
+        this.objectCache = objectCache;
     }
 
     @Override
@@ -71,7 +76,7 @@ public class LabelerWorkItem extends PullRequestWorkItem {
             return;
         }
         try {
-            var prInstance = new PullRequestInstance(scratchPath.resolve("labeler"), pr);
+            var prInstance = PullRequestInstance.readOnly(scratchPath.resolve("labeler"), pr, objectCache, SHALLOW_DEPTH, false);
             var newLabels = getLabels(prInstance);
             var currentLabels = pr.labels().stream()
                                   .filter(labelPatterns::containsKey)
@@ -80,7 +80,8 @@ public class PullRequestBotFactory implements BotFactory {
                     configuration.issueProject(repo.value().get("issues").asString()) :
                     null;
             var bot = new PullRequestBot(configuration.repository(repo.name()), censusRepo, censusRef, labelPatterns,
-                                         external, blockers, readyLabels, readyComments, issueProject);
+                                         external, blockers, readyLabels, readyComments, issueProject,
+                                         configuration.objectCacheFolder().orElse(null));
             ret.add(bot);
         }
 
@@ -32,6 +32,7 @@ import org.openjdk.skara.vcs.openjdk.*;
 
 import java.io.*;
 import java.nio.file.Path;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -42,15 +43,36 @@ class PullRequestInstance {
     private final Hash headHash;
     private final Hash baseHash;
 
-    PullRequestInstance(Path localRepoPath, PullRequest pr) throws IOException  {
+    private PullRequestInstance(Path localRepoPath, PullRequest pr, Path objectCache, boolean partial, int depth, boolean checkout) throws IOException  {
         this.pr = pr;
         var repository = pr.repository();
 
         // Materialize the PR's target ref
-        localRepo = Repository.materialize(localRepoPath, repository.url(), pr.targetRef());
-        targetHash = localRepo.fetch(repository.url(), pr.targetRef());
-        headHash = localRepo.fetch(repository.url(), pr.headHash().hex());
-        baseHash = localRepo.mergeBase(targetHash, headHash);
+        localRepo = partial ?
+                Repository.materializePartial(localRepoPath, repository.url(), pr.targetRef(), checkout, depth, objectCache) :
+                Repository.materialize(localRepoPath, repository.url(), pr.targetRef(), objectCache);
+        targetHash = localRepo.fetch(repository.url(), pr.targetRef(), depth);
+        headHash = localRepo.fetch(repository.url(), pr.headHash().hex(), depth);
+        baseHash = localRepo.mergeBase(targetHash, headHash, repository.url());
+    }
+
+    PullRequestInstance(Path localRepoPath, PullRequest pr, Path objectCache) throws IOException  {
+        this(localRepoPath, pr, objectCache, false, 0, true);
+    }
+
+    PullRequestInstance(Path localRepoPath, PullRequest pr) throws IOException  {
+        this(localRepoPath, pr, null);
+    }
+
+    /**
+     * Creates an instance for work that never pushes any commits. The repository is materialized
+     * as a partial clone where file contents that are not in the object cache are fetched on
+     * demand, and if depth is larger than zero, only as much history as is needed to find the
+     * merge base is fetched. Work that only looks at which files have changed can skip the
+     * checkout of the target.
+     */
+    static PullRequestInstance readOnly(Path localRepoPath, PullRequest pr, Path objectCache, int depth, boolean checkout) throws IOException {
+        return new PullRequestInstance(localRepoPath, pr, objectCache, true, depth, checkout);
     }
 
     /**
@@ -92,7 +114,7 @@ class PullRequestInstance {
         return String.join("\n", commitMessageBuilder.format(CommitMessageFormatters.v1));
     }
 
-    private Hash commitSquashed(List<Review> activeReviews, Namespace namespace, String censusDomain, String sponsorId) throws IOException {
+    private Hash commitSquashed(List<Review> activeReviews, Namespace namespace, String censusDomain, String sponsorId, ZonedDateTime date) throws IOException {
         localRepo.checkout(baseHash, true);
         localRepo.squash(headHash);
 
@@ -116,10 +138,10 @@ class PullRequestInstance {
         }
 
         var commitMessage = commitMessage(activeReviews, namespace, false);
-        return localRepo.commit(commitMessage, author.name(), author.email(), committer.name(), committer.email());
+        return localRepo.commit(commitMessage, author.name(), author.email(), date, committer.name(), committer.email(), date);
     }
 
-    private Hash commitMerge(List<Review> activeReviews, Namespace namespace, String censusDomain) throws IOException {
+    private Hash commitMerge(List<Review> activeReviews, Namespace namespace, String censusDomain, ZonedDateTime date) throws IOException {
         localRepo.checkout(headHash, true);
 
         var contributor = namespace.get(pr.author().id());
@@ -130,18 +152,31 @@ class PullRequestInstance {
         var author = new Author(contributor.fullName().orElseThrow(), contributor.username() + "@" + censusDomain);
 
         var commitMessage = commitMessage(activeReviews, namespace, true);
-        return localRepo.amend(commitMessage, author.name(), author.email(), author.name(), author.email());
+        return localRepo.amend(commitMessage, author.name(), author.email(), date, author.name(), author.email(), date);
     }
 
     Hash commit(Namespace namespace, String censusDomain, String sponsorId) throws IOException {
+        return commit(namespace, censusDomain, sponsorId, null);
+    }
+
+    /**
+     * Creates the commit for this pull request. If <code>date</code> is not null it is used as both
+     * author and committer date, otherwise the current time is used. Passing a fixed date makes
+     * the resulting hash depend only on the state of the pull request.
+     */
+    Hash commit(Namespace namespace, String censusDomain, String sponsorId, ZonedDateTime date) throws IOException {
         var activeReviews = filterActiveReviews(pr.reviews());
         if (!pr.title().startsWith("Merge")) {
-            return commitSquashed(activeReviews, namespace, censusDomain, sponsorId);
+            return commitSquashed(activeReviews, namespace, censusDomain, sponsorId, date);
         } else {
-            return commitMerge(activeReviews, namespace, censusDomain);
+            return commitMerge(activeReviews, namespace, censusDomain, date);
         }
     }
 
+    ZonedDateTime headDate() throws IOException {
+        return localRepo.lookup(headHash).orElseThrow(() -> new IOException("Could not find " + headHash)).date();
+    }
+
     List<Commit> divergingCommits() {
         try {
             return localRepo.commits(baseHash + ".." + targetHash).asList();
@@ -151,6 +186,10 @@ class PullRequestInstance {
     }
 
     Optional<Hash> rebase(Hash commitHash, PrintWriter reply) {
+        return rebase(commitHash, reply, null);
+    }
+
+    Optional<Hash> rebase(Hash commitHash, PrintWriter reply, ZonedDateTime date) {
         var divergingCommits = divergingCommits();
         if (divergingCommits.size() > 0) {
             reply.print("The following commits have been pushed to ");
@@ -160,7 +199,7 @@ class PullRequestInstance {
 
             try {
                 var commit = localRepo.lookup(commitHash).orElseThrow();
-                localRepo.rebase(targetHash, commit.committer().name(), commit.committer().email());
+                localRepo.rebase(targetHash, commit.committer().name(), commit.committer().email(), date);
                 reply.println();
                 reply.println("Your commit was automatically rebased without conflicts.");
                 var hash = localRepo.head();
@@ -192,13 +231,7 @@ class PullRequestInstance {
     }
 
     Set<Path> changedFiles() throws IOException {
-        var ret = new HashSet<Path>();
-        var changes = localRepo.diff(baseHash, headHash);
-        for (var patch : changes.patches()) {
-            patch.target().path().ifPresent(ret::add);
-            patch.source().path().ifPresent(ret::add);
-        }
-        return ret;
+        return new HashSet<>(localRepo.changedPaths(baseHash, headHash));
     }
 
     PullRequestCheckIssueVisitor executeChecks(Hash localHash, CensusInstance censusInstance) throws Exception {
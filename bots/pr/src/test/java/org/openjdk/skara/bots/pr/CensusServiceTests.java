@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.bots.pr;
+
+import org.openjdk.skara.bot.CensusService;
+import org.openjdk.skara.test.*;
+import org.openjdk.skara.vcs.Repository;
+
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CensusServiceTests {
+    @Test
+    void shared(TestInfo testInfo) throws IOException {
+        try (var credentials = new HostCredentials(testInfo)) {
+            var censusRepo = credentials.getCensusBuilder()
+                                        .addAuthor("1")
+                                        .build();
+            var service = CensusService.of(censusRepo, "master");
+            assertSame(service, CensusService.of(censusRepo, "master"));
+
+            var census = service.census();
+            assertTrue(census.isContributor("integrationauthor1"));
+
+            // The census has not changed, so it is not parsed again
+            assertSame(census, service.census());
+            assertSame(census, CensusService.of(censusRepo, "master").census());
+        }
+    }
+
+    @Test
+    void refreshed(TestInfo testInfo) throws IOException {
+        try (var credentials = new HostCredentials(testInfo);
+             var tempFolder = new TemporaryDirectory()) {
+            var censusRepo = credentials.getCensusBuilder()
+                                        .addAuthor("1")
+                                        .build();
+            var service = CensusService.of(censusRepo, "master");
+            var census = service.census();
+            assertFalse(census.isContributor("integrationauthor2"));
+
+            // Add a contributor to the census
+            var localRepo = Repository.materialize(tempFolder.path(), censusRepo.url(), "master");
+            var contributors = tempFolder.path().resolve("contributors.xml");
+            var added = "  <contributor username=\"integrationauthor2\" full-name=\"Generated Author 2\" />\n";
+            Files.writeString(contributors, Files.readString(contributors).replace("</contributors>", added + "</contributors>"));
+            localRepo.add(contributors);
+            var hash = localRepo.commit("Added contributor", "Census User", "cu@test.test");
+            localRepo.push(hash, censusRepo.url(), "master");
+
+            var updated = service.census();
+            assertNotSame(census, updated);
+            assertTrue(updated.isContributor("integrationauthor2"));
+            assertSame(updated, service.census());
+        }
+    }
+}
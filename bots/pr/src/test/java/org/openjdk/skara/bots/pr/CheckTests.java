@@ -28,9 +28,11 @@ import org.openjdk.skara.test.*;
 import org.junit.jupiter.api.*;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
@@ -90,6 +92,73 @@ class CheckTests {
         }
     }
 
+    @Test
+    void cachedResultsReused(TestInfo testInfo) throws IOException, InterruptedException {
+        try (var credentials = new HostCredentials(testInfo);
+             var tempFolder = new TemporaryDirectory();
+             var scratchFolder = new TemporaryDirectory()) {
+            var author = credentials.getHostedRepository();
+            var reviewer = credentials.getHostedRepository();
+
+            var censusBuilder = credentials.getCensusBuilder()
+                                           .addAuthor(author.forge().currentUser().id())
+                                           .addReviewer(reviewer.forge().currentUser().id());
+            var checkBot = new PullRequestBot(author, censusBuilder.build(), "master");
+
+            // Populate the projects repository
+            var localRepo = CheckableRepository.init(tempFolder.path(), author.repositoryType());
+            var masterHash = localRepo.resolve("master").orElseThrow();
+            localRepo.push(masterHash, author.url(), "master", true);
+
+            // Make a change with a corresponding PR
+            var editHash = CheckableRepository.appendAndCommit(localRepo);
+            localRepo.push(editHash, author.url(), "refs/heads/edit", true);
+            var pr = credentials.createPullRequest(author, "master", "edit", "This is a pull request");
+
+            // Let master move on so that the checked commit also has to be rebased
+            localRepo.checkout(masterHash, true);
+            var unrelated = Files.writeString(localRepo.root().resolve("unrelated.txt"), "Unrelated", StandardCharsets.UTF_8);
+            localRepo.add(unrelated);
+            var unrelatedHash = localRepo.commit("Unrelated", "some", "some@one");
+            localRepo.push(unrelatedHash, author.url(), "master");
+
+            // Check the status, keeping the local repository between runs
+            for (var item : checkBot.getPeriodicItems()) {
+                item.run(scratchFolder.path());
+            }
+            var check = pr.checks(editHash).get("jcheck");
+            assertEquals(CheckStatus.SUCCESS, check.status());
+
+            var results = scratchFolder.path().resolve("pr").resolve(".git").resolve("jcheck-results").resolve("2");
+            var recorded = readResults(results);
+            assertEquals(1, recorded.size());
+
+            // Commit dates have a resolution of one second, make sure that the current time differs
+            Thread.sleep(1100);
+
+            // Change something that does not affect the commit, so that the check runs again
+            pr.addLabel("unrelated");
+            for (var item : checkBot.getPeriodicItems()) {
+                item.run(scratchFolder.path());
+            }
+            check = pr.checks(editHash).get("jcheck");
+            assertEquals(CheckStatus.SUCCESS, check.status());
+
+            // The same commit was checked again and all of its results came from the cache
+            assertEquals(recorded, readResults(results));
+        }
+    }
+
+    private static Map<Path, String> readResults(Path results) throws IOException {
+        try (var files = Files.walk(results)) {
+            var ret = new HashMap<Path, String>();
+            for (var file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                ret.put(results.relativize(file), Files.readString(file));
+            }
+            return ret;
+        }
+    }
+
     @Test
     void whitespaceIssue(TestInfo testInfo) throws IOException {
         try (var credentials = new HostCredentials(testInfo);
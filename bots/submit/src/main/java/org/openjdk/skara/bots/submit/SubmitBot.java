@@ -25,6 +25,7 @@ package org.openjdk.skara.bots.submit;
 import org.openjdk.skara.bot.*;
 import org.openjdk.skara.forge.*;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,13 +33,19 @@ public class SubmitBot implements Bot {
     private final HostedRepository repository;
     private final List<SubmitExecutor> executors;
     private final PullRequestUpdateCache updateCache;
+    private final Path objectCache;
 
-    SubmitBot(HostedRepository repository, List<SubmitExecutor> executors) {
+    SubmitBot(HostedRepository repository, List<SubmitExecutor> executors, Path objectCache) {
         this.repository = repository;
         this.executors = executors;
+        this.objectCache = objectCache;
         this.updateCache = new PullRequestUpdateCache();
     }
 
+    SubmitBot(HostedRepository repository, List<SubmitExecutor> executors) {
+        this(repository, executors, null);
+    }
+
     @Override
     public List<WorkItem> getPeriodicItems() {
         return repository.pullRequests().stream()
@@ -51,4 +58,8 @@ public class SubmitBot implements Bot {
     HostedRepository repository() {
         return repository;
     }
+
+    Path objectCache() {
+        return objectCache;
+    }
 }
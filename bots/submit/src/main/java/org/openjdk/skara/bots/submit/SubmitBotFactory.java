@@ -66,7 +66,8 @@ public class SubmitBotFactory implements BotFactory {
                                                  .filter(entry -> repoExecutors.contains(entry.getKey()))
                                                  .map(Map.Entry::getValue)
                                                  .collect(Collectors.toList());
-            var bot = new SubmitBot(configuration.repository(repo.name()), repoInstances);
+            var bot = new SubmitBot(configuration.repository(repo.name()), repoInstances,
+                                    configuration.objectCacheFolder().orElse(null));
             ret.add(bot);
         }
 
@@ -84,7 +84,7 @@ public class SubmitBotWorkItem implements WorkItem {
 
         // Materialize the PR's target ref
         try {
-            var localRepo = Repository.materialize(prFolder, pr.repository().url(), pr.targetRef());
+            var localRepo = Repository.materialize(prFolder, pr.repository().url(), pr.targetRef(), bot.objectCache());
             var headHash = localRepo.fetch(pr.repository().url(), pr.headHash().hex());
 
             var checkBuilder = CheckBuilder.create(executor.checkName(), headHash);
@@ -47,12 +47,18 @@ class TopologicalBot implements Bot, WorkItem {
     private final HostedRepository hostedRepo;
     private final List<Branch> branches;
     private final String depsFileName;
+    private final Path objectCache;
 
-    TopologicalBot(Path storage, HostedRepository repo, List<Branch> branches, String depsFileName) {
+    TopologicalBot(Path storage, HostedRepository repo, List<Branch> branches, String depsFileName, Path objectCache) {
         this.storage = storage;
         this.hostedRepo = repo;
         this.branches = branches;
         this.depsFileName = depsFileName;
+        this.objectCache = objectCache;
+    }
+
+    TopologicalBot(Path storage, HostedRepository repo, List<Branch> branches, String depsFileName) {
+        this(storage, repo, branches, depsFileName, null);
     }
 
     @Override
@@ -74,7 +80,7 @@ class TopologicalBot implements Bot, WorkItem {
             if (!Files.exists(dir)) {
                 log.info("Cloning " + hostedRepo.name());
                 Files.createDirectories(dir);
-                repo = Repository.clone(hostedRepo.url(), dir);
+                repo = Repository.clone(hostedRepo.url(), dir, false, objectCache);
             } else {
                 log.info("Found existing scratch directory for " + hostedRepo.name());
                 repo = Repository.get(dir)
@@ -82,6 +88,8 @@ class TopologicalBot implements Bot, WorkItem {
             }
 
             repo.fetchAll();
+            // Load the commit graph so that ancestry queries between branches are answered in-process
+            repo.commitGraph();
             var depsFile = repo.root().resolve(depsFileName);
 
             var orderedBranches = orderedBranches(repo, depsFile);
@@ -61,6 +61,7 @@ public class TopologicalBotFactory implements BotFactory {
         var depsFile = specific.get("depsFile").asString();
 
         log.info("Setting up topological merging in: " + repoName);
-        return List.of(new TopologicalBot(storage, repo, branches, depsFile));
+        return List.of(new TopologicalBot(storage, repo, branches, depsFile,
+                                          configuration.objectCacheFolder().orElse(null)));
     }
 }
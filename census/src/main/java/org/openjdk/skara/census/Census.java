@@ -22,18 +22,14 @@
  */
 package org.openjdk.skara.census;
 
-import java.io.IOException;
+import java.io.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.logging.Logger;
 import java.util.stream.*;
 import java.net.URI;
-import java.net.http.*;
-import java.time.*;
-import org.w3c.dom.Document;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toMap;
-import static java.net.http.HttpResponse.BodyHandlers;
 
 public class Census {
     private static final Logger log = Logger.getLogger("org.openjdk.skara.census");
@@ -148,60 +144,32 @@ public class Census {
         return new Census(contributors, groupMap, projects, namespaces, version);
     }
 
-    private static Census parseDocument(Document document) throws IOException {
-        var census = XML.child(document, "census");
-
-        var date = ZonedDateTime.parse(XML.attribute(census, "time"));
-        var timestamp = date.toInstant();
-        var version = new Version(0, timestamp);
-
-        var contributors = XML.children(census, "person")
-                              .stream()
-                              .map(e -> new Contributor(XML.attribute(e, "name"),
-                                                        XML.child(e, "full-name").getTextContent()))
-                              .collect(toMap(Contributor::username, identity()));
-
-        var groups = new HashMap<String, Group>();
-        for (var ele : XML.children(census, "group")) {
-            var group = Group.parse(ele, contributors);
-            groups.put(group.name(), group);
-        }
-
-        var projects = new ArrayList<Project>();
-        for (var ele : XML.children(census, "project")) {
-            projects.add(Project.parse(ele, groups, contributors));
-        }
-
-        return new Census(contributors, groups, projects, List.of(), version);
-    }
-
     private static Census parseSingleFile(Path p) throws IOException {
         log.finer("Parsing single file " + p.toString());
-        return parseDocument(XML.parse(p));
+        try (var input = Files.newInputStream(p)) {
+            return CensusParser.parse(input);
+        }
     }
 
     public static Census parse(List<String> lines) throws IOException {
-        return parseDocument(XML.parse(lines));
+        return CensusParser.parse(new StringReader(String.join("\n", lines)));
     }
 
     public static Census parse(Path p) throws IOException {
         return Files.isDirectory(p) ? parseDirectory(p) : parseSingleFile(p);
     }
 
-    private static Path download(URI uri) throws IOException, InterruptedException {
-        log.finer("Downloading census from " + uri.toString());
-        var tmpFile = Files.createTempFile("census", ".xml");
-        var client = HttpClient.newHttpClient();
-        var request = HttpRequest.newBuilder()
-                                 .uri(uri)
-                                 .build();
-        var response = client.send(request, BodyHandlers.ofFile(tmpFile));
-        return tmpFile;
+    /**
+     * Parses the census at the given location. The downloaded census is cached in the
+     * user's cache directory and is only downloaded again if it has changed.
+     */
+    public static Census from(URI uri) throws IOException {
+        return from(uri, CensusCache.defaultDirectory());
     }
 
-    public static Census from(URI uri) throws IOException {
+    public static Census from(URI uri, Path cacheDirectory) throws IOException {
         try {
-            return parse(download(uri));
+            return parse(new CensusCache(cacheDirectory).fetch(uri));
         } catch (InterruptedException e) {
             throw new IOException(e);
         }
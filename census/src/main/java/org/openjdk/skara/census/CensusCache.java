@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.census;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.logging.Logger;
+
+import static java.net.http.HttpResponse.BodyHandlers;
+
+/**
+ * An on-disk cache of downloaded census files. Each cached file is stored together with
+ * the validators (ETag and Last-Modified) the server sent for it, and these are used to
+ * make the next download conditional, so that an unchanged census is not transferred
+ * again. If the server cannot be reached, the cached copy is used as is.
+ */
+class CensusCache {
+    private static final Logger log = Logger.getLogger("org.openjdk.skara.census");
+    private final Path dir;
+
+    CensusCache(Path dir) {
+        this.dir = dir;
+    }
+
+    static Path defaultDirectory() {
+        var xdg = System.getenv("XDG_CACHE_HOME");
+        var base = xdg != null && !xdg.isEmpty() ? Path.of(xdg) : Path.of(System.getProperty("user.home"), ".cache");
+        return base.resolve("skara").resolve("census");
+    }
+
+    private static String key(URI uri) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(uri.toString().getBytes(StandardCharsets.UTF_8));
+            var hex = new StringBuilder();
+            for (var b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void write(Path file, List<String> lines) throws IOException {
+        var tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns a local file with the current contents of the census at the given location,
+     * downloading it only if it has changed since it was last cached.
+     */
+    Path fetch(URI uri) throws IOException, InterruptedException {
+        Files.createDirectories(dir);
+        var key = key(uri);
+        var file = dir.resolve(key + ".xml");
+        var validators = dir.resolve(key + ".headers");
+
+        var builder = HttpRequest.newBuilder().uri(uri);
+        if (Files.exists(file) && Files.exists(validators)) {
+            for (var line : Files.readAllLines(validators, StandardCharsets.UTF_8)) {
+                var separator = line.indexOf(':');
+                var name = line.substring(0, separator);
+                var value = line.substring(separator + 1).strip();
+                if (name.equals("ETag")) {
+                    builder.header("If-None-Match", value);
+                } else if (name.equals("Last-Modified")) {
+                    builder.header("If-Modified-Since", value);
+                }
+            }
+        }
+
+        log.finer("Downloading census from " + uri.toString());
+        var tmp = Files.createTempFile(dir, key, ".download");
+        HttpResponse<Path> response;
+        try {
+            response = HttpClient.newHttpClient().send(builder.build(), BodyHandlers.ofFile(tmp));
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            if (Files.exists(file)) {
+                log.warning("Failed to download census from " + uri + ", using cached copy: " + e.getMessage());
+                return file;
+            }
+            throw e;
+        }
+
+        if (response.statusCode() == 304 && Files.exists(file)) {
+            log.finer("Cached census is up to date");
+            Files.delete(tmp);
+            return file;
+        }
+        if (response.statusCode() != 200) {
+            Files.delete(tmp);
+            if (Files.exists(file)) {
+                log.warning("Failed to download census from " + uri + " (" + response.statusCode() + "), using cached copy");
+                return file;
+            }
+            throw new IOException("Failed to download census from " + uri + ": " + response.statusCode());
+        }
+
+        // The contents are replaced before the validators, so they can never describe a newer file
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        var headers = new ArrayList<String>();
+        response.headers().firstValue("ETag").ifPresent(value -> headers.add("ETag: " + value));
+        response.headers().firstValue("Last-Modified").ifPresent(value -> headers.add("Last-Modified: " + value));
+        if (headers.isEmpty()) {
+            Files.deleteIfExists(validators);
+        } else {
+            write(validators, headers);
+        }
+        return file;
+    }
+}
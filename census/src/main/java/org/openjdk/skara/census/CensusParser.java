@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.census;
+
+import java.io.*;
+import java.time.ZonedDateTime;
+import java.util.*;
+import javax.xml.stream.*;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+/**
+ * Parses the single-file form of the census in one streaming pass. Groups and
+ * projects only record the usernames they refer to while the document is read,
+ * and are resolved once all people are known, so the order of the top-level
+ * elements does not matter.
+ */
+class CensusParser {
+    private static class GroupEntry {
+        private final String name;
+        private String fullName;
+        private String lead;
+        private final List<String> members = new ArrayList<>();
+
+        GroupEntry(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class ProjectEntry {
+        private final String name;
+        private String fullName;
+        private String sponsor;
+        private final List<String> usernames = new ArrayList<>();
+        private final List<String> roles = new ArrayList<>();
+
+        ProjectEntry(String name) {
+            this.name = name;
+        }
+    }
+
+    private final Map<String, Contributor> contributors = new HashMap<>();
+    private final List<GroupEntry> groups = new ArrayList<>();
+    private final List<ProjectEntry> projects = new ArrayList<>();
+
+    private CensusParser() {
+    }
+
+    private static XMLInputFactory factory() {
+        var factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    static Census parse(InputStream input) throws IOException {
+        try {
+            return parse(factory().createXMLStreamReader(input));
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    static Census parse(Reader input) throws IOException {
+        try {
+            return parse(factory().createXMLStreamReader(input));
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static Census parse(XMLStreamReader reader) throws IOException, XMLStreamException {
+        try {
+            return new CensusParser().census(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Advances to the next start or end tag, skipping text, comments and
+     * processing instructions.
+     */
+    private static int nextTag(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            var event = reader.next();
+            if (event == START_ELEMENT || event == END_ELEMENT) {
+                return event;
+            }
+        }
+        return END_DOCUMENT;
+    }
+
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        var depth = 1;
+        while (depth > 0) {
+            var event = nextTag(reader);
+            if (event == START_ELEMENT) {
+                depth++;
+            } else if (event == END_ELEMENT) {
+                depth--;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private Census census(XMLStreamReader reader) throws IOException, XMLStreamException {
+        if (nextTag(reader) != START_ELEMENT || !reader.getLocalName().equals("census")) {
+            throw new IOException("Expected a census element");
+        }
+        var date = ZonedDateTime.parse(reader.getAttributeValue(null, "time"));
+        var version = new Version(0, date.toInstant());
+
+        while (nextTag(reader) == START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "person":
+                    person(reader);
+                    break;
+                case "group":
+                    group(reader);
+                    break;
+                case "project":
+                    project(reader);
+                    break;
+                default:
+                    skip(reader);
+            }
+        }
+
+        var groupMap = new HashMap<String, Group>();
+        for (var entry : groups) {
+            var group = new Group(entry.name, entry.fullName,
+                                  entry.lead == null ? null : contributor(entry.lead),
+                                  contributors(entry.members));
+            groupMap.put(group.name(), group);
+        }
+
+        var projectList = new ArrayList<Project>();
+        for (var entry : projects) {
+            projectList.add(project(entry, groupMap));
+        }
+
+        return new Census(contributors, groupMap, projectList, List.of(), version);
+    }
+
+    private Contributor contributor(String username) {
+        return contributors.computeIfAbsent(username, Contributor::new);
+    }
+
+    private List<Contributor> contributors(List<String> usernames) {
+        var result = new ArrayList<Contributor>();
+        for (var username : usernames) {
+            result.add(contributor(username));
+        }
+        return result;
+    }
+
+    private void person(XMLStreamReader reader) throws XMLStreamException {
+        var name = reader.getAttributeValue(null, "name");
+        String fullName = null;
+        while (nextTag(reader) == START_ELEMENT) {
+            if (reader.getLocalName().equals("full-name")) {
+                fullName = reader.getElementText();
+            } else {
+                skip(reader);
+            }
+        }
+        contributors.put(name, new Contributor(name, fullName));
+    }
+
+    private void group(XMLStreamReader reader) throws IOException, XMLStreamException {
+        var entry = new GroupEntry(reader.getAttributeValue(null, "name"));
+        while (nextTag(reader) == START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "full-name":
+                    entry.fullName = reader.getElementText();
+                    break;
+                case "person":
+                    var username = reader.getAttributeValue(null, "ref");
+                    var role = reader.getAttributeValue(null, "role");
+                    if (role == null) {
+                        entry.members.add(username);
+                    } else if (role.equals("lead")) {
+                        entry.lead = username;
+                    } else {
+                        throw new IOException("Unexpected role: " + role);
+                    }
+                    skip(reader);
+                    break;
+                default:
+                    skip(reader);
+            }
+        }
+        groups.add(entry);
+    }
+
+    private void project(XMLStreamReader reader) throws XMLStreamException {
+        var entry = new ProjectEntry(reader.getAttributeValue(null, "name"));
+        while (nextTag(reader) == START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "full-name":
+                    entry.fullName = reader.getElementText();
+                    break;
+                case "sponsor":
+                    entry.sponsor = reader.getAttributeValue(null, "ref");
+                    skip(reader);
+                    break;
+                case "person":
+                    var role = reader.getAttributeValue(null, "role");
+                    entry.usernames.add(reader.getAttributeValue(null, "ref"));
+                    entry.roles.add(role == null ? "" : role);
+                    skip(reader);
+                    break;
+                default:
+                    skip(reader);
+            }
+        }
+        projects.add(entry);
+    }
+
+    private Project project(ProjectEntry entry, Map<String, Group> groups) throws IOException {
+        if (!groups.containsKey(entry.sponsor)) {
+            throw new IllegalArgumentException("Unknown group " + entry.sponsor);
+        }
+        var sponsor = groups.get(entry.sponsor);
+
+        var leaders = new ArrayList<Member>();
+        var committers = new ArrayList<Member>();
+        var reviewers = new ArrayList<Member>();
+        var authors = new ArrayList<Member>();
+
+        for (int i = 0; i < entry.usernames.size(); i++) {
+            var username = entry.usernames.get(i);
+            var role = entry.roles.get(i);
+            var member = new Member(contributor(username), 0);
+
+            switch (role) {
+                case "lead":
+                    leaders.add(member);
+                    break;
+                case "reviewer":
+                    reviewers.add(member);
+                    break;
+                case "committer":
+                    committers.add(member);
+                    break;
+                case "author":
+                    authors.add(member);
+                    break;
+                default:
+                    if ((username.equals("dwookey") || username.equals("jpereda")) &&
+                        entry.name.equals("openjfx")) {
+                        authors.add(member);
+                    } else {
+                        throw new IOException("Unexpected role for " + username +
+                                              " in project " + entry.name + ": '" + role + "'");
+                    }
+            }
+        }
+
+        return new Project(entry.name, entry.fullName, sponsor, leaders, reviewers, committers, authors);
+    }
+}
@@ -25,7 +25,6 @@ package org.openjdk.skara.census;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
-import org.w3c.dom.*;
 
 public class Group {
     private final String name;
@@ -92,31 +91,6 @@ public class Group {
         return new Group(name, fullName, lead, members);
     }
 
-    static Group parse(Element ele, Map<String, Contributor> contributors) throws IOException {
-        var name = XML.attribute(ele, "name");
-        var fullName = XML.child(ele, "full-name").getTextContent();
-
-        Contributor lead = null;
-        var members = new ArrayList<Contributor>();
-        for (var person : XML.children(ele, "person")) {
-            var username = XML.attribute(person, "ref");
-            if (!contributors.containsKey(username)) {
-                contributors.put(username, new Contributor(username));
-            }
-
-            if (XML.hasAttribute(person, "role")) {
-                if (!XML.attribute(person, "role").equals("lead")) {
-                    throw new IOException("Unexpected role: " + XML.attribute(person, "role"));
-                }
-                lead = contributors.get(username);
-            } else {
-                members.add(contributors.get(username));
-            }
-        }
-
-        return new Group(name, fullName, lead, members);
-    }
-
     @Override
     public String toString() {
         return name + " (" + fullName + ")";
@@ -25,7 +25,7 @@ package org.openjdk.skara.census;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
-import org.w3c.dom.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Project {
     private final String name;
@@ -37,6 +37,40 @@ public class Project {
     private final Map<String, Member> committers = new HashMap<String, Member>();
     private final Map<String, Member> authors = new HashMap<String, Member>();
 
+    private final Map<Integer, Index> indices = new ConcurrentHashMap<>();
+
+    /**
+     * The members of the project at a specific census version. Since the members of a
+     * project never change after it has been parsed, the index for a version is built the
+     * first time it is needed and then shared by everyone asking about that version.
+     */
+    private static class Index {
+        private final Map<String, Role> roles = new HashMap<>();
+        private final Map<Role, Set<Contributor>> members = new EnumMap<>(Role.class);
+
+        private void add(Role role, Map<String, Member> category, int version) {
+            var contributors = new HashSet<Contributor>();
+            for (var member : category.values()) {
+                if (version >= member.since() && version < member.until()) {
+                    contributors.add(member.contributor());
+                    roles.merge(member.username(), role, (a, b) -> a.includes(b) ? a : b);
+                }
+            }
+            members.put(role, Collections.unmodifiableSet(contributors));
+        }
+    }
+
+    private Index index(int version) {
+        return indices.computeIfAbsent(version, v -> {
+            var index = new Index();
+            index.add(Role.LEAD, leaders, v);
+            index.add(Role.REVIEWER, reviewers, v);
+            index.add(Role.COMMITTER, committers, v);
+            index.add(Role.AUTHOR, authors, v);
+            return index;
+        });
+    }
+
     private void populate(Map<String, Member> category, List<Member> members) {
         for (var member : members) {
             category.put(member.username(), member);
@@ -72,46 +106,41 @@ public class Project {
         return sponsor;
     }
 
-    private boolean isMember(Map<String, Member> category, String username, int version) {
-        if (!category.containsKey(username)) {
-            return false;
-        }
+    /**
+     * Returns the most privileged role the given user has in the project at the given
+     * census version, if any.
+     */
+    public Optional<Role> role(String username, int version) {
+        return Optional.ofNullable(index(version).roles.get(username));
+    }
 
-        var member = category.get(username);
-        return version >= member.since() && version < member.until();
+    private boolean hasRole(String username, int version, Role role) {
+        var actual = index(version).roles.get(username);
+        return actual != null && actual.includes(role);
     }
 
     public boolean isLead(String username, int version) {
-        return isMember(leaders, username, version);
+        return hasRole(username, version, Role.LEAD);
     }
 
     public boolean isReviewer(String username, int version) {
-        return isLead(username, version) ||
-               isMember(reviewers, username, version);
+        return hasRole(username, version, Role.REVIEWER);
     }
 
     public boolean isCommitter(String username, int version) {
-        return isReviewer(username, version) ||
-               isMember(committers, username, version);
+        return hasRole(username, version, Role.COMMITTER);
     }
 
     public boolean isAuthor(String username, int version) {
-        return isCommitter(username, version) ||
-               isMember(authors, username, version);
+        return hasRole(username, version, Role.AUTHOR);
     }
 
-    private Set<Contributor> members(Map<String, Member> category, int version) {
-        var result = new HashSet<Contributor>();
-        for (var username : category.keySet()) {
-            if (isMember(category, username, version)) {
-                result.add(category.get(username).contributor());
-            }
-        }
-        return result;
+    private Set<Contributor> members(Role role, int version) {
+        return new HashSet<>(index(version).members.get(role));
     }
 
     public Contributor lead(int version) {
-        var leadersAtVersion = members(leaders, version);
+        var leadersAtVersion = members(Role.LEAD, version);
         if (leadersAtVersion.size() != 1) {
             return null;
         }
@@ -120,7 +149,7 @@ public class Project {
 
     public Set<Contributor> reviewers(int version) {
         var leaderAtVersion = lead(version);
-        var reviewersAtVersion = members(reviewers, version);
+        var reviewersAtVersion = members(Role.REVIEWER, version);
         if (leaderAtVersion != null) {
             reviewersAtVersion.add(leaderAtVersion);
         }
@@ -129,14 +158,14 @@ public class Project {
 
     public Set<Contributor> committers(int version) {
         var reviewersAtVersion = reviewers(version);
-        var committersAtVersion = members(committers, version);
+        var committersAtVersion = members(Role.COMMITTER, version);
         committersAtVersion.addAll(reviewersAtVersion);
         return committersAtVersion;
     }
 
     public Set<Contributor> authors(int version) {
         var committersAtVersion = committers(version);
-        var authorsAtVersion = members(authors, version);
+        var authorsAtVersion = members(Role.AUTHOR, version);
         authorsAtVersion.addAll(committersAtVersion);
         return authorsAtVersion;
     }
@@ -160,55 +189,6 @@ public class Project {
         return new Project(name, fullName, sponsor, leaders, reviewers, committers, authors);
     }
 
-    static Project parse(Element ele, Map<String, Group> groups, Map<String, Contributor> contributors) throws IOException {
-        var name = XML.attribute(ele, "name");
-        var fullName = XML.child(ele, "full-name").getTextContent();
-
-        var sponsorName = XML.attribute(XML.child(ele, "sponsor"), "ref");
-        if (!groups.containsKey(sponsorName)) {
-            throw new IllegalArgumentException("Unknown group " + sponsorName);
-        }
-        var sponsor = groups.get(sponsorName);
-
-        var leaders = new ArrayList<Member>();
-        var committers = new ArrayList<Member>();
-        var reviewers = new ArrayList<Member>();
-        var authors = new ArrayList<Member>();
-
-        for (var person : XML.children(ele, "person")) {
-            var username = XML.attribute(person, "ref");
-            if (!contributors.containsKey(username)) {
-                contributors.put(username, new Contributor(username));
-            }
-            var member = new Member(contributors.get(username), 0);
-
-            switch (XML.attribute(person, "role")) {
-                case "lead":
-                    leaders.add(member);
-                    break;
-                case "reviewer":
-                    reviewers.add(member);
-                    break;
-                case "committer":
-                    committers.add(member);
-                    break;
-                case "author":
-                    authors.add(member);
-                    break;
-                default:
-                    if ((username.equals("dwookey") || username.equals("jpereda")) &&
-                        name.equals("openjfx")) {
-                        authors.add(member);
-                    } else {
-                        throw new IOException("Unexpected role for " + username +
-                                              " in project " + name + ": '" + XML.attribute(person, "role") + "'");
-                    }
-            }
-        }
-
-        return new Project(name, fullName, sponsor, leaders, reviewers, committers, authors);
-    }
-
     @Override
     public int hashCode() {
         return Objects.hash(name, fullName, sponsor, leaders, reviewers, committers, authors);
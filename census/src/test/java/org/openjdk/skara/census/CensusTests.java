@@ -22,13 +22,16 @@
  */
 package org.openjdk.skara.census;
 
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.Instant;
-import java.util.List;
+import java.util.*;
 
 class CensusTests {
     private Path createCensusDirectory() throws IOException {
@@ -167,4 +170,92 @@ class CensusTests {
 
         Files.delete(tmpFile);
     }
+
+    @Test
+    void testParseSingleFileInAnyOrder() throws IOException {
+        var census = Census.parse(List.of(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>",
+            "<!-- Projects and groups may refer to people defined later on -->",
+            "<census time=\"2019-01-22T13:51:55-08:00\">",
+            "  <project name=\"project1\" >",
+            "    <full-name>Project One</full-name>",
+            "    <sponsor ref=\"group1\" />",
+            "    <person role=\"lead\" ref=\"user1\" />",
+            "    <person role=\"author\" ref=\"user3\" />",
+            "  </project>",
+            "  <group name=\"group1\">",
+            "    <full-name>Group One</full-name>",
+            "    <person ref=\"user1\" role=\"lead\" />",
+            "  </group>",
+            "  <person name=\"user1\">",
+            "    <full-name>User One</full-name>",
+            "    <org><name>Org One</name></org>",
+            "  </person>",
+            "</census>"));
+
+        var contributor1 = new Contributor("user1", "User One");
+        var contributor3 = new Contributor("user3");
+        assertEquals(contributor1, census.contributor("user1"));
+        assertEquals(contributor3, census.contributor("user3"));
+
+        var group1 = new Group("group1", "Group One", contributor1, List.of());
+        assertEquals(List.of(group1), census.groups());
+        assertEquals(contributor1, census.group("group1").lead());
+
+        var expectedProject = new Project("project1", "Project One", group1,
+                                          List.of(new Member(contributor1)),
+                                          List.of(),
+                                          List.of(),
+                                          List.of(new Member(contributor3)));
+        assertEquals(List.of(expectedProject), census.projects());
+        assertEquals(Instant.parse("2019-01-22T21:51:55Z"), census.version().timestamp());
+    }
+
+    @Test
+    void testDownloadIsCached() throws IOException {
+        var contents = String.join("\n",
+            "<census time=\"2019-01-22T13:51:55-08:00\">",
+            "  <person name=\"user1\">",
+            "    <full-name>User One</full-name>",
+            "  </person>",
+            "</census>");
+        var requests = new ArrayList<String>();
+        var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/census.xml", exchange -> {
+            var tag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            requests.add(tag == null ? "" : tag);
+            exchange.getResponseHeaders().add("ETag", "\"1\"");
+            if ("\"1\"".equals(tag)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                var body = contents.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        var cacheDir = Files.createTempDirectory("census-cache");
+        try {
+            var uri = URI.create("http://" + server.getAddress().getHostString() + ":" +
+                                 server.getAddress().getPort() + "/census.xml");
+            var expected = new Contributor("user1", "User One");
+
+            assertEquals(List.of(expected), Census.from(uri, cacheDir).contributors());
+            assertEquals(List.of(expected), Census.from(uri, cacheDir).contributors());
+            assertEquals(List.of("", "\"1\""), requests);
+
+            // The cached copy is used when the server is gone
+            server.stop(0);
+            assertEquals(List.of(expected), Census.from(uri, cacheDir).contributors());
+        } finally {
+            server.stop(0);
+            try (var files = Files.list(cacheDir)) {
+                for (var file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(cacheDir);
+        }
+    }
 }
@@ -170,4 +170,34 @@ class ProjectTests {
 
         assertFalse(project.isAuthor("foo", 1));
     }
+
+    @Test
+    void testRole() {
+        var project = sampleSingletonProject();
+
+        assertEquals(Optional.of(Role.LEAD), project.role("user_1", 1));
+        assertEquals(Optional.of(Role.REVIEWER), project.role("user_2", 1));
+        assertEquals(Optional.of(Role.COMMITTER), project.role("user_3", 1));
+        assertEquals(Optional.of(Role.AUTHOR), project.role("user_4", 1));
+        assertEquals(Optional.empty(), project.role("user_4", 0));
+        assertEquals(Optional.empty(), project.role("foo", 1));
+    }
+
+    @Test
+    void testRoleChangesBetweenVersions() {
+        var contributor = new Contributor("user_1", "User Number 1");
+        var project = new Project("jdk", "JDK", group,
+                                  List.of(),
+                                  List.of(new Member(contributor, 3)),
+                                  List.of(new Member(contributor, 2, 3)),
+                                  List.of(new Member(contributor, 1)));
+
+        assertEquals(Optional.empty(), project.role("user_1", 0));
+        assertEquals(Optional.of(Role.AUTHOR), project.role("user_1", 1));
+        assertEquals(Optional.of(Role.COMMITTER), project.role("user_1", 2));
+        assertEquals(Optional.of(Role.REVIEWER), project.role("user_1", 3));
+        assertTrue(project.isCommitter("user_1", 3));
+        assertFalse(project.isLead("user_1", 3));
+        assertEquals(Set.of(contributor), project.authors(2));
+    }
 }
@@ -23,26 +23,22 @@
 package org.openjdk.skara.cli;
 
 import org.openjdk.skara.args.*;
-import org.openjdk.skara.census.Census;
 import org.openjdk.skara.jcheck.*;
-import org.openjdk.skara.json.JSON;
-import org.openjdk.skara.json.JSONValue;
 import org.openjdk.skara.vcs.*;
 import org.openjdk.skara.vcs.openjdk.CommitMessageParsers;
 
-import java.io.IOException;
+import java.io.*;
 import java.net.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.logging.Level;
 
 public class GitJCheck {
 
     private static final Pattern urlPattern = Pattern.compile("^https?://.*", Pattern.CASE_INSENSITIVE);
 
-    public static void main(String[] args) throws Exception {
+    static ArgumentParser parser() {
         var flags = List.of(
             Option.shortcut("r")
                   .fullname("rev")
@@ -68,6 +64,10 @@ public class GitJCheck {
                   .fullname("mercurial")
                   .helptext("Deprecated: force use of mercurial")
                   .optional(),
+            Switch.shortcut("")
+                  .fullname("daemon")
+                  .helptext("Run the checks in a background process that is kept between invocations")
+                  .optional(),
             Switch.shortcut("")
                   .fullname("local")
                   .helptext("Run jcheck in \"local\" mode")
@@ -93,8 +93,20 @@ public class GitJCheck {
                   .helptext("Print the version of this tool")
                   .optional());
 
-        var parser = new ArgumentParser("git jcheck", flags, List.of());
-        var arguments = parser.parse(args);
+        return new ArgumentParser("git jcheck", flags, List.of());
+    }
+
+    private static boolean isEnabled(ReadOnlyRepository repo, String key) throws IOException {
+        var lines = repo.config(key);
+        if (lines.size() == 1) {
+            var value = lines.get(0).toUpperCase();
+            return value.equals("TRUE") || value.equals("1") || value.equals("ON");
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws Exception {
+        var arguments = parser().parse(args);
 
         if (arguments.contains("version")) {
             System.out.println("git-jcheck version: " + Version.fromManifest().orElse("unknown"));
@@ -107,49 +119,52 @@ public class GitJCheck {
         }
 
         var cwd = Paths.get("").toAbsolutePath();
-        var repository = ReadOnlyRepository.get(cwd);
+        var isVerbose = arguments.contains("verbose") || arguments.contains("debug");
+        var useDaemon = arguments.contains("daemon");
+        if (!useDaemon && !isVerbose) {
+            var repo = ReadOnlyRepository.get(cwd);
+            useDaemon = repo.isPresent() && isEnabled(repo.get(), "jcheck.daemon");
+        }
+        if (useDaemon && !isVerbose) {
+            // The log output of the daemon is not forwarded, so verbose runs are always done in-process
+            var status = JCheckDaemon.check(cwd, args);
+            if (status.isPresent()) {
+                System.exit(status.getAsInt());
+            }
+        }
+
+        var status = run(new JCheckResources(), cwd, arguments, System.out, System.err);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    static int run(JCheckResources resources, Path cwd, Arguments arguments, PrintStream out, PrintStream err) throws Exception {
+        var repository = resources.repository(cwd);
         if (!repository.isPresent()) {
-            System.err.println(String.format("error: %s is not a repository", cwd.toString()));
-            System.exit(1);
+            err.println(String.format("error: %s is not a repository", cwd.toString()));
+            return 1;
         }
         var repo = repository.get();
         if (repo.isEmpty()) {
-            return;
+            return 0;
         }
 
         var isMercurial = arguments.contains("mercurial");
         var defaultRange = isMercurial ? "tip" : "HEAD^..HEAD";
         var range = arguments.get("rev").orString(defaultRange);
         if (!repo.isValidRevisionRange(range)) {
-            System.err.println(String.format("error: %s is not a valid range of revisions,", range));
+            err.println(String.format("error: %s is not a valid range of revisions,", range));
             if (isMercurial) {
-                System.err.println("       see 'hg help revisions' for how to specify revisions");
+                err.println("       see 'hg help revisions' for how to specify revisions");
             } else {
-                System.err.println("       see 'man 7 gitrevisions' for how to specify revisions");
+                err.println("       see 'man 7 gitrevisions' for how to specify revisions");
             }
-            System.exit(1);
+            return 1;
         }
 
-        var whitelistFile = arguments.get("whitelist").or(".jcheck/whitelist.json").via(Path::of);
-        var whitelist = new HashMap<String, Set<Hash>>();
-        if (Files.exists(whitelistFile)) {
-            var json = JSON.parse(Files.readString(whitelistFile));
-            for (var field : json.fields()) {
-                var check = field.name();
-                var hashes = field.value().stream().map(JSONValue::asString).map(Hash::new).collect(Collectors.toSet());
-                whitelist.put(check, hashes);
-            }
-        }
-
-        var blacklistFile = arguments.get("blacklist").or(".jcheck/blacklist.json").via(Path::of);
-        var blacklist = new HashSet<Hash>();
-        if (Files.exists(blacklistFile)) {
-            var json = JSON.parse(Files.readString(blacklistFile));
-            json.get("commits").stream()
-                               .map(JSONValue::asString)
-                               .map(Hash::new)
-                               .forEach(blacklist::add);
-        }
+        var whitelist = resources.whitelist(cwd.resolve(arguments.get("whitelist").orString(".jcheck/whitelist.json")));
+        var blacklist = resources.blacklist(cwd.resolve(arguments.get("blacklist").orString(".jcheck/blacklist.json")));
 
         var endpoint = arguments.get("census").orString(() -> {
             var fallback = "https://openjdk.java.net/census.xml";
@@ -161,22 +176,16 @@ public class GitJCheck {
             }
         });
         var census = !isURL(endpoint)
-                ? Census.parse(Path.of(endpoint))
-                : Census.from(URI.create(endpoint));
-        var isLocal = arguments.contains("local");
-        if (!isLocal) {
-            var lines = repo.config("jcheck.local");
-            if (lines.size() == 1) {
-                var value = lines.get(0).toUpperCase();
-                isLocal = value.equals("TRUE") || value.equals("1") || value.equals("ON");
-            }
-        }
-        var visitor = new JCheckCLIVisitor(isLocal);
+                ? resources.census(cwd.resolve(endpoint))
+                : resources.census(URI.create(endpoint));
+        var isLocal = arguments.contains("local") || isEnabled(repo, "jcheck.local");
+        var visitor = new JCheckCLIVisitor(out, isLocal);
         try (var errors = JCheck.check(repo, census, CommitMessageParsers.v1, range, whitelist, blacklist)) {
             for (var error : errors) {
                 error.accept(visitor);
             }
         }
+        return 0;
     }
 
     private static boolean isURL(String s) {
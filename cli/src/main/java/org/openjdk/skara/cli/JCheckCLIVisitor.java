@@ -25,11 +25,13 @@ package org.openjdk.skara.cli;
 import org.openjdk.skara.jcheck.*;
 import org.openjdk.skara.vcs.Hash;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 class JCheckCLIVisitor implements IssueVisitor {
+    private final PrintStream out;
     private final boolean isLocal;
 
     public JCheckCLIVisitor() {
@@ -37,27 +39,32 @@ class JCheckCLIVisitor implements IssueVisitor {
     }
 
     public JCheckCLIVisitor(boolean isLocal) {
+        this(System.out, isLocal);
+    }
+
+    public JCheckCLIVisitor(PrintStream out, boolean isLocal) {
+        this.out = out;
         this.isLocal = isLocal;
     }
 
-    private static void println(Issue i, String message) {
-        System.out.print("[");
-        System.out.print(i.check().name());
-        System.out.print("] ");
-        System.out.print(i.severity());
-        System.out.print(": ");
-        System.out.println(message);
+    private void println(Issue i, String message) {
+        out.print("[");
+        out.print(i.check().name());
+        out.print("] ");
+        out.print(i.severity());
+        out.print(": ");
+        out.println(message);
     }
 
-    private static void println(CommitIssue i, String message) {
-        System.out.print("[");
-        System.out.print(i.check().name());
-        System.out.print("] ");
-        System.out.print(i.severity());
-        System.out.print(": ");
-        System.out.print(i.commit().hash().abbreviate());
-        System.out.print(": ");
-        System.out.println(message);
+    private void println(CommitIssue i, String message) {
+        out.print("[");
+        out.print(i.check().name());
+        out.print("] ");
+        out.print(i.severity());
+        out.print(": ");
+        out.print(i.commit().hash().abbreviate());
+        out.print(": ");
+        out.println(message);
     }
 
     public void visit(DuplicateIssuesIssue i) {
@@ -69,7 +76,7 @@ class JCheckCLIVisitor implements IssueVisitor {
                      .map(s -> "         - " + s)
                      .collect(Collectors.toList());
         println(i, "issue id '" + id + "' in commit " + hash + " is already used in commits:");
-        other.forEach(System.out::println);
+        other.forEach(out::println);
     }
 
     public void visit(TagIssue i) {
@@ -183,22 +190,22 @@ class JCheckCLIVisitor implements IssueVisitor {
         var indent = prefix.replaceAll(".", " ");
         var pos = i.path() + ":" + i.row();
 
-        System.out.println(prefix + i.describe() + " in " + pos);
-        System.out.println(indent + i.escapeLine());
-        System.out.println(indent + i.hints());
+        out.println(prefix + i.describe() + " in " + pos);
+        out.println(indent + i.escapeLine());
+        out.println(indent + i.hints());
     }
 
     public void visit(MessageIssue i) {
         println(i, "contains additional lines in commit message");
         for (var line : i.message().additional()) {
-            System.out.println("> " + line);
+            out.println("> " + line);
         }
     }
 
     public void visit(IssuesIssue i) {
         println(i, "missing reference to JBS issue in commit message");
         for (var line : i.commit().message()) {
-            System.out.println("> " + line);
+            out.println("> " + line);
         }
     }
 
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.cli;
+
+import org.openjdk.skara.census.Census;
+import org.openjdk.skara.vcs.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.security.SecureRandom;
+import java.time.*;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * A background process that runs git-jcheck on behalf of the command line tool. The
+ * daemon keeps the repositories, the census and the white- and blacklists between
+ * invocations, so that a check only has to look at the commits themselves. Together with
+ * the state that jcheck stores next to each repository (the issue index and the results
+ * of earlier checks), this keeps repeated checks of the same repository fast.
+ *
+ * The daemon listens on a loopback port that is written, together with a secret token,
+ * to a file in the user's cache directory that only the user can read. Clients must
+ * present the token before anything else. Requests are served one at a time, and the
+ * daemon exits after it has been idle for a while. A client that does not get its request
+ * started in time, for example because the daemon is busy with another one, runs the check
+ * in-process instead.
+ */
+public class JCheckDaemon {
+    private static final Logger log = Logger.getLogger("org.openjdk.skara.cli");
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration CENSUS_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration CHECK_TIMEOUT = Duration.ofMinutes(10);
+
+    private static final int STDOUT = 1;
+    private static final int STDERR = 2;
+    private static final int EXIT = 3;
+    private static final int STARTED = 4;
+
+    private static class Cached<T> {
+        private final T value;
+        private final Object stamp;
+
+        Cached(T value, Object stamp) {
+            this.value = value;
+            this.stamp = stamp;
+        }
+    }
+
+    private static class CachedResources extends JCheckResources {
+        private final Map<Path, ReadOnlyRepository> repositories = new HashMap<>();
+        private final Map<URI, Cached<Census>> remoteCensuses = new HashMap<>();
+        private final Map<Path, Cached<Census>> localCensuses = new HashMap<>();
+        private final Map<Path, Cached<Map<String, Set<Hash>>>> whitelists = new HashMap<>();
+        private final Map<Path, Cached<Set<Hash>>> blacklists = new HashMap<>();
+
+        private static Object stamp(Path file) throws IOException {
+            return Files.exists(file) ? Files.getLastModifiedTime(file) : "missing";
+        }
+
+        @Override
+        Optional<ReadOnlyRepository> repository(Path cwd) throws IOException {
+            var repo = repositories.get(cwd);
+            if (repo == null || !Files.isDirectory(cwd)) {
+                var found = super.repository(cwd);
+                if (found.isEmpty()) {
+                    repositories.remove(cwd);
+                    return found;
+                }
+                repo = found.get();
+                repositories.put(cwd, repo);
+            }
+            return Optional.of(repo);
+        }
+
+        @Override
+        Census census(URI uri) throws IOException {
+            var cached = remoteCensuses.get(uri);
+            var now = Instant.now();
+            if (cached == null || now.isAfter(((Instant) cached.stamp).plus(CENSUS_TIMEOUT))) {
+                cached = new Cached<>(super.census(uri), now);
+                remoteCensuses.put(uri, cached);
+            }
+            return cached.value;
+        }
+
+        @Override
+        Census census(Path path) throws IOException {
+            if (Files.isDirectory(path)) {
+                // A change to any of the files in a census directory does not show up
+                // in the modification time of the directory itself
+                return super.census(path);
+            }
+            var stamp = stamp(path);
+            var cached = localCensuses.get(path);
+            if (cached == null || !cached.stamp.equals(stamp)) {
+                cached = new Cached<>(super.census(path), stamp);
+                localCensuses.put(path, cached);
+            }
+            return cached.value;
+        }
+
+        @Override
+        Map<String, Set<Hash>> whitelist(Path file) throws IOException {
+            var stamp = stamp(file);
+            var cached = whitelists.get(file);
+            if (cached == null || !cached.stamp.equals(stamp)) {
+                cached = new Cached<>(super.whitelist(file), stamp);
+                whitelists.put(file, cached);
+            }
+            return cached.value;
+        }
+
+        @Override
+        Set<Hash> blacklist(Path file) throws IOException {
+            var stamp = stamp(file);
+            var cached = blacklists.get(file);
+            if (cached == null || !cached.stamp.equals(stamp)) {
+                cached = new Cached<>(super.blacklist(file), stamp);
+                blacklists.put(file, cached);
+            }
+            return cached.value;
+        }
+    }
+
+    /**
+     * Forwards everything written to it as frames of the given kind.
+     */
+    private static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream output;
+        private final int kind;
+
+        FrameOutputStream(DataOutputStream output, int kind) {
+            this.output = output;
+            this.kind = kind;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            output.writeByte(kind);
+            output.writeInt(len);
+            output.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            output.flush();
+        }
+    }
+
+    private static Path stateFile() {
+        var xdg = System.getenv("XDG_CACHE_HOME");
+        var base = xdg != null && !xdg.isEmpty() ? Path.of(xdg) : Path.of(System.getProperty("user.home"), ".cache");
+        return base.resolve("skara").resolve("jcheck-daemon");
+    }
+
+    private static Optional<List<String>> readState(Path file) {
+        try {
+            var lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            return lines.size() == 2 ? Optional.of(lines) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static void writeState(Path file, int port, String token) throws IOException {
+        Files.createDirectories(file.getParent());
+        var tmp = file.resolveSibling(file.getFileName() + "." + ProcessHandle.current().pid());
+        Files.deleteIfExists(tmp);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tmp, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        Files.write(tmp, List.of(Integer.toString(port), token), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String token() {
+        var bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void handle(Socket socket, String token, JCheckResources resources) throws IOException {
+        var input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        var output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        if (!input.readUTF().equals(token)) {
+            log.warning("Ignoring connection with an invalid token");
+            return;
+        }
+        var cwd = Path.of(input.readUTF());
+        var args = new String[input.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = input.readUTF();
+        }
+        output.writeByte(STARTED);
+        output.flush();
+
+        var out = new PrintStream(new BufferedOutputStream(new FrameOutputStream(output, STDOUT)), false, StandardCharsets.UTF_8);
+        var err = new PrintStream(new BufferedOutputStream(new FrameOutputStream(output, STDERR)), false, StandardCharsets.UTF_8);
+        int status;
+        try {
+            // The arguments have already been validated by the client
+            status = GitJCheck.run(resources, cwd, GitJCheck.parser().parse(args), out, err);
+        } catch (Exception e) {
+            err.println("error: " + e.getMessage());
+            status = 1;
+        }
+        out.flush();
+        err.flush();
+        output.writeByte(EXIT);
+        output.writeInt(status);
+        output.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        var stateFile = stateFile();
+        var token = token();
+        var resources = new CachedResources();
+        try (var server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int) IDLE_TIMEOUT.toMillis());
+            var port = Integer.toString(server.getLocalPort());
+            writeState(stateFile, server.getLocalPort(), token);
+            try {
+                while (true) {
+                    try (var socket = server.accept()) {
+                        // Only reading the request can time out, a client that does not send
+                        // one must not keep others waiting
+                        socket.setSoTimeout((int) REQUEST_TIMEOUT.toMillis());
+                        handle(socket, token, resources);
+                    } catch (SocketTimeoutException e) {
+                        break;
+                    } catch (IOException e) {
+                        log.warning("Failed to serve request: " + e.getMessage());
+                    }
+                }
+            } finally {
+                // Another daemon may have taken over in the meantime
+                if (readState(stateFile).map(lines -> lines.get(0).equals(port)).orElse(false)) {
+                    Files.deleteIfExists(stateFile);
+                }
+            }
+        }
+    }
+
+    private static void start() throws IOException {
+        var java = ProcessHandle.current().info().command()
+                                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        var command = new ArrayList<String>();
+        command.add(java);
+        var module = JCheckDaemon.class.getModule();
+        if (module.isNamed()) {
+            var modulePath = System.getProperty("jdk.module.path");
+            if (modulePath != null) {
+                command.add("--module-path");
+                command.add(modulePath);
+            }
+            command.add("--module");
+            command.add(module.getName() + "/" + JCheckDaemon.class.getName());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(JCheckDaemon.class.getName());
+        }
+        new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                                   .redirectError(ProcessBuilder.Redirect.DISCARD)
+                                   .start();
+    }
+
+    /**
+     * Sends the request and copies the output of the check. Returns nothing if the daemon
+     * did not start the check in time, or failed before any output was copied.
+     */
+    private static OptionalInt forward(Socket socket, String token, Path cwd, String[] args) throws IOException {
+        var forwarded = false;
+        try {
+            var output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.writeUTF(token);
+            output.writeUTF(cwd.toString());
+            output.writeInt(args.length);
+            for (var arg : args) {
+                output.writeUTF(arg);
+            }
+            output.flush();
+
+            var input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            socket.setSoTimeout((int) REQUEST_TIMEOUT.toMillis());
+            if (input.readByte() != STARTED) {
+                throw new IOException("Unexpected response from the jcheck daemon");
+            }
+            socket.setSoTimeout((int) CHECK_TIMEOUT.toMillis());
+            while (true) {
+                var kind = input.readByte();
+                if (kind == EXIT) {
+                    return OptionalInt.of(input.readInt());
+                }
+                var bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                var stream = kind == STDERR ? System.err : System.out;
+                forwarded = true;
+                stream.write(bytes);
+                stream.flush();
+            }
+        } catch (IOException e) {
+            if (forwarded) {
+                throw new IOException("The jcheck daemon stopped responding", e);
+            }
+            return OptionalInt.empty();
+        }
+    }
+
+    private static class Connection {
+        private final Socket socket;
+        private final String token;
+
+        Connection(Socket socket, String token) {
+            this.socket = socket;
+            this.token = token;
+        }
+    }
+
+    private static Optional<Connection> connect(Path stateFile, List<String> previous) {
+        var state = readState(stateFile);
+        if (state.isEmpty() || state.get().equals(previous)) {
+            return Optional.empty();
+        }
+        try {
+            var port = Integer.parseInt(state.get().get(0));
+            var socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                               (int) CONNECT_TIMEOUT.toMillis());
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            return Optional.of(new Connection(socket, state.get().get(1)));
+        } catch (NumberFormatException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Runs git-jcheck with the given arguments in the daemon, starting the daemon if
+     * needed. Returns the exit status of the check, or nothing if no daemon could be
+     * reached, in which case the caller should run the check itself.
+     */
+    static OptionalInt check(Path cwd, String[] args) throws IOException {
+        var stateFile = stateFile();
+        var connection = connect(stateFile, List.of());
+        if (connection.isEmpty()) {
+            // Not running, or the state file was left behind by a daemon that is gone
+            var stale = readState(stateFile).orElse(List.of());
+            start();
+            var deadline = Instant.now().plus(START_TIMEOUT);
+            while (connection.isEmpty() && Instant.now().isBefore(deadline)) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                connection = connect(stateFile, stale);
+            }
+            if (connection.isEmpty()) {
+                log.warning("Could not start the jcheck daemon, checking in-process");
+                return OptionalInt.empty();
+            }
+        }
+
+        try (var socket = connection.get().socket) {
+            var status = forward(socket, connection.get().token, cwd, args);
+            if (status.isEmpty()) {
+                log.warning("The jcheck daemon did not complete the check, checking in-process");
+            }
+            return status;
+        }
+    }
+}
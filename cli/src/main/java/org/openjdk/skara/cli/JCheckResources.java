@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.cli;
+
+import org.openjdk.skara.census.Census;
+import org.openjdk.skara.json.*;
+import org.openjdk.skara.vcs.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the inputs that git-jcheck needs besides the commits themselves. Every call
+ * loads the input anew, see {@link JCheckDaemon} for a variant that keeps them between
+ * invocations.
+ */
+class JCheckResources {
+    Optional<ReadOnlyRepository> repository(Path cwd) throws IOException {
+        return ReadOnlyRepository.get(cwd);
+    }
+
+    Census census(URI uri) throws IOException {
+        return Census.from(uri);
+    }
+
+    Census census(Path path) throws IOException {
+        return Census.parse(path);
+    }
+
+    Map<String, Set<Hash>> whitelist(Path file) throws IOException {
+        var whitelist = new HashMap<String, Set<Hash>>();
+        if (Files.exists(file)) {
+            var json = JSON.parse(Files.readString(file));
+            for (var field : json.fields()) {
+                var check = field.name();
+                var hashes = field.value().stream().map(JSONValue::asString).map(Hash::new).collect(Collectors.toSet());
+                whitelist.put(check, hashes);
+            }
+        }
+        return whitelist;
+    }
+
+    Set<Hash> blacklist(Path file) throws IOException {
+        var blacklist = new HashSet<Hash>();
+        if (Files.exists(file)) {
+            var json = JSON.parse(Files.readString(file));
+            json.get("commits").stream()
+                               .map(JSONValue::asString)
+                               .map(Hash::new)
+                               .forEach(blacklist::add);
+        }
+        return blacklist;
+    }
+}
@@ -39,11 +39,6 @@ public class Email {
     private final String body;
     private final Map<String, String> headers;
 
-    private final static Pattern mboxMessageHeaderBodyPattern = Pattern.compile(
-            "\\R{2}", Pattern.MULTILINE);
-    private final static Pattern mboxMessageHeaderPattern = Pattern.compile(
-            "^([-\\w]+): ((?:.(?!\\R\\w))*.)", Pattern.MULTILINE | Pattern.DOTALL);
-
     Email(EmailAddress id, ZonedDateTime date, List<EmailAddress> recipients, EmailAddress author, EmailAddress sender, String subject, String body, Map<String, String> headers) {
         this.id = id;
         this.date = date.truncatedTo(ChronoUnit.SECONDS);
@@ -61,17 +56,103 @@ public class Email {
         String body;
     }
 
+    /**
+     * Returns the length of the line break starting at the given index, or 0 if there is
+     * none. The same characters as for \R in a regular expression are recognized.
+     */
+    private static int lineBreak(String s, int i) {
+        if (i < 0 || i >= s.length()) {
+            return 0;
+        }
+        switch (s.charAt(i)) {
+            case '\r':
+                return i + 1 < s.length() && s.charAt(i + 1) == '\n' ? 2 : 1;
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\u0085':
+            case '\u2028':
+            case '\u2029':
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static void addHeader(Map<String, String> headers, String name, StringBuilder value) {
+        if (headers.containsKey(name)) {
+            throw new IllegalStateException("Duplicate header: " + name);
+        }
+        headers.put(name, value.toString());
+    }
+
     private static MboxMessage parseMboxMessage(String message) {
         var ret = new MboxMessage();
 
-        var parts = mboxMessageHeaderBodyPattern.split(message, 2);
-        var headers = mboxMessageHeaderPattern.matcher(parts[0]).results()
-                                              .collect(Collectors.toMap(match -> match.group(1),
-                                                                        match -> match.group(2)
-                                                                                      .replaceAll("\\R", "")));
+        // The headers end at the first empty line
+        var headerEnd = -1;
+        var bodyStart = -1;
+        for (var i = 0; i < message.length(); i++) {
+            var first = lineBreak(message, i);
+            if (first > 0) {
+                var second = lineBreak(message, i + first);
+                if (second > 0) {
+                    headerEnd = i;
+                    bodyStart = i + first + second;
+                    break;
+                }
+                i += first - 1;
+            }
+        }
+        if (headerEnd == -1) {
+            throw new IllegalArgumentException("No end of headers found");
+        }
+
+        // A header is continued on lines that do not start with a word character
+        var headers = new HashMap<String, String>();
+        String name = null;
+        StringBuilder value = null;
+        var lineStart = 0;
+        while (lineStart < headerEnd) {
+            var lineEnd = lineStart;
+            while (lineEnd < headerEnd && lineBreak(message, lineEnd) == 0) {
+                lineEnd++;
+            }
+            // A header with an empty value takes the following line as its value, unless
+            // it ends with a two character line break
+            var empty = value != null && value.length() == 0 && lineBreak(message, lineStart - 2) != 2;
+            if (name != null && lineEnd > lineStart && (empty || !isWordChar(message.charAt(lineStart)))) {
+                value.append(message, lineStart, lineEnd);
+            } else {
+                if (name != null) {
+                    addHeader(headers, name, value);
+                    name = null;
+                    value = null;
+                }
+                var nameEnd = lineStart;
+                while (nameEnd < lineEnd && (isWordChar(message.charAt(nameEnd)) || message.charAt(nameEnd) == '-')) {
+                    nameEnd++;
+                }
+                // A header needs a value, unless it is followed by another line
+                if (nameEnd > lineStart && nameEnd + 2 <= lineEnd && message.startsWith(": ", nameEnd) &&
+                        (nameEnd + 2 < lineEnd || lineEnd < headerEnd)) {
+                    name = message.substring(lineStart, nameEnd);
+                    value = new StringBuilder(message.substring(nameEnd + 2, lineEnd));
+                }
+            }
+            lineStart = lineEnd + lineBreak(message, lineEnd);
+        }
+        if (name != null) {
+            addHeader(headers, name, value);
+        }
+
         ret.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
         ret.headers.putAll(headers);
-        ret.body = parts[1].stripTrailing();
+        ret.body = message.substring(bodyStart).stripTrailing();
         return ret;
     }
 
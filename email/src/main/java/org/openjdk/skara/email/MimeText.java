@@ -22,42 +22,181 @@
  */
 package org.openjdk.skara.email;
 
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
-import java.util.regex.Pattern;
+import java.nio.ByteBuffer;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Encoding and decoding of non-ASCII text in headers, as described in RFC 2047. Both
+ * directions are done in a single pass, and text without anything to encode or decode
+ * is returned as is.
+ */
 public class MimeText {
-    private final static Pattern encodePattern = Pattern.compile("([^\\x00-\\x7f]+)");
-    private final static Pattern decodePattern = Pattern.compile("=\\?([A-Za-z0-9_.-]+)\\?([bBqQ])\\?(.*?)\\?=");
-    private final static Pattern decodeQuotedPrintablePattern = Pattern.compile("=([0-9A-F]{2})");
+    private final static Map<String, Charset> charsets = new ConcurrentHashMap<>();
 
     public static String encode(String raw) {
-        var quoteMatcher = encodePattern.matcher(raw);
-        return quoteMatcher.replaceAll(mo -> "=?utf-8?b?" + Base64.getEncoder().encodeToString(String.valueOf(mo.group(1)).getBytes(StandardCharsets.UTF_8)) + "?=");
+        var start = 0;
+        while (start < raw.length() && raw.charAt(start) <= 0x7f) {
+            start++;
+        }
+        if (start == raw.length()) {
+            return raw;
+        }
+
+        var encoder = Base64.getEncoder();
+        var ret = new StringBuilder(raw.length() * 2);
+        ret.append(raw, 0, start);
+        while (start < raw.length()) {
+            var end = start;
+            while (end < raw.length() && raw.charAt(end) > 0x7f) {
+                end++;
+            }
+            var bytes = raw.substring(start, end).getBytes(StandardCharsets.UTF_8);
+            ret.append("=?utf-8?b?");
+            ret.append(encoder.encodeToString(bytes));
+            ret.append("?=");
+
+            start = end;
+            while (end < raw.length() && raw.charAt(end) <= 0x7f) {
+                end++;
+            }
+            ret.append(raw, start, end);
+            start = end;
+        }
+        return ret.toString();
     }
 
-    public static String decode(String encoded) {
-        var quotedMatcher = decodePattern.matcher(encoded);
-        return quotedMatcher.replaceAll(mo -> {
-            try {
-                if (mo.group(2).toUpperCase().equals("B")) {
-                    return new String(Base64.getDecoder().decode(mo.group(3)), mo.group(1));
+    private static Charset charset(String name) {
+        return charsets.computeIfAbsent(name.toLowerCase(Locale.ROOT), Charset::forName);
+    }
+
+    private static boolean isCharsetChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                c == '_' || c == '.' || c == '-';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Holds the byte buffer that is reused for all the encoded words in a header value.
+     */
+    private static class Decoder {
+        private byte[] buf = new byte[64];
+
+        private byte[] buffer(int size) {
+            if (buf.length < size) {
+                buf = new byte[Math.max(size, buf.length * 2)];
+            }
+            return buf;
+        }
+
+        private void decodeBase64(String encoded, int start, int end, Charset charset, StringBuilder out) {
+            var length = end - start;
+            var bytes = buffer(length);
+            for (var i = 0; i < length; i++) {
+                bytes[i] = (byte) encoded.charAt(start + i);
+            }
+            var decoded = Base64.getDecoder().decode(ByteBuffer.wrap(bytes, 0, length));
+            out.append(charset.decode(decoded));
+        }
+
+        private void decodeQuotedPrintable(String encoded, int start, int end, String charset, StringBuilder out) {
+            var bytes = buffer(end - start);
+            var i = start;
+            while (i < end) {
+                // Collect a run of escaped bytes, so that multi-byte characters are decoded together
+                var count = 0;
+                while (i + 2 < end && encoded.charAt(i) == '=') {
+                    var high = hexValue(encoded.charAt(i + 1));
+                    var low = hexValue(encoded.charAt(i + 2));
+                    if (high == -1 || low == -1) {
+                        break;
+                    }
+                    bytes[count++] = (byte) (high << 4 | low);
+                    i += 3;
+                }
+                if (count > 0) {
+                    out.append(charset(charset).decode(ByteBuffer.wrap(bytes, 0, count)));
                 } else {
-                    var quotedPrintableMatcher = decodeQuotedPrintablePattern.matcher(mo.group(3));
-                    return quotedPrintableMatcher.replaceAll(qmo -> {
-                        var byteValue = new byte[1];
-                        byteValue[0] = (byte)Integer.parseInt(qmo.group(1), 16);
-                        try {
-                            return new String(byteValue, mo.group(1));
-                        } catch (UnsupportedEncodingException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
+                    var c = encoded.charAt(i++);
+                    out.append(c == '_' ? ' ' : c);
                 }
-            } catch (UnsupportedEncodingException e) {
-                throw new RuntimeException(e);
             }
-        });
+        }
+
+        /**
+         * Returns the end of the encoded word starting at the given index, or -1 if there
+         * is no encoded word there.
+         */
+        private int decodeWord(String encoded, int start, StringBuilder out) {
+            var charsetEnd = start + 2;
+            while (charsetEnd < encoded.length() && isCharsetChar(encoded.charAt(charsetEnd))) {
+                charsetEnd++;
+            }
+            if (charsetEnd == start + 2 || charsetEnd + 2 >= encoded.length() ||
+                    encoded.charAt(charsetEnd) != '?' || encoded.charAt(charsetEnd + 2) != '?') {
+                return -1;
+            }
+            var encoding = Character.toUpperCase(encoded.charAt(charsetEnd + 1));
+            if (encoding != 'B' && encoding != 'Q') {
+                return -1;
+            }
+            var textStart = charsetEnd + 3;
+            var textEnd = encoded.indexOf("?=", textStart);
+            if (textEnd == -1) {
+                return -1;
+            }
+            for (var i = textStart; i < textEnd; i++) {
+                if (isLineTerminator(encoded.charAt(i))) {
+                    return -1;
+                }
+            }
+
+            var charset = encoded.substring(start + 2, charsetEnd);
+            if (encoding == 'B') {
+                decodeBase64(encoded, textStart, textEnd, charset(charset), out);
+            } else {
+                decodeQuotedPrintable(encoded, textStart, textEnd, charset, out);
+            }
+            return textEnd + 2;
+        }
+    }
+
+    public static String decode(String encoded) {
+        var start = encoded.indexOf("=?");
+        if (start == -1) {
+            return encoded;
+        }
+
+        var decoder = new Decoder();
+        var ret = new StringBuilder(encoded.length());
+        var copied = 0;
+        while (start != -1) {
+            ret.append(encoded, copied, start);
+            var end = decoder.decodeWord(encoded, start, ret);
+            if (end == -1) {
+                ret.append(encoded, start, start + 1);
+                copied = start + 1;
+            } else {
+                copied = end;
+            }
+            start = encoded.indexOf("=?", copied);
+        }
+        ret.append(encoded, copied, encoded.length());
+        return ret.toString();
     }
 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.email;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * An SMTP client connection that can be used to send several messages. The connection is
+ * opened when the first message is sent, and reset with RSET before each following message.
+ * If the server has closed the connection in the meantime, a new one is opened. When the
+ * server advertises PIPELINING, the envelope commands are sent without waiting for the
+ * individual replies.
+ */
+public class SMTPConnection implements AutoCloseable {
+    private final static Logger log = Logger.getLogger("org.openjdk.skara.email");
+
+    private final String host;
+    private final int port;
+    private final Duration timeout;
+
+    private Socket socket;
+    private BufferedReader in;
+    private BufferedWriter out;
+    private boolean pipelining;
+    private boolean used;
+    private Instant deadline;
+
+    private static class Reply {
+        private final int code;
+        private final List<String> lines;
+
+        Reply(int code, List<String> lines) {
+            this.code = code;
+            this.lines = lines;
+        }
+
+        @Override
+        public String toString() {
+            return code + " " + String.join(" ", lines);
+        }
+    }
+
+    public SMTPConnection(String server, Duration timeout) {
+        var port = 25;
+        if (server.contains(":")) {
+            var parts = server.split(":", 2);
+            server = parts[0];
+            port = Integer.parseInt(parts[1]);
+        }
+        this.host = server;
+        this.port = port;
+        this.timeout = timeout;
+    }
+
+    public SMTPConnection(String server) {
+        this(server, Duration.ofMinutes(30));
+    }
+
+    public boolean isOpen() {
+        return socket != null;
+    }
+
+    /**
+     * Returns true if the server supports command pipelining. Only valid while the connection is open.
+     */
+    public boolean supportsPipelining() {
+        return pipelining;
+    }
+
+    private Duration remaining() {
+        var remaining = Duration.between(Instant.now(), deadline);
+        if (remaining.isNegative() || remaining.isZero()) {
+            throw new RuntimeException("Timeout waiting for reply from " + host + ":" + port);
+        }
+        return remaining;
+    }
+
+    private Reply reply() throws IOException {
+        var lines = new ArrayList<String>();
+        while (true) {
+            socket.setSoTimeout((int) Math.max(1, Math.min(Integer.MAX_VALUE, remaining().toMillis())));
+            String line;
+            try {
+                line = in.readLine();
+            } catch (SocketTimeoutException e) {
+                throw new RuntimeException("Timeout waiting for reply from " + host + ":" + port);
+            }
+            if (line == null) {
+                throw new IOException("Connection closed by " + host + ":" + port);
+            }
+            log.fine("< " + line);
+            if (line.length() < 3 || !line.substring(0, 3).chars().allMatch(Character::isDigit)) {
+                throw new IOException("Malformed reply: " + line);
+            }
+            lines.add(line.length() > 4 ? line.substring(4) : "");
+            if (line.length() < 4 || line.charAt(3) != '-') {
+                return new Reply(Integer.parseInt(line.substring(0, 3)), lines);
+            }
+        }
+    }
+
+    private static void expect(Reply reply, int code) throws IOException {
+        if (reply.code != code) {
+            throw new IOException("Unexpected reply: " + reply);
+        }
+    }
+
+    private void write(String line) throws IOException {
+        log.fine("> " + line);
+        out.write(line);
+        out.write("\r\n");
+    }
+
+    private void command(String command, int expectedCode) throws IOException {
+        write(command);
+        out.flush();
+        expect(reply(), expectedCode);
+    }
+
+    private void connect(String domain) throws IOException {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), (int) Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        used = false;
+
+        expect(reply(), 220);
+        write("EHLO " + domain);
+        out.flush();
+        var ehlo = reply();
+        expect(ehlo, 250);
+        pipelining = ehlo.lines.stream().anyMatch(line -> line.equalsIgnoreCase("PIPELINING"));
+    }
+
+    private void disconnect() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.fine("Failed to close connection: " + e.getMessage());
+        }
+        socket = null;
+        in = null;
+        out = null;
+    }
+
+    private static List<String> message(EmailAddress recipient, Email email) {
+        var lines = new ArrayList<String>();
+        lines.add("From: " + MimeText.encode(email.author().toString()));
+        lines.add("Message-Id: " + email.id());
+        lines.add("Date: " + email.date().format(DateTimeFormatter.RFC_1123_DATE_TIME));
+        lines.add("Sender: " + MimeText.encode(email.sender().toString()));
+        lines.add("To: " + MimeText.encode(recipient.toString()));
+        for (var header : email.headers()) {
+            lines.add(header + ": " + MimeText.encode(email.headerValue(header)));
+        }
+        lines.add("Subject: " + MimeText.encode(email.subject()));
+        lines.add("Content-type: text/plain; charset=utf-8");
+        lines.add("");
+        email.body().lines().forEach(lines::add);
+        return lines;
+    }
+
+    public void send(EmailAddress recipient, Email email) throws IOException {
+        deadline = Instant.now().plus(timeout);
+        if (socket != null && used) {
+            try {
+                command("RSET", 250);
+            } catch (IOException e) {
+                // Nothing has been sent for this message yet, so it is safe to start over
+                log.info("Reconnecting to " + host + ":" + port + " (" + e.getMessage() + ")");
+                disconnect();
+            }
+        }
+
+        try {
+            if (socket == null) {
+                connect(email.sender().domain());
+            }
+            used = true;
+
+            var commands = List.of("MAIL FROM:<" + email.sender().address() + ">",
+                                   "RCPT TO:<" + recipient.address() + ">",
+                                   "DATA");
+            var expected = List.of(250, 250, 354);
+            if (pipelining) {
+                for (var command : commands) {
+                    write(command);
+                }
+                out.flush();
+                // All replies must be read before failing to keep the connection in a known state
+                var replies = new ArrayList<Reply>();
+                for (var i = 0; i < commands.size(); i++) {
+                    replies.add(reply());
+                }
+                for (var i = 0; i < commands.size(); i++) {
+                    expect(replies.get(i), expected.get(i));
+                }
+            } else {
+                for (var i = 0; i < commands.size(); i++) {
+                    command(commands.get(i), expected.get(i));
+                }
+            }
+
+            for (var line : message(recipient, email)) {
+                // Lines starting with a dot are escaped by adding another one
+                write(line.startsWith(".") ? "." + line : line);
+            }
+            command(".", 250);
+        } catch (IOException | RuntimeException e) {
+            if (socket != null) {
+                disconnect();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (socket == null) {
+            return;
+        }
+        try {
+            deadline = Instant.now().plus(timeout);
+            command("QUIT", 221);
+        } catch (IOException | RuntimeException e) {
+            log.fine("Failed to quit: " + e.getMessage());
+        } finally {
+            disconnect();
+        }
+    }
+}
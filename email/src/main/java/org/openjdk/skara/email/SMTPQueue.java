@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.email;
+
+import java.io.IOException;
+import java.time.*;
+import java.util.concurrent.*;
+import java.util.logging.Logger;
+
+/**
+ * An outbound queue that sends messages in the background, at most one per send interval.
+ * Messages are sent over the same connection as long as the next one is queued before the
+ * connection has been idle for longer than the send interval plus a short grace period,
+ * after that the connection is closed until there is something to send again.
+ */
+public class SMTPQueue implements AutoCloseable {
+    private final static Logger log = Logger.getLogger("org.openjdk.skara.email");
+    private final static Duration IDLE_GRACE = Duration.ofSeconds(10);
+
+    private final SMTPConnection connection;
+    private final Duration sendInterval;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private Instant nextSend = Instant.EPOCH;
+    private int pending = 0;
+    private ScheduledFuture<?> idleClose;
+
+    public SMTPQueue(String server, Duration sendInterval, Duration timeout) {
+        this.connection = new SMTPConnection(server, timeout);
+        this.sendInterval = sendInterval;
+        scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            var thread = new Thread(runnable, "smtp-queue-" + server);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setKeepAliveTime(1, TimeUnit.MINUTES);
+        scheduler.allowCoreThreadTimeOut(true);
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    public SMTPQueue(String server, Duration sendInterval) {
+        this(server, sendInterval, Duration.ofMinutes(30));
+    }
+
+    /**
+     * Queues a message for sending. The returned future completes once the server has
+     * accepted the message.
+     */
+    public synchronized CompletableFuture<Void> send(EmailAddress recipient, Email email) {
+        var now = Instant.now();
+        var sendAt = nextSend.isAfter(now) ? nextSend : now;
+        nextSend = sendAt.plus(sendInterval);
+
+        var future = new CompletableFuture<Void>();
+        scheduler.schedule(() -> deliver(recipient, email, future),
+                           Duration.between(now, sendAt).toMillis(), TimeUnit.MILLISECONDS);
+        pending++;
+        if (idleClose != null) {
+            idleClose.cancel(false);
+            idleClose = null;
+        }
+        return future;
+    }
+
+    private synchronized void delivered() {
+        pending--;
+        if (pending > 0) {
+            return;
+        }
+        if (scheduler.isShutdown()) {
+            closeConnection();
+        } else {
+            idleClose = scheduler.schedule(this::closeIfIdle, sendInterval.plus(IDLE_GRACE).toMillis(),
+                                           TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void closeIfIdle() {
+        if (pending == 0) {
+            closeConnection();
+        }
+    }
+
+    private synchronized void closeConnection() {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            log.fine("Failed to close connection: " + e.getMessage());
+        }
+    }
+
+    private void deliver(EmailAddress recipient, Email email, CompletableFuture<Void> future) {
+        try {
+            connection.send(recipient, email);
+            future.complete(null);
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            delivered();
+        }
+    }
+
+    /**
+     * Stops accepting new messages. Messages that have already been queued are still sent,
+     * the connection is closed after the last one.
+     */
+    @Override
+    public synchronized void close() {
+        scheduler.shutdown();
+        if (idleClose != null) {
+            idleClose.cancel(false);
+            idleClose = null;
+        }
+        if (pending == 0) {
+            closeConnection();
+        }
+    }
+}
@@ -58,6 +58,15 @@ public class SMTPSession {
         throw new RuntimeException("Timeout waiting for pattern: " + expectedReply);
     }
 
+    /**
+     * Returns the next line, or null if the other side has closed the connection.
+     */
+    public String readLine() throws IOException {
+        var line = in.readLine();
+        log.fine("< " + line);
+        return line;
+    }
+
     public List<String> readLinesUntil(Pattern end) throws IOException {
         var ret = new ArrayList<String>();
         while (Instant.now().isBefore(timeout)) {
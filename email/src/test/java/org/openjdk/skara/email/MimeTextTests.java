@@ -41,4 +41,22 @@ class MimeTextTests {
     void decodeIsoQ() {
         assertEquals("Bä", MimeText.decode("=?iso-8859-1?Q?B=E4?="));
     }
+
+    @Test
+    void encodeMixed() {
+        assertEquals("Plain", MimeText.encode("Plain"));
+        assertEquals("B=?utf-8?b?w6Q=?= and =?utf-8?b?w7Y=?=", MimeText.encode("Bä and ö"));
+    }
+
+    @Test
+    void decodeUtf8Q() {
+        assertEquals("Bä c", MimeText.decode("=?UTF-8?Q?B=C3=A4_c?="));
+    }
+
+    @Test
+    void decodeMixed() {
+        assertEquals("Plain", MimeText.decode("Plain"));
+        assertEquals("Bä and ö", MimeText.decode("B=?utf-8?b?w6Q=?= and =?utf-8?b?w7Y=?="));
+        assertEquals("=?utf-8?x?abc?= =?", MimeText.decode("=?utf-8?x?abc?= =?"));
+    }
 }
@@ -27,7 +27,8 @@ import org.openjdk.skara.test.SMTPServer;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
-import java.time.Duration;
+import java.time.*;
+import java.util.concurrent.*;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -96,4 +97,47 @@ class SMTPTests {
             assertThrows(RuntimeException.class, () -> SMTP.send(server.address(), recipient, sentMail, Duration.ZERO));
         }
     }
+
+    @Test
+    void reuseConnection() throws IOException {
+        try (var server = new SMTPServer()) {
+            var sender = EmailAddress.from("Test", "test@test.email");
+            var recipient = EmailAddress.from("Dest", "dest@dest.email");
+            var first = Email.create(sender, "First", "Body").recipient(recipient).build();
+            var second = Email.create(sender, "Second", ".\n..dots\nBody").recipient(recipient).build();
+
+            try (var connection = new SMTPConnection(server.address())) {
+                connection.send(recipient, first);
+                assertTrue(connection.supportsPipelining());
+                connection.send(recipient, second);
+            }
+            assertEquals(first, server.receive(Duration.ofSeconds(10)));
+            assertEquals(second, server.receive(Duration.ofSeconds(10)));
+            assertEquals(1, server.sessions());
+        }
+    }
+
+    @Test
+    void queue() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        try (var server = new SMTPServer()) {
+            var sender = EmailAddress.from("Test", "test@test.email");
+            var recipient = EmailAddress.from("Dest", "dest@dest.email");
+            var first = Email.create(sender, "First", "Body").recipient(recipient).build();
+            var second = Email.create(sender, "Second", "Body").recipient(recipient).build();
+
+            try (var queue = new SMTPQueue(server.address(), Duration.ofMillis(500))) {
+                var start = Instant.now();
+                var firstSent = queue.send(recipient, first);
+                var secondSent = queue.send(recipient, second);
+                assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofMillis(500)) < 0);
+
+                firstSent.get(10, TimeUnit.SECONDS);
+                secondSent.get(10, TimeUnit.SECONDS);
+                assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofMillis(500)) >= 0);
+            }
+            assertEquals(first, server.receive(Duration.ofSeconds(10)));
+            assertEquals(second, server.receive(Duration.ofSeconds(10)));
+            assertEquals(1, server.sessions());
+        }
+    }
 }
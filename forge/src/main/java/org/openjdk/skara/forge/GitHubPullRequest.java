@@ -36,6 +36,14 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class GitHubPullRequest implements PullRequest {
+    // The pull request objects returned by GitHub embed the full head and base repositories,
+    // only the fields below are needed and kept
+    static final JSONProjection FIELDS = JSONProjection.of("number", "title", "body", "draft",
+                                                           "created_at", "updated_at",
+                                                           "user.id", "user.login",
+                                                           "head.sha", "head.ref", "base.ref",
+                                                           "assignees.id", "assignees.login");
+
     private final JSONValue json;
     private final RestRequest request;
     private final GitHubHost host;
@@ -46,7 +54,7 @@ public class GitHubPullRequest implements PullRequest {
         this.host = (GitHubHost)repository.forge();
         this.repository = repository;
         this.request = request;
-        this.json = jsonValue;
+        this.json = FIELDS.apply(jsonValue);
     }
 
     @Override
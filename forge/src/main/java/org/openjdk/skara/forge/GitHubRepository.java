@@ -95,6 +95,7 @@ public class GitHubRepository implements HostedRepository {
                          .put("draft", draft);
         var pr = upstream.request.post("pulls")
                                  .body(params)
+                                 .project(GitHubPullRequest.FIELDS)
                                  .execute();
 
         return new GitHubPullRequest(upstream, pr, request);
@@ -102,13 +103,17 @@ public class GitHubRepository implements HostedRepository {
 
     @Override
     public PullRequest pullRequest(String id) {
-        var pr = request.get("pulls/" + id).execute();
+        var pr = request.get("pulls/" + id)
+                        .project(GitHubPullRequest.FIELDS)
+                        .execute();
         return new GitHubPullRequest(this, pr, request);
     }
 
     @Override
     public List<PullRequest> pullRequests() {
-        return request.get("pulls").execute().asArray().stream()
+        return request.get("pulls")
+                      .project(GitHubPullRequest.FIELDS)
+                      .execute().asArray().stream()
                       .map(jsonValue -> new GitHubPullRequest(this, jsonValue, request))
                       .collect(Collectors.toList());
     }
@@ -23,6 +23,7 @@
 package org.openjdk.skara.jcheck;
 
 import org.openjdk.skara.vcs.Commit;
+import org.openjdk.skara.vcs.DiffDetail;
 import org.openjdk.skara.vcs.openjdk.CommitMessage;
 
 import java.util.Iterator;
@@ -49,6 +50,11 @@ public class BinaryCheck extends CommitCheck {
         return issues.iterator();
     }
 
+    @Override
+    DiffDetail diffDetail() {
+        return DiffDetail.TEXT;
+    }
+
     @Override
     public String name() {
         return "binary";
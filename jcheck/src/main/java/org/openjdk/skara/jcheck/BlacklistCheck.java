@@ -49,6 +49,12 @@ public class BlacklistCheck extends CommitCheck {
         return iterator();
     }
 
+    @Override
+    boolean isCacheable() {
+        // The blacklist is not part of the configuration
+        return false;
+    }
+
     @Override
     public String name() {
         return "blacklist";
@@ -24,13 +24,56 @@ package org.openjdk.skara.jcheck;
 
 import org.openjdk.skara.vcs.openjdk.CommitMessage;
 import org.openjdk.skara.vcs.Commit;
+import org.openjdk.skara.vcs.DiffDetail;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Iterator;
 
 abstract class CommitCheck implements Check {
     abstract Iterator<Issue> check(Commit commit, CommitMessage message, JCheckConfiguration conf);
 
+    /**
+     * Checks are run concurrently for different commits unless they opt out here, in
+     * which case they are run for one commit at a time, in commit order.
+     */
+    boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * Passing results are cached between runs, keyed by the commit and the configuration.
+     * Checks whose results depend on anything else than those return false here.
+     */
+    boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * Checks that look up contributors in the census return true here, so that their
+     * cached results are only used with the same version of the census.
+     */
+    boolean usesCensus() {
+        return false;
+    }
+
+    /**
+     * How much of the diffs of a commit the check looks at. Commits are only loaded with
+     * as much detail as the enabled checks need.
+     */
+    DiffDetail diffDetail() {
+        return DiffDetail.NONE;
+    }
+
+    /**
+     * Checks that only look at the hunks for some files return true here for those files,
+     * as selected by the given configuration. A commit changing such a file is loaded with
+     * its hunks even if {@link #diffDetail()} does not include them.
+     */
+    boolean needsHunks(Path path, JCheckConfiguration conf) {
+        return false;
+    }
+
     protected Iterator<Issue> iterator(Issue... issues) {
         return Arrays.asList(issues).iterator();
     }
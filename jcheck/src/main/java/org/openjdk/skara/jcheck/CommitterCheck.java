@@ -83,6 +83,11 @@ public class CommitterCheck extends CommitCheck {
         return iterator();
     }
 
+    @Override
+    boolean usesCensus() {
+        return true;
+    }
+
     @Override
     public String name() {
         return "committer";
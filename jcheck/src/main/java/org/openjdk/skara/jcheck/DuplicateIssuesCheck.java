@@ -37,6 +37,7 @@ public class DuplicateIssuesCheck extends CommitCheck {
     private final Logger log = Logger.getLogger("org.openjdk.skara.jcheck.duplicate-issues");
     private final ReadOnlyRepository repo;
     private Map<Issue, List<Hash>> issuesToHashes = null;
+    private IssueIndex index = null;
 
     DuplicateIssuesCheck(ReadOnlyRepository repo) {
         this.repo = repo;
@@ -58,26 +59,52 @@ public class DuplicateIssuesCheck extends CommitCheck {
         }
     }
 
+    private void loadIndex() throws IOException {
+        var persistent = IssueIndex.of(repo);
+        if (persistent.isPresent()) {
+            try {
+                persistent.get().update();
+                index = persistent.get();
+                return;
+            } catch (IOException e) {
+                log.warning("Could not update the issue index, scanning all commits instead: " + e.getMessage());
+            }
+        }
+        populateIssuesToHashesMap();
+    }
+
     @Override
     Iterator<org.openjdk.skara.jcheck.Issue> check(Commit commit, CommitMessage message, JCheckConfiguration conf) {
         try {
-            if (issuesToHashes == null) {
-                populateIssuesToHashesMap();
+            if (issuesToHashes == null && index == null) {
+                loadIndex();
+            }
+
+            var metadata = CommitIssue.metadata(commit, message, conf, this);
+            var issues = new ArrayList<org.openjdk.skara.jcheck.Issue>();
+            for (var issue : message.issues()) {
+                var hashes = index != null ? index.lookup(issue) : issuesToHashes.get(issue);
+                if (hashes != null && hashes.size() > 1) {
+                    log.finer("issue: the JBS issue " + issue.toString() + " has been used in multiple commits");
+                    issues.add(new DuplicateIssuesIssue(issue, hashes, metadata));
+                }
             }
+            return issues.iterator();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+    }
 
-        var metadata = CommitIssue.metadata(commit, message, conf, this);
-        var issues = new ArrayList<org.openjdk.skara.jcheck.Issue>();
-        for (var issue : message.issues()) {
-            var hashes = issuesToHashes.get(issue);
-            if (hashes != null && hashes.size() > 1) {
-                log.finer("issue: the JBS issue " + issue.toString() + " has been used in multiple commits");
-                issues.add(new DuplicateIssuesIssue(issue, hashes, metadata));
-            }
-        }
-        return issues.iterator();
+    @Override
+    boolean isThreadSafe() {
+        // The issue index is loaded lazily
+        return false;
+    }
+
+    @Override
+    boolean isCacheable() {
+        // Depends on the other commits in the repository
+        return false;
     }
 
     @Override
@@ -23,6 +23,7 @@
 package org.openjdk.skara.jcheck;
 
 import org.openjdk.skara.vcs.Commit;
+import org.openjdk.skara.vcs.DiffDetail;
 import org.openjdk.skara.vcs.openjdk.CommitMessage;
 
 import java.util.Iterator;
@@ -53,6 +54,11 @@ public class ExecutableCheck extends CommitCheck {
         return issues.iterator();
     }
 
+    @Override
+    DiffDetail diffDetail() {
+        return DiffDetail.STATUS;
+    }
+
     @Override
     public String name() {
         return "executable";
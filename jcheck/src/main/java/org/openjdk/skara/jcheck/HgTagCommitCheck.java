@@ -23,8 +23,10 @@
 package org.openjdk.skara.jcheck;
 
 import org.openjdk.skara.vcs.Commit;
+import org.openjdk.skara.vcs.DiffDetail;
 import org.openjdk.skara.vcs.openjdk.CommitMessage;
 
+import java.nio.file.Path;
 import java.util.regex.Pattern;
 import java.util.Iterator;
 import java.util.logging.Logger;
@@ -103,6 +105,16 @@ public class HgTagCommitCheck extends CommitCheck {
         return iterator();
     }
 
+    @Override
+    DiffDetail diffDetail() {
+        return DiffDetail.STATUS;
+    }
+
+    @Override
+    boolean needsHunks(Path path, JCheckConfiguration conf) {
+        return utils.isHgTags(path);
+    }
+
     @Override
     public String name() {
         return "hg-tag";
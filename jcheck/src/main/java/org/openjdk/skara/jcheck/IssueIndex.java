@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.jcheck;
+
+import org.openjdk.skara.vcs.*;
+import org.openjdk.skara.vcs.openjdk.Issue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * An index from issue to the commits that reference it, stored on disk next to the
+ * repository metadata. The index covers the commits reachable from the tips it was last
+ * updated for, so bringing it up to date only needs to look at the commits that have been
+ * added or removed since then. The entries are spread over a fixed number of bucket files,
+ * so that looking up an issue only reads a small part of the index.
+ */
+class IssueIndex {
+    private static final int BUCKETS = 256;
+    private static final Map<Path, Object> locks = new ConcurrentHashMap<>();
+
+    private final ReadOnlyRepository repo;
+    private final Path dir;
+
+    private IssueIndex(ReadOnlyRepository repo, Path dir) {
+        this.repo = repo;
+        this.dir = dir;
+    }
+
+    /**
+     * Returns the index for the given repository, if the repository has a metadata
+     * directory where the index can be stored.
+     */
+    static Optional<IssueIndex> of(ReadOnlyRepository repo) throws IOException {
+        return Utilities.metadataDirectory(repo).map(dir -> new IssueIndex(repo, dir.resolve("jcheck-issues")));
+    }
+
+    private static String key(Issue issue) {
+        // Issues are only considered the same if their descriptions match as well
+        return issue.toString();
+    }
+
+    private Path bucket(String id) {
+        return dir.resolve(String.format("%02x", Math.floorMod(id.hashCode(), BUCKETS)));
+    }
+
+    private static Map<String, List<String>> read(Path bucket) throws IOException {
+        var entries = new LinkedHashMap<String, List<String>>();
+        if (Files.exists(bucket)) {
+            for (var line : Files.readAllLines(bucket, StandardCharsets.UTF_8)) {
+                var separator = line.indexOf('\t');
+                var hashes = new ArrayList<>(Arrays.asList(line.substring(0, separator).split(",")));
+                entries.put(line.substring(separator + 1), hashes);
+            }
+        }
+        return entries;
+    }
+
+    private static void write(Path file, List<String> lines) throws IOException {
+        var tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(Path bucket, Map<String, List<String>> entries) throws IOException {
+        var lines = new ArrayList<String>();
+        for (var entry : entries.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                lines.add(String.join(",", entry.getValue()) + "\t" + entry.getKey());
+            }
+        }
+        write(bucket, lines);
+    }
+
+    private Map<String, List<String>> entries(Map<Path, Map<String, List<String>>> buckets, Issue issue) throws IOException {
+        var bucket = bucket(issue.id());
+        if (!buckets.containsKey(bucket)) {
+            buckets.put(bucket, read(bucket));
+        }
+        return buckets.get(bucket);
+    }
+
+    private static List<Hash> readTips(Path file) throws IOException {
+        return Files.readAllLines(file).stream()
+                    .map(Hash::new)
+                    .collect(Collectors.toList());
+    }
+
+    /**
+     * Brings the index up to date with the current tips of the repository. Applying the
+     * same changes twice has no effect, so if an update is interrupted before the new tips
+     * have been recorded, the next update simply redoes it.
+     */
+    void update() throws IOException {
+        Files.createDirectories(dir);
+        // The file lock keeps out other processes, but overlapping file locks within the
+        // same process are not allowed
+        synchronized (locks.computeIfAbsent(dir.toAbsolutePath(), d -> new Object())) {
+            try (var channel = FileChannel.open(dir.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                var lock = channel.lock();
+                try {
+                    updateLocked();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private void updateLocked() throws IOException {
+        var tipsFile = dir.resolve("tips");
+        var tips = repo.tips().stream()
+                       .sorted(Comparator.comparing(Hash::hex))
+                       .collect(Collectors.toList());
+        var indexed = Files.exists(tipsFile) ? readTips(tipsFile) : null;
+        if (tips.equals(indexed)) {
+            return;
+        }
+
+        List<CommitMetadata> added;
+        List<CommitMetadata> removed;
+        if (indexed == null) {
+            added = repo.commitMetadata(tips, List.of());
+            removed = List.of();
+        } else {
+            try {
+                added = repo.commitMetadata(tips, indexed);
+                removed = repo.commitMetadata(indexed, tips);
+            } catch (IOException e) {
+                // Some of the previously indexed tips are gone, start over
+                clear();
+                added = repo.commitMetadata(tips, List.of());
+                removed = List.of();
+            }
+        }
+
+        var buckets = new HashMap<Path, Map<String, List<String>>>();
+        for (var metadata : removed) {
+            for (var line : metadata.message()) {
+                var issue = Issue.fromString(line);
+                if (issue.isPresent()) {
+                    var entries = entries(buckets, issue.get());
+                    var hashes = entries.get(key(issue.get()));
+                    if (hashes != null) {
+                        hashes.remove(metadata.hash().hex());
+                    }
+                }
+            }
+        }
+        for (var metadata : added) {
+            for (var line : metadata.message()) {
+                var issue = Issue.fromString(line);
+                if (issue.isPresent()) {
+                    var entries = entries(buckets, issue.get());
+                    var hashes = entries.computeIfAbsent(key(issue.get()), k -> new ArrayList<>());
+                    if (!hashes.contains(metadata.hash().hex())) {
+                        hashes.add(metadata.hash().hex());
+                    }
+                }
+            }
+        }
+
+        for (var bucket : buckets.entrySet()) {
+            write(bucket.getKey(), bucket.getValue());
+        }
+        write(tipsFile, tips.stream().map(Hash::hex).collect(Collectors.toList()));
+    }
+
+    private void clear() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (var file : files.collect(Collectors.toList())) {
+                if (!file.getFileName().toString().equals("lock")) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the commits referencing the given issue, oldest first.
+     */
+    List<Hash> lookup(Issue issue) throws IOException {
+        var hashes = read(bucket(issue.id())).get(key(issue));
+        if (hashes == null) {
+            return List.of();
+        }
+        return hashes.stream()
+                     .map(Hash::new)
+                     .collect(Collectors.toList());
+    }
+}
@@ -25,12 +25,14 @@ package org.openjdk.skara.jcheck;
 import org.openjdk.skara.census.Census;
 import org.openjdk.skara.jcheck.iterators.*;
 import org.openjdk.skara.vcs.*;
+import org.openjdk.skara.vcs.openjdk.CommitMessage;
 import org.openjdk.skara.vcs.openjdk.CommitMessageParser;
 import org.openjdk.skara.vcs.openjdk.CommitMessageParsers;
 
 import java.io.*;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.Pattern;
 import java.util.stream.*;
 import java.util.logging.Logger;
@@ -40,17 +42,22 @@ public class JCheck {
     private final Census census;
     private final CommitMessageParser parser;
     private final String revisionRange;
+    private final DiffDetail detail;
     private final Map<String, Set<Hash>> whitelist;
     private final List<CommitCheck> commitChecks;
     private final List<RepositoryCheck> repositoryChecks;
     private final Logger log = Logger.getLogger("org.openjdk.skara.jcheck");
 
+    private final ResultCache resultCache;
+
     private JCheckConfiguration cachedConfiguration = null;
+    private String cachedConfigurationDigest = null;
 
     JCheck(ReadOnlyRepository repository,
            Census census,
            CommitMessageParser parser,
            String revisionRange,
+           Optional<JCheckConfiguration> configuration,
            Pattern allowedBranches,
            Pattern allowedTags,
            Map<String, Set<Hash>> whitelist,
@@ -79,20 +86,26 @@ public class JCheck {
             new BranchesCheck(allowedBranches),
             new TagsCheck(allowedTags)
         );
+        detail = detailFor(configuration);
+        resultCache = ResultCache.of(repository, census).orElse(null);
     }
 
-    private static Optional<JCheckConfiguration> parseConfiguration(ReadOnlyRepository r, Hash h) {
+    private static List<String> configurationLines(ReadOnlyRepository r, Hash h) {
         try {
-            var content = r.lines(Paths.get(".jcheck/conf"), h).orElse(Collections.emptyList());
-            if (content.size() == 0) {
-                return Optional.empty();
-            }
-            return Optional.of(JCheckConfiguration.parse(content));
+            return r.lines(Paths.get(".jcheck/conf"), h).orElse(Collections.emptyList());
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    private static Optional<JCheckConfiguration> parseConfiguration(ReadOnlyRepository r, Hash h) {
+        var content = configurationLines(r, h);
+        if (content.size() == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(JCheckConfiguration.parse(content));
+    }
+
     private Optional<JCheckConfiguration> getConfigurationFor(Commit c) {
         var confPath = Paths.get(".jcheck/conf");
         var changesConfiguration = c.parentDiffs()
@@ -104,35 +117,227 @@ public class JCheck {
 
 
         if (changesConfiguration || cachedConfiguration == null) {
-            var confAtCommit = parseConfiguration(repository, c.hash());
-            confAtCommit.ifPresent(jCheckConfiguration -> cachedConfiguration = jCheckConfiguration);
-            return confAtCommit;
+            var content = configurationLines(repository, c.hash());
+            if (content.size() == 0) {
+                return Optional.empty();
+            }
+            cachedConfiguration = JCheckConfiguration.parse(content);
+            cachedConfigurationDigest = ResultCache.digest(content);
+            return Optional.of(cachedConfiguration);
         } else {
             return Optional.of(cachedConfiguration);
         }
     }
 
-    private Iterator<Issue> checkCommit(Commit commit) {
-        log.fine("Checking: " + commit.hash().hex());
-        var configuration = getConfigurationFor(commit);
-        if (!configuration.isPresent()) {
-            log.finer("No .jcheck/conf present for " + commit.hash().hex());
-            return Collections.emptyIterator();
-        }
-
-        var conf = configuration.get();
-        var message = parser.parse(commit);
-        var enabled = conf.checks().enabled(commitChecks);
-        var iterator = new MapIterator<CommitCheck, Iterator<Issue>>(enabled.iterator(), c -> {
+    private List<CommitCheck> checksToRun(Commit commit, JCheckConfiguration conf) {
+        var checks = new ArrayList<CommitCheck>();
+        for (var c : conf.checks().enabled(commitChecks)) {
             var skip = whitelist.get(c.name());
             if (skip != null && skip.contains(commit.hash())) {
                 log.finer("Commit check '" + c.name() + "' is whitelisted for " + commit.hash().hex());
-                return Collections.emptyIterator();
+                continue;
             }
-            log.finer("Running commit check '" + c.name() + "' for " + commit.hash().hex());
-            return c.check(commit, message, conf);
-        });
-        return new FlatMapIterator<Issue>(iterator);
+            checks.add(c);
+        }
+        return checks;
+    }
+
+    private static boolean needsHunks(CommitCheck check, Patch patch, JCheckConfiguration conf) {
+        return patch.source().path().isPresent() && check.needsHunks(patch.source().path().get(), conf) ||
+               patch.target().path().isPresent() && check.needsHunks(patch.target().path().get(), conf);
+    }
+
+    /**
+     * Returns the commit with as much detail as the given checks need. Commits are loaded
+     * with the detail the configuration at the start needs, so this only has to load the
+     * commit again if it changes a file that a check wants the hunks for, or if the
+     * configuration has been changed to enable more checks.
+     */
+    private Commit withDetailFor(Commit commit, List<CommitCheck> checks, JCheckConfiguration conf) {
+        var needed = DiffDetail.NONE;
+        for (var check : checks) {
+            if (!needed.includes(check.diffDetail())) {
+                needed = check.diffDetail();
+            }
+            if (!needed.includes(DiffDetail.TEXT)) {
+                var changesFiles = commit.parentDiffs()
+                                         .stream()
+                                         .flatMap(d -> d.patches().stream())
+                                         .anyMatch(p -> needsHunks(check, p, conf));
+                if (changesFiles) {
+                    needed = DiffDetail.TEXT;
+                }
+            }
+        }
+        if (detail.includes(needed)) {
+            return commit;
+        }
+
+        log.finer("Loading " + commit.hash().hex() + " again with " + needed + " detail");
+        try {
+            return repository.lookup(commit.hash(), needed).orElseThrow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private DiffDetail detailFor(Optional<JCheckConfiguration> configuration) {
+        // The status is always needed to find changes to .jcheck/conf
+        var needed = DiffDetail.STATUS;
+        if (configuration.isPresent()) {
+            for (var check : configuration.get().checks().enabled(commitChecks)) {
+                if (!needed.includes(check.diffDetail())) {
+                    needed = check.diffDetail();
+                }
+            }
+        }
+        return needed;
+    }
+
+    private static List<Issue> runCheck(CommitCheck check, Commit commit, CommitMessage message, JCheckConfiguration conf) {
+        var issues = new ArrayList<Issue>();
+        var iterator = check.check(commit, message, conf);
+        while (iterator.hasNext()) {
+            issues.add(iterator.next());
+        }
+        return issues;
+    }
+
+    /**
+     * A commit whose thread safe checks have been handed to the pool. The results of each
+     * check are kept in a separate slot, so that they can be combined in the same order as
+     * the checks are run in sequentially.
+     */
+    private static class PendingCommit {
+        private final Commit commit;
+        private final CommitMessage message;
+        private final JCheckConfiguration conf;
+        private final List<CommitCheck> checks;
+        private final List<String> keys;
+        private final List<String> passed = new ArrayList<>();
+        private final ForkJoinTask<List<List<Issue>>> task;
+
+        PendingCommit(Commit commit, CommitMessage message, JCheckConfiguration conf, List<CommitCheck> checks, List<String> keys) {
+            this.commit = commit;
+            this.message = message;
+            this.conf = conf;
+            this.checks = checks;
+            this.keys = keys;
+            this.task = ForkJoinPool.commonPool().submit(() -> {
+                var results = new ArrayList<List<Issue>>();
+                for (var check : checks) {
+                    results.add(check.isThreadSafe() ? runCheck(check, commit, message, conf) : null);
+                }
+                return results;
+            });
+        }
+
+        List<Issue> issues() {
+            var results = task.join();
+            var issues = new ArrayList<Issue>();
+            for (var i = 0; i < checks.size(); i++) {
+                var result = results.get(i);
+                if (result == null) {
+                    result = runCheck(checks.get(i), commit, message, conf);
+                }
+                if (result.isEmpty() && keys.get(i) != null) {
+                    passed.add(keys.get(i));
+                }
+                issues.addAll(result);
+            }
+            return issues;
+        }
+
+        /**
+         * The result cache keys of the checks that have passed, available once the issues
+         * have been requested.
+         */
+        List<String> passed() {
+            return passed;
+        }
+    }
+
+    /**
+     * Reads commits and their configurations on the calling thread, while the commit checks
+     * for up to a few commits per worker thread run concurrently. Issues are returned in
+     * commit order regardless of which commit finishes first. Checks that are not thread
+     * safe are run on the calling thread when the issues for a commit are requested.
+     */
+    private class CommitIssuesIterator implements Iterator<Issue> {
+        private final Iterator<Commit> commits;
+        private final Deque<PendingCommit> pending = new ArrayDeque<>();
+        private final int maxPending = ForkJoinPool.getCommonPoolParallelism() * 4;
+        private Iterator<Issue> current = Collections.emptyIterator();
+
+        CommitIssuesIterator(Iterator<Commit> commits) {
+            this.commits = commits;
+        }
+
+        private void fill() {
+            while (pending.size() < maxPending && commits.hasNext()) {
+                var commit = commits.next();
+                log.fine("Checking: " + commit.hash().hex());
+                var configuration = getConfigurationFor(commit);
+                if (!configuration.isPresent()) {
+                    log.finer("No .jcheck/conf present for " + commit.hash().hex());
+                    continue;
+                }
+
+                var conf = configuration.get();
+                var checks = new ArrayList<CommitCheck>();
+                var keys = new ArrayList<String>();
+                for (var check : checksToRun(commit, conf)) {
+                    var key = resultCache == null ? null :
+                              resultCache.key(commit.hash(), check, cachedConfigurationDigest).orElse(null);
+                    if (key != null && resultCache.hasPassed(key)) {
+                        log.finer("Commit check '" + check.name() + "' has already passed for " + commit.hash().hex());
+                        continue;
+                    }
+                    checks.add(check);
+                    keys.add(key);
+                }
+                if (checks.isEmpty()) {
+                    continue;
+                }
+
+                commit = withDetailFor(commit, checks, conf);
+                var message = parser.parse(commit);
+                pending.addLast(new PendingCommit(commit, message, conf, checks, keys));
+            }
+        }
+
+        private void record(List<String> passed) {
+            if (resultCache == null || passed.isEmpty()) {
+                return;
+            }
+            try {
+                resultCache.passed(passed);
+            } catch (IOException e) {
+                log.warning("Failed to record passed checks: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                fill();
+                if (pending.isEmpty()) {
+                    return false;
+                }
+                var next = pending.removeFirst();
+                current = next.issues().iterator();
+                record(next.passed());
+            }
+            return true;
+        }
+
+        @Override
+        public Issue next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
     }
 
     private Set<CommitCheck> checksForCommit(Commit c) {
@@ -146,7 +351,7 @@ public class JCheck {
     }
 
     private Set<Check> checksForCommits() throws IOException {
-        try (var commits = repository.commits(revisionRange)) {
+        try (var commits = repository.commits(revisionRange, detail)) {
             return commits.stream()
                     .flatMap(commit -> checksForCommit(commit).stream())
                     .collect(Collectors.toSet());
@@ -189,8 +394,7 @@ public class JCheck {
     }
 
     private Iterator<Issue> commitIssues(Commits commits) {
-        return new FlatMapIterator<Issue>(
-                new MapIterator<Commit, Iterator<Issue>>(commits.iterator(), this::checkCommit));
+        return new CommitIssuesIterator(commits.iterator());
     }
 
     private Iterator<Issue> repositoryIssues() {
@@ -202,7 +406,7 @@ public class JCheck {
     }
 
     private Issues issues() throws IOException {
-        var commits = repository.commits(revisionRange);
+        var commits = repository.commits(revisionRange, detail);
 
         var repositoryIssues = repositoryIssues();
         var commitIssues = commitIssues(commits);
@@ -217,6 +421,7 @@ public class JCheck {
                                 String branchRegex,
                                 String tagRegex,
                                 String revisionRange,
+                                Optional<JCheckConfiguration> configuration,
                                 Map<String, Set<Hash>> whitelist,
                                 Set<Hash> blacklist) throws IOException {
 
@@ -227,7 +432,7 @@ public class JCheck {
         var defaultTagRegex = defaultTag.isPresent() ? "|" + defaultTag.get().name() : "";
         var allowedTags = Pattern.compile("^(?:" + tagRegex + defaultTagRegex + ")$");
 
-        var jcheck = new JCheck(repository, census, parser, revisionRange, allowedBranches, allowedTags, whitelist, blacklist);
+        var jcheck = new JCheck(repository, census, parser, revisionRange, configuration, allowedBranches, allowedTags, whitelist, blacklist);
         return jcheck.issues();
     }
 
@@ -247,7 +452,7 @@ public class JCheck {
         var branchRegex = conf.isPresent() ?  conf.get().repository().branches() : ".*";
         var tagRegex =  conf.isPresent() ?  conf.get().repository().tags() : ".*";
 
-        return check(repository, census, parser, branchRegex, tagRegex, revisionRange, whitelist, blacklist);
+        return check(repository, census, parser, branchRegex, tagRegex, revisionRange, conf, whitelist, blacklist);
     }
 
     public static Issues check(ReadOnlyRepository repository,
@@ -277,6 +482,7 @@ public class JCheck {
                                 census,
                                 CommitMessageParsers.v1,
                                 hash.hex() + "^.." + hash.hex(),
+                                Optional.empty(),
                                 Pattern.compile(".*"),
                                 Pattern.compile(".*"),
                                 new HashMap<String, Set<Hash>>(),
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.jcheck;
+
+import org.openjdk.skara.census.Census;
+import org.openjdk.skara.vcs.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A record of the commit checks that commits have passed, stored on disk next to the
+ * repository metadata. A result is only valid for the configuration it was produced with,
+ * and for checks that look up contributors, also for the same version of the census.
+ * Only passing results are recorded, a commit with issues is checked again every time so
+ * that its issues can be reported.
+ *
+ * The results for a commit are stored in a file of their own, in a bucket directory named
+ * by the first byte of the commit hash, so that looking up a commit only reads its own
+ * results. A commit file is only ever appended to, unless it has collected too many stale
+ * results. When a bucket holds too many commits, the commits that were recorded first are
+ * removed.
+ */
+class ResultCache {
+    // Bump this whenever a change to a check can turn a pass into a failure
+    private static final String FORMAT = "2";
+
+    private static final int MAX_COMMITS_PER_BUCKET = 1024;
+    private static final int MAX_RESULTS_PER_COMMIT = 64;
+
+    private final Path dir;
+    private final String censusVersion;
+    private final Map<String, Set<String>> commits = new ConcurrentHashMap<>();
+    private boolean cleaned = false;
+
+    private ResultCache(Path dir, Census census) {
+        this.dir = dir;
+        var version = census == null ? null : census.version();
+        this.censusVersion = version == null ? null :
+                             version.format() + "-" + version.timestamp().toEpochMilli();
+    }
+
+    /**
+     * Returns the cache for the given repository, if the repository has a metadata
+     * directory where the cache can be stored.
+     */
+    static Optional<ResultCache> of(ReadOnlyRepository repo, Census census) throws IOException {
+        return Utilities.metadataDirectory(repo)
+                        .map(dir -> new ResultCache(dir.resolve("jcheck-results").resolve(FORMAT), census));
+    }
+
+    static String digest(List<String> configuration) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            for (var line : configuration) {
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Cannot find SHA-256");
+        }
+    }
+
+    /**
+     * Returns the key under which the result of the check for the given commit is stored,
+     * or an empty optional if the result of the check can't be cached.
+     */
+    Optional<String> key(Hash commit, CommitCheck check, String configurationDigest) {
+        if (!check.isCacheable()) {
+            return Optional.empty();
+        }
+        var key = commit.hex() + " " + check.name() + " " + configurationDigest;
+        if (check.usesCensus()) {
+            if (censusVersion == null) {
+                return Optional.empty();
+            }
+            key += " " + censusVersion;
+        }
+        return Optional.of(key);
+    }
+
+    private static String commit(String key) {
+        return key.substring(0, key.indexOf(' '));
+    }
+
+    private Path file(String commit) {
+        return dir.resolve(commit.substring(0, 2)).resolve(commit.substring(2));
+    }
+
+    private Set<String> results(String commit) {
+        return commits.computeIfAbsent(commit, c -> {
+            var results = ConcurrentHashMap.<String>newKeySet();
+            var file = file(c);
+            try {
+                if (Files.exists(file)) {
+                    for (var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                        results.add(c + " " + line);
+                    }
+                }
+            } catch (IOException e) {
+                // Nothing is known to have passed then
+            }
+            return results;
+        });
+    }
+
+    boolean hasPassed(String key) {
+        return results(commit(key)).contains(key);
+    }
+
+    /**
+     * Removes the directories of other cache formats, they will never be read again.
+     */
+    private void removeOtherFormats() throws IOException {
+        var parent = dir.getParent();
+        try (var formats = Files.newDirectoryStream(parent)) {
+            for (var format : formats) {
+                if (!format.equals(dir)) {
+                    delete(format);
+                }
+            }
+        }
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (var children = Files.newDirectoryStream(path)) {
+                for (var child : children) {
+                    delete(child);
+                }
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Removes the commits that were recorded first from the bucket, if it holds too many.
+     */
+    private static void prune(Path bucket) throws IOException {
+        var files = new ArrayList<Path>();
+        try (var stream = Files.newDirectoryStream(bucket)) {
+            stream.forEach(files::add);
+        }
+        if (files.size() <= MAX_COMMITS_PER_BUCKET) {
+            return;
+        }
+        var modified = new HashMap<Path, FileTime>();
+        for (var file : files) {
+            try {
+                modified.put(file, Files.getLastModifiedTime(file));
+            } catch (IOException e) {
+                // Removed concurrently
+                modified.put(file, FileTime.fromMillis(0));
+            }
+        }
+        files.sort(Comparator.comparing(modified::get));
+        // Leave some room, so that not every new commit leads to pruning
+        var excess = files.size() - MAX_COMMITS_PER_BUCKET * 3 / 4;
+        for (var file : files.subList(0, excess)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Records that the checks with the given keys have passed. The results for a commit are
+     * written with a single append, so concurrent writers can at worst record the same result
+     * twice.
+     */
+    void passed(List<String> keys) throws IOException {
+        if (!cleaned) {
+            Files.createDirectories(dir);
+            removeOtherFormats();
+            cleaned = true;
+        }
+
+        var added = new LinkedHashMap<String, List<String>>();
+        for (var key : keys) {
+            var commit = commit(key);
+            if (results(commit).add(key)) {
+                added.computeIfAbsent(commit, c -> new ArrayList<>()).add(key.substring(commit.length() + 1));
+            }
+        }
+
+        for (var entry : added.entrySet()) {
+            var file = file(entry.getKey());
+            var results = results(entry.getKey());
+            if (results.size() > MAX_RESULTS_PER_COMMIT) {
+                // Mostly results for earlier configurations and censuses, start over
+                results.clear();
+                Files.deleteIfExists(file);
+                for (var result : entry.getValue()) {
+                    results.add(entry.getKey() + " " + result);
+                }
+            }
+
+            var content = new StringBuilder();
+            for (var result : entry.getValue()) {
+                content.append(result).append('\n');
+            }
+            Files.createDirectories(file.getParent());
+            var isNew = Files.notExists(file);
+            try (var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                      StandardOpenOption.WRITE,
+                                                      StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8)));
+            }
+            if (isNew) {
+                prune(file.getParent());
+            }
+        }
+    }
+}
@@ -25,8 +25,10 @@ package org.openjdk.skara.jcheck;
 import org.openjdk.skara.census.Census;
 import org.openjdk.skara.census.Project;
 import org.openjdk.skara.vcs.Commit;
+import org.openjdk.skara.vcs.DiffDetail;
 import org.openjdk.skara.vcs.openjdk.CommitMessage;
 
+import java.nio.file.Path;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.stream.Collectors;
@@ -108,6 +110,21 @@ public class ReviewersCheck extends CommitCheck {
         return iterator();
     }
 
+    @Override
+    DiffDetail diffDetail() {
+        return DiffDetail.STATUS;
+    }
+
+    @Override
+    boolean needsHunks(Path path, JCheckConfiguration conf) {
+        return utils.isHgTags(path);
+    }
+
+    @Override
+    boolean usesCensus() {
+        return true;
+    }
+
     @Override
     public String name() {
         return "reviewers";
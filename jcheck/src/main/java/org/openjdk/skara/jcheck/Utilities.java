@@ -24,12 +24,46 @@ package org.openjdk.skara.jcheck;
 
 import org.openjdk.skara.vcs.Commit;
 import org.openjdk.skara.vcs.Hash;
+import org.openjdk.skara.vcs.ReadOnlyRepository;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 class Utilities {
-    private final Set<Hash> addsHgTagCache = new HashSet<>();
+    private final Set<Hash> addsHgTagCache = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Returns the directory where the version control system keeps its own data for the
+     * repository, if there is one. Data that jcheck wants to keep between runs is stored
+     * here.
+     */
+    static Optional<Path> metadataDirectory(ReadOnlyRepository repo) throws IOException {
+        var root = repo.root();
+        if (root == null) {
+            return Optional.empty();
+        }
+        for (var name : List.of(".git", ".hg")) {
+            var metadata = root.resolve(name);
+            if (Files.isDirectory(metadata)) {
+                return Optional.of(metadata);
+            }
+        }
+        if (Files.isRegularFile(root.resolve("HEAD")) && Files.isDirectory(root.resolve("objects"))) {
+            // A bare git repository
+            return Optional.of(root);
+        }
+        return Optional.empty();
+    }
+
+    boolean isHgTags(Path path) {
+        return path.endsWith(".hgtags") || path.endsWith(".hgtags-top-repo");
+    }
 
     boolean addsHgTag(Commit commit) {
         if (addsHgTagCache.contains(commit.hash())) {
@@ -40,8 +74,7 @@ class Utilities {
                 if (!patch.target().path().isPresent() || patch.isBinary()) {
                     continue;
                 }
-                if (patch.target().path().get().endsWith(".hgtags") ||
-                    patch.target().path().get().endsWith(".hgtags-top-repo")) {
+                if (isHgTags(patch.target().path().get())) {
                     for (var hunk : patch.asTextualPatch().hunks()) {
                         var removed = new HashSet<String>(hunk.source().lines());
                         var added = new HashSet<String>(hunk.target().lines());
@@ -23,23 +23,44 @@
 package org.openjdk.skara.jcheck;
 
 import org.openjdk.skara.vcs.Commit;
+import org.openjdk.skara.vcs.DiffDetail;
 import org.openjdk.skara.vcs.openjdk.CommitMessage;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import java.util.logging.Logger;
 
 public class WhitespaceCheck extends CommitCheck {
     private final Logger log = Logger.getLogger("org.openjdk.skara.jcheck.whitespace");
 
+    /**
+     * Looks for tabs, carriage returns and a trailing space in a single pass over the
+     * line, so that lines without bad whitespace are only read once.
+     */
+    static boolean hasBadWhitespace(String line) {
+        var length = line.length();
+        if (length == 0) {
+            return false;
+        }
+        if (line.charAt(length - 1) == ' ') {
+            return true;
+        }
+        for (var i = 0; i < length; i++) {
+            var c = line.charAt(i);
+            if (c == '\t' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     Iterator<Issue> check(Commit commit, CommitMessage message, JCheckConfiguration conf) {
         var metadata = CommitIssue.metadata(commit, message, conf, this);
         var issues = new ArrayList<Issue>();
-        var pattern = Pattern.compile(conf.checks().whitespace().files());
+        var pattern = conf.checks().whitespace().filesPattern();
 
         for (var diff : commit.parentDiffs()) {
             for (var patch : diff.patches()) {
@@ -52,10 +73,8 @@ public class WhitespaceCheck extends CommitCheck {
                         var lines = hunk.target().lines();
                         for (var i = 0; i < lines.size(); i++) {
                             var line = lines.get(i);
-                            var row = hunk.target().range().start() + i;
-                            var tabIndex = line.indexOf('\t');
-                            var crIndex = line.indexOf('\r');
-                            if (tabIndex >= 0 || crIndex >= 0 || line.endsWith(" ")) {
+                            if (hasBadWhitespace(line)) {
+                                var row = hunk.target().range().start() + i;
                                 var errors = new ArrayList<WhitespaceIssue.Error>();
                                 var trailing = true;
                                 for (var index = line.length() - 1; index >= 0; index--) {
@@ -82,6 +101,16 @@ public class WhitespaceCheck extends CommitCheck {
         return issues.iterator();
     }
 
+    @Override
+    DiffDetail diffDetail() {
+        return DiffDetail.STATUS;
+    }
+
+    @Override
+    boolean needsHunks(Path path, JCheckConfiguration conf) {
+        return conf.checks().whitespace().filesPattern().matcher(path.toString()).matches();
+    }
+
     @Override
     public String name() {
         return "whitespace";
@@ -26,6 +26,7 @@ import org.openjdk.skara.ini.Section;
 
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class WhitespaceConfiguration {
@@ -33,15 +34,21 @@ public class WhitespaceConfiguration {
         new WhitespaceConfiguration(".*\\.cpp|.*\\.hpp|.*\\.c|.*\\.h|.*\\.java");
 
     private final String files;
+    private final Pattern filesPattern;
 
     WhitespaceConfiguration(String files) {
         this.files = files;
+        this.filesPattern = Pattern.compile(files);
     }
 
     public String files() {
         return files;
     }
 
+    Pattern filesPattern() {
+        return filesPattern;
+    }
+
     static String name() {
         return "whitespace";
     }
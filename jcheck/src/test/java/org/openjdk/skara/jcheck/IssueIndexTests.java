@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.jcheck;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.openjdk.skara.test.TemporaryDirectory;
+import org.openjdk.skara.vcs.*;
+import org.openjdk.skara.vcs.openjdk.Issue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IssueIndexTests {
+    private static Hash commit(Repository repo, String content, String message) throws IOException {
+        var file = repo.root().resolve("file.txt");
+        Files.writeString(file, content);
+        repo.add(file);
+        return repo.commit(message, "duke", "duke@openjdk.java.net");
+    }
+
+    @ParameterizedTest
+    @EnumSource(VCS.class)
+    void indexIsUpdatedIncrementally(VCS vcs) throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var repo = Repository.init(dir.path(), vcs);
+            var first = commit(repo, "1", "1234567: An issue");
+            var issue = new Issue("1234567", "An issue");
+
+            var index = IssueIndex.of(repo).orElseThrow();
+            index.update();
+            assertEquals(List.of(first), index.lookup(issue));
+            assertEquals(List.of(), index.lookup(new Issue("1234567", "Another description")));
+            assertEquals(List.of(), index.lookup(new Issue("7654321", "An issue")));
+
+            var second = commit(repo, "2", "1234567: An issue\n7654321: Another issue");
+            index.update();
+            assertEquals(List.of(first, second), index.lookup(issue));
+            assertEquals(List.of(second), index.lookup(new Issue("7654321", "Another issue")));
+
+            // A new index instance uses the stored state
+            assertEquals(List.of(first, second), IssueIndex.of(repo).orElseThrow().lookup(issue));
+
+            if (vcs == VCS.GIT) {
+                // Commits that are no longer reachable are dropped
+                repo.reset(first, true);
+                index.update();
+                assertEquals(List.of(first), index.lookup(issue));
+                assertEquals(List.of(), index.lookup(new Issue("7654321", "Another issue")));
+            }
+        }
+    }
+}
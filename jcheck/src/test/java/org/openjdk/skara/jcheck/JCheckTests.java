@@ -293,4 +293,106 @@ class JCheckTests {
             assertEquals(Set.of("org.openjdk.skara.jcheck.TooFewReviewersIssue"), visitor.issueNames());
         }
     }
+
+    @ParameterizedTest
+    @EnumSource(VCS.class)
+    void issuesAreInCommitOrder(VCS vcs) throws Exception {
+        try (var dir = new TemporaryDirectory()) {
+            var repoPath = dir.path().resolve("repo");
+            var repo = CheckableRepository.create(repoPath, vcs);
+            var initial = repo.head();
+
+            var file = repoPath.resolve("file.java");
+            var expected = new ArrayList<Hash>();
+            for (var i = 0; i < 50; i++) {
+                Files.write(file, List.of("Line " + i + " "));
+                repo.add(file);
+                expected.add(repo.commit("Change " + i, "duke", "duke@openjdk.java.net"));
+            }
+
+            var censusPath = dir.path().resolve("census");
+            Files.createDirectories(censusPath);
+            CensusCreator.populateCensusDirectory(censusPath);
+            var census = Census.parse(censusPath);
+
+            var reviewers = new ArrayList<Hash>();
+            var whitespace = new ArrayList<Hash>();
+            try (var issues = JCheck.check(repo, census, CommitMessageParsers.v1, initial.hex() + ".." + repo.head().hex())) {
+                for (var issue : issues) {
+                    var commitIssue = (CommitIssue) issue;
+                    if (issue instanceof WhitespaceIssue) {
+                        whitespace.add(commitIssue.commit().hash());
+                    } else if (issue instanceof TooFewReviewersIssue) {
+                        // Issues for the same commit are in check order
+                        assertEquals(whitespace.get(whitespace.size() - 1), commitIssue.commit().hash());
+                        reviewers.add(commitIssue.commit().hash());
+                    }
+                }
+            }
+
+            // Commits are listed newest first
+            Collections.reverse(expected);
+            assertEquals(expected, reviewers);
+            assertEquals(expected, whitespace);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(VCS.class)
+    void commitsAreLoadedWithTheDetailTheirChecksNeed(VCS vcs) throws Exception {
+        try (var dir = new TemporaryDirectory()) {
+            var repoPath = dir.path().resolve("repo");
+            var repo = CheckableRepository.create(repoPath, vcs);
+            var initial = repo.head();
+
+            var file = repoPath.resolve("file.java");
+            Files.write(file, List.of("Trailing "));
+            repo.add(file);
+            var trailing = repo.commit("Trailing whitespace", "duke", "duke@openjdk.java.net");
+
+            var conf = repoPath.resolve(".jcheck/conf");
+            var lines = Files.readAllLines(conf).stream()
+                             .map(line -> line.equals("error=reviewers,whitespace") ? "error=reviewers" : line)
+                             .collect(Collectors.toList());
+            Files.write(conf, lines);
+            repo.add(conf);
+            var disable = repo.commit("Disable whitespace", "duke", "duke@openjdk.java.net");
+
+            // Recognizing a tag commit requires the hunks for .hgtags
+            var hgtags = repoPath.resolve(".hgtags");
+            Files.write(hgtags, List.of(initial.hex() + " jdk-1+1"));
+            repo.add(hgtags);
+            repo.commit("Added tag jdk-1+1 for changeset " + initial.abbreviate(), "duke", "duke@openjdk.java.net");
+
+            Files.write(file, List.of("Trailing again "));
+            repo.add(file);
+            var last = repo.commit("Trailing whitespace again", "duke", "duke@openjdk.java.net");
+
+            var censusPath = dir.path().resolve("census");
+            Files.createDirectories(censusPath);
+            CensusCreator.populateCensusDirectory(censusPath);
+            var census = Census.parse(censusPath);
+
+            var reviewers = new ArrayList<Hash>();
+            try (var issues = JCheck.check(repo, census, CommitMessageParsers.v1, initial.hex() + ".." + repo.head().hex())) {
+                for (var issue : issues) {
+                    if (issue instanceof TooFewReviewersIssue) {
+                        reviewers.add(((CommitIssue) issue).commit().hash());
+                    }
+                }
+            }
+            assertEquals(List.of(last, disable, trailing), reviewers);
+
+            // The configuration on the default branch no longer enables whitespace
+            var whitespace = new ArrayList<Hash>();
+            try (var issues = JCheck.check(repo, census, CommitMessageParsers.v1, initial.hex() + ".." + trailing.hex())) {
+                for (var issue : issues) {
+                    if (issue instanceof WhitespaceIssue) {
+                        whitespace.add(((CommitIssue) issue).commit().hash());
+                    }
+                }
+            }
+            assertEquals(List.of(trailing), whitespace);
+        }
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.jcheck;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.openjdk.skara.census.Census;
+import org.openjdk.skara.test.TemporaryDirectory;
+import org.openjdk.skara.vcs.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTests {
+    private static Census census(Path dir, String timestamp) throws IOException {
+        Files.createDirectories(dir);
+        JCheckTests.CensusCreator.populateCensusDirectory(dir);
+        Files.writeString(dir.resolve("version.xml"),
+                          "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n" +
+                          "<version format=\"1\" timestamp=\"" + timestamp + "\" />\n");
+        return Census.parse(dir);
+    }
+
+    @ParameterizedTest
+    @EnumSource(VCS.class)
+    void passedChecksAreRemembered(VCS vcs) throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var repo = JCheckTests.CheckableRepository.create(dir.path().resolve("repo"), vcs);
+            var hash = repo.head();
+            var census = census(dir.path().resolve("census"), "2019-01-01T00:00:00Z");
+            var author = new AuthorCheck();
+            var reviewers = new ReviewersCheck(census, new Utilities());
+            var conf = ResultCache.digest(List.of("[general]", "project=test"));
+
+            var cache = ResultCache.of(repo, census).orElseThrow();
+            var authorKey = cache.key(hash, author, conf).orElseThrow();
+            var reviewersKey = cache.key(hash, reviewers, conf).orElseThrow();
+            assertFalse(cache.hasPassed(authorKey));
+            cache.passed(List.of(authorKey, reviewersKey));
+            assertTrue(cache.hasPassed(authorKey));
+            assertTrue(cache.hasPassed(reviewersKey));
+
+            // The results are stored on disk
+            cache = ResultCache.of(repo, census).orElseThrow();
+            assertTrue(cache.hasPassed(cache.key(hash, author, conf).orElseThrow()));
+            assertTrue(cache.hasPassed(cache.key(hash, reviewers, conf).orElseThrow()));
+
+            // A different configuration invalidates all results
+            var otherConf = ResultCache.digest(List.of("[general]", "project=other"));
+            assertFalse(cache.hasPassed(cache.key(hash, author, otherConf).orElseThrow()));
+
+            // A new census only invalidates the results of checks that use it
+            var newCensus = census(dir.path().resolve("census"), "2019-01-02T00:00:00Z");
+            cache = ResultCache.of(repo, newCensus).orElseThrow();
+            assertTrue(cache.hasPassed(cache.key(hash, author, conf).orElseThrow()));
+            assertFalse(cache.hasPassed(cache.key(hash, reviewers, conf).orElseThrow()));
+
+            // Some checks depend on more than the commit
+            assertEquals(Optional.empty(), cache.key(hash, new DuplicateIssuesCheck(repo), conf));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(VCS.class)
+    void sizeIsLimited(VCS vcs) throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var repo = JCheckTests.CheckableRepository.create(dir.path().resolve("repo"), vcs);
+            var author = new AuthorCheck();
+            var cache = ResultCache.of(repo, null).orElseThrow();
+
+            // Commits that all end up in the same bucket
+            var hashes = new ArrayList<Hash>();
+            for (var i = 0; i < 1100; i++) {
+                hashes.add(new Hash(String.format("ab%038x", i)));
+            }
+            for (var hash : hashes) {
+                cache.passed(List.of(cache.key(hash, author, "conf").orElseThrow()));
+            }
+            var results = Files.walk(dir.path().resolve("repo"))
+                               .filter(p -> p.getFileName().toString().equals("jcheck-results"))
+                               .findAny().orElseThrow();
+            assertTrue(Files.list(results.resolve("2").resolve("ab")).count() <= 1024);
+
+            var last = hashes.get(hashes.size() - 1);
+            cache = ResultCache.of(repo, null).orElseThrow();
+            assertTrue(cache.hasPassed(cache.key(last, author, "conf").orElseThrow()));
+
+            // Results for configurations that are no longer used do not pile up
+            for (var i = 0; i < 100; i++) {
+                cache.passed(List.of(cache.key(last, author, "conf" + i).orElseThrow()));
+            }
+            var file = results.resolve("2").resolve("ab").resolve(last.hex().substring(2));
+            assertTrue(Files.readAllLines(file).size() <= 65);
+            cache = ResultCache.of(repo, null).orElseThrow();
+            assertTrue(cache.hasPassed(cache.key(last, author, "conf99").orElseThrow()));
+        }
+    }
+}
@@ -120,10 +120,23 @@ class TestRepository implements ReadOnlyRepository {
         return null;
     }
 
+    @Override
+    public Commits commits(String range, DiffDetail detail) throws IOException {
+        return null;
+    }
+
     public Optional<Commit> lookup(Hash h) throws IOException {
         return Optional.empty();
     }
 
+    public List<Path> changedPaths(Hash base, Hash head) throws IOException {
+        return null;
+    }
+
+    public Optional<Commit> lookup(Hash h, DiffDetail detail) throws IOException {
+        return Optional.empty();
+    }
+
     public Optional<Commit> lookup(Branch b) throws IOException {
         return Optional.empty();
     }
@@ -136,6 +149,14 @@ class TestRepository implements ReadOnlyRepository {
         return List.of();
     }
 
+    public List<CommitMetadata> commitMetadata(List<Hash> include, List<Hash> exclude) throws IOException {
+        return List.of();
+    }
+
+    public List<Hash> tips() throws IOException {
+        return List.of();
+    }
+
     public Path root() throws IOException {
         return null;
     }
@@ -157,6 +178,15 @@ class TestRepository implements ReadOnlyRepository {
         return true;
     }
 
+    @Override
+    public boolean isShallow() throws IOException {
+        return false;
+    }
+
+    public CommitGraph commitGraph() throws IOException {
+        return null;
+    }
+
     public Hash mergeBase(Hash first, Hash second) throws IOException {
         return null;
     }
@@ -166,4 +166,51 @@ class WhitespaceCheckTests {
         assertEquals(message, issue.message());
         assertEquals(Severity.ERROR, issue.severity());
     }
+
+    @Test
+    void whitespaceInsideLineShouldPass() {
+        for (var line : List.of("", "  Indented", "Spaces  between words", "Form feed\f", "Newline\n")) {
+            var commit = commit(parentDiffs("README.md", line));
+            var conf = configuration("README\\.md");
+            var check = new WhitespaceCheck();
+            var issues = toList(check.check(commit, message(commit), conf));
+
+            assertEquals(0, issues.size(), "Line: '" + line + "'");
+        }
+    }
+
+    @Test
+    void lineWithOnlySpaceShouldFail() {
+        var commit = commit(parentDiffs("README.md", " "));
+        var conf = configuration("README\\.md");
+        var issues = toList(new WhitespaceCheck().check(commit, message(commit), conf));
+
+        assertEquals(1, issues.size());
+        var issue = (WhitespaceIssue) issues.get(0);
+        assertEquals(List.of(new WhitespaceIssue.Error(0, WhitespaceIssue.Whitespace.TRAILING)), issue.errors());
+    }
+
+    @Test
+    void tabAndTrailingWhitespaceShouldFail() {
+        var line = "\tIndented with tab ";
+        var commit = commit(parentDiffs("README.md", line));
+        var conf = configuration("README\\.md");
+        var issues = toList(new WhitespaceCheck().check(commit, message(commit), conf));
+
+        assertEquals(1, issues.size());
+        var issue = (WhitespaceIssue) issues.get(0);
+        assertEquals(List.of(new WhitespaceIssue.Error(0, WhitespaceIssue.Whitespace.TAB),
+                             new WhitespaceIssue.Error(line.length() - 1, WhitespaceIssue.Whitespace.TRAILING)),
+                     issue.errors());
+    }
+
+    @Test
+    void onlyMatchingFilesNeedHunks() {
+        var conf = configuration("README\\.md");
+        var check = new WhitespaceCheck();
+
+        assertEquals(DiffDetail.STATUS, check.diffDetail());
+        assertTrue(check.needsHunks(Path.of("README.md"), conf));
+        assertFalse(check.needsHunks(Path.of("large.txt"), conf));
+    }
 }
@@ -22,11 +22,46 @@
  */
 package org.openjdk.skara.json;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
 public class JSON {
     public static JSONValue parse(String s) {
         return new JSONParser().parse(s);
     }
 
+    public static JSONValue parse(byte[] bytes) {
+        return new JSONReader(bytes).document();
+    }
+
+    public static JSONValue parse(ByteBuffer buffer) {
+        return new JSONReader(buffer).document();
+    }
+
+    public static JSONValue parse(InputStream stream) {
+        return new JSONReader(stream).document();
+    }
+
+    /**
+     * Parses the given bytes, but only decodes the values selected by the projection.
+     */
+    public static JSONValue parse(byte[] bytes, JSONProjection projection) {
+        return new JSONReader(bytes).document(projection);
+    }
+
+    public static JSONValue parse(InputStream stream, JSONProjection projection) {
+        return new JSONReader(stream).document(projection);
+    }
+
+    /**
+     * Parses the given bytes into a value where objects are only decoded when their fields
+     * are accessed. The returned value refers to {@code bytes}, which must not be modified
+     * afterwards.
+     */
+    public static JSONValue parseLazily(byte[] bytes) {
+        return JSONReader.lazy(bytes, 0, bytes.length).document();
+    }
+
     public static JSONValue of(int i) {
         return JSONValue.from(i);
     }
@@ -128,17 +128,7 @@ public class JSONArray implements JSONValue, Iterable<JSONValue> {
 
     @Override
     public String toString() {
-        var builder = new StringBuilder();
-
-        builder.append("[");
-        for (var i = 0; i < size(); i++) {
-            builder.append(get(i).toString());
-            if (i != (size() - 1)) {
-                builder.append(",");
-            }
-        }
-        builder.append("]");
-        return builder.toString();
+        return JSONWriter.toString(this);
     }
 
     @Override
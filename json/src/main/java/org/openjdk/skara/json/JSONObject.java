@@ -121,22 +121,6 @@ public class JSONObject implements JSONValue {
 
     @Override
     public String toString() {
-        var builder = new StringBuilder();
-        builder.append("{");
-        for (var key : value.keySet()) {
-            builder.append("\"");
-            builder.append(key);
-            builder.append("\":");
-            builder.append(value.get(key).toString());
-            builder.append(",");
-        }
-
-        var end = builder.length() - 1;
-        if (builder.charAt(end) == ',') {
-            builder.deleteCharAt(end);
-        }
-
-        builder.append("}");
-        return builder.toString();
+        return JSONWriter.toString(this);
     }
 }
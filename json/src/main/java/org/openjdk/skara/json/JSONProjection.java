@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.json;
+
+import java.util.*;
+
+/**
+ * A selection of the parts of a JSON document that are of interest. Paths are written as
+ * field names separated by dots, for example {@code "user.login"}; arrays are transparent,
+ * so {@code "assignees.login"} selects the login of every element of the assignees array.
+ * A path that ends at an object or array selects all of it.
+ *
+ * When reading, values that are not selected are skipped without being decoded.
+ */
+public class JSONProjection {
+    private final Map<String, JSONProjection> fields;
+
+    private JSONProjection(Map<String, JSONProjection> fields) {
+        this.fields = fields;
+    }
+
+    public static JSONProjection of(List<String> paths) {
+        var root = new JSONProjection(new HashMap<>());
+        for (var path : paths) {
+            var current = root;
+            var names = path.split("\\.");
+            for (var i = 0; current != null && i < names.length - 1; i++) {
+                if (current.fields.containsKey(names[i]) && current.fields.get(names[i]) == null) {
+                    // The whole value is already selected
+                    current = null;
+                } else {
+                    current = current.fields.computeIfAbsent(names[i], n -> new JSONProjection(new HashMap<>()));
+                }
+            }
+            if (current != null) {
+                current.fields.put(names[names.length - 1], null);
+            }
+        }
+        return root;
+    }
+
+    public static JSONProjection of(String... paths) {
+        return of(Arrays.asList(paths));
+    }
+
+    private boolean isComplete() {
+        return fields == null;
+    }
+
+    private static JSONProjection child(JSONProjection projection) {
+        return projection == null ? new JSONProjection(null) : projection;
+    }
+
+    /**
+     * Returns a copy of the given value that only contains the selected parts.
+     */
+    public JSONValue apply(JSONValue value) {
+        if (isComplete()) {
+            return value;
+        }
+        if (value instanceof JSONObject) {
+            var object = value.asObject();
+            var result = new JSONObject();
+            for (var field : fields.entrySet()) {
+                if (object.contains(field.getKey())) {
+                    result.put(field.getKey(), child(field.getValue()).apply(object.get(field.getKey())));
+                }
+            }
+            return result;
+        }
+        if (value instanceof JSONArray) {
+            var result = new JSONArray();
+            for (var element : value.asArray()) {
+                result.add(apply(element));
+            }
+            return result;
+        }
+        return value;
+    }
+
+    private JSONValue read(JSONReader reader, JSONReader.Token token) {
+        if (isComplete()) {
+            return reader.value(token);
+        }
+        switch (token) {
+            case START_OBJECT:
+                var object = new JSONObject();
+                while (reader.next() != JSONReader.Token.END_OBJECT) {
+                    var name = reader.string();
+                    if (fields.containsKey(name)) {
+                        object.put(name, child(fields.get(name)).read(reader, reader.next()));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                return object;
+            case START_ARRAY:
+                var array = new JSONArray();
+                for (var t = reader.next(); t != JSONReader.Token.END_ARRAY; t = reader.next()) {
+                    array.add(read(reader, t));
+                }
+                return array;
+            default:
+                return reader.value(token);
+        }
+    }
+
+    /**
+     * Reads the next complete value from the reader, decoding only the selected parts.
+     * Returns null if the end of the input has been reached.
+     */
+    public JSONValue read(JSONReader reader) {
+        return read(reader, reader.next());
+    }
+}
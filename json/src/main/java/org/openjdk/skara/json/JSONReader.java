@@ -0,0 +1,638 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.json;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A pull parser that reads UTF-8 encoded JSON directly from bytes, without decoding the
+ * input into a String first. The input is consumed one token at a time with
+ * {@link #next()}; complete values can be read with {@link #value()} and the elements of
+ * an array can be iterated over without materializing the array itself with
+ * {@link #elements()}.
+ *
+ * When reading from an {@link InputStream}, only the part of the input that is currently
+ * being parsed is kept in memory.
+ */
+public class JSONReader implements AutoCloseable {
+    public enum Token {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        FIELD_NAME,
+        STRING,
+        NUMBER,
+        DECIMAL,
+        TRUE,
+        FALSE,
+        NULL,
+        END
+    }
+
+    private static final int OBJECT = 1;
+    private static final int ARRAY = 2;
+
+    private final InputStream stream;
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private int mark = -1;
+    private long discarded = 0;
+
+    private int[] stack = new int[16];
+    private int depth = 0;
+    private boolean first = false;
+    private boolean afterName = false;
+    private boolean started = false;
+    private boolean skipping = false;
+    private boolean lazy = false;
+    private int valueStart = -1;
+
+    private Token token = null;
+    private String string = null;
+    private long longValue = 0;
+    private double doubleValue = 0;
+    private final StringBuilder chars = new StringBuilder();
+
+    public JSONReader(InputStream stream) {
+        this.stream = stream;
+        this.buf = new byte[8192];
+        this.pos = 0;
+        this.limit = 0;
+    }
+
+    public JSONReader(byte[] bytes, int offset, int length) {
+        this.stream = null;
+        this.buf = bytes;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    public JSONReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns a reader that decodes objects lazily, see {@link LazyJSONObject}. The
+     * objects keep a reference to {@code bytes}, which therefore must not be modified.
+     */
+    static JSONReader lazy(byte[] bytes, int offset, int length) {
+        var reader = new JSONReader(bytes, offset, length);
+        reader.lazy = true;
+        return reader;
+    }
+
+    public JSONReader(ByteBuffer buffer) {
+        this.stream = null;
+        if (buffer.hasArray()) {
+            this.buf = buffer.array();
+            this.pos = buffer.arrayOffset() + buffer.position();
+            this.limit = buffer.arrayOffset() + buffer.limit();
+        } else {
+            this.buf = new byte[buffer.remaining()];
+            buffer.duplicate().get(buf);
+            this.pos = 0;
+            this.limit = buf.length;
+        }
+    }
+
+    private IllegalStateException failure(String message) {
+        return new IllegalStateException(String.format("[%d]: %s", discarded + pos, message));
+    }
+
+    /**
+     * Reads more input into the buffer, keeping everything from the mark (or the current
+     * position, if there is no mark) onwards.
+     */
+    private boolean fill() {
+        if (stream == null) {
+            return false;
+        }
+        var keep = mark >= 0 ? mark : pos;
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            discarded += keep;
+            limit -= keep;
+            pos -= keep;
+            if (mark >= 0) {
+                mark = 0;
+            }
+        }
+        if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        try {
+            var n = stream.read(buf, limit, buf.length - limit);
+            if (n <= 0) {
+                return false;
+            }
+            limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int peekByte() {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buf[pos] & 0xff;
+    }
+
+    private int nextByte(String message) {
+        if (pos == limit && !fill()) {
+            throw failure(message);
+        }
+        return buf[pos++] & 0xff;
+    }
+
+    private int skipWhitespace() {
+        while (true) {
+            var c = peekByte();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            pos++;
+        }
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void push(int kind) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[depth++] = kind;
+        first = true;
+    }
+
+    private void literal(String expected) {
+        var message = "a literal can only be 'true', 'false' or 'null'";
+        for (var i = 0; i < expected.length(); i++) {
+            if (nextByte(message) != expected.charAt(i)) {
+                throw failure(message);
+            }
+        }
+    }
+
+    private char escape() {
+        var missingEndChar = "string is not terminated with '\"'";
+        var c = nextByte(missingEndChar);
+        switch (c) {
+            case '"':
+                return '"';
+            case '\\':
+                return '\\';
+            case '/':
+                return '/';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                var cp = 0;
+                for (var i = 0; i < 4; i++) {
+                    var digit = Character.digit(nextByte(missingEndChar), 16);
+                    if (digit == -1) {
+                        throw failure("invalid unicode escape");
+                    }
+                    cp = cp * 16 + digit;
+                }
+                return (char) cp;
+            default:
+                throw failure(String.format("Unexpected escaped character '%c'", c));
+        }
+    }
+
+    private void skipString() {
+        pos++; // step beyond opening "
+        while (true) {
+            var c = nextByte("string is not terminated with '\"'");
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                nextByte("string is not terminated with '\"'");
+            }
+        }
+    }
+
+    private String readString() {
+        if (skipping) {
+            skipString();
+            return null;
+        }
+
+        pos++; // step beyond opening "
+        mark = pos;
+        var ascii = true;
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw failure("string is not terminated with '\"'");
+            }
+            var b = buf[pos];
+            if (b == '"') {
+                var s = new String(buf, mark, pos - mark, ascii ? ISO_8859_1 : UTF_8);
+                pos++;
+                mark = -1;
+                return s;
+            }
+            if (b == '\\') {
+                return readEscapedString(ascii);
+            }
+            if (b < 0) {
+                ascii = false;
+            }
+            pos++;
+        }
+    }
+
+    private String readEscapedString(boolean ascii) {
+        chars.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw failure("string is not terminated with '\"'");
+            }
+            var b = buf[pos];
+            if (b == '"' || b == '\\') {
+                // Everything since the mark is a run of bytes without escapes
+                if (pos > mark) {
+                    chars.append(new String(buf, mark, pos - mark, ascii ? ISO_8859_1 : UTF_8));
+                }
+                pos++;
+                mark = -1;
+                if (b == '"') {
+                    return chars.toString();
+                }
+                chars.append(escape());
+                mark = pos;
+                ascii = true;
+                continue;
+            }
+            if (b < 0) {
+                ascii = false;
+            }
+            pos++;
+        }
+    }
+
+    private void digits(String message) {
+        if (!isDigit(peekByte())) {
+            throw failure(message);
+        }
+        while (isDigit(peekByte())) {
+            pos++;
+        }
+    }
+
+    private Token readNumber() {
+        mark = pos;
+        var isInteger = true;
+        if (peekByte() == '-') {
+            pos++;
+        }
+        if (peekByte() == '0') {
+            pos++;
+        } else {
+            digits("a number must start with a digit");
+        }
+        if (peekByte() == '.') {
+            isInteger = false;
+            pos++;
+            digits("must be at least one digit after '.'");
+        }
+        var c = peekByte();
+        if (c == 'e' || c == 'E') {
+            isInteger = false;
+            pos++;
+            c = peekByte();
+            if (c == '+' || c == '-') {
+                pos++;
+            }
+            digits("a digit must follow {'e','E'}{'+','-'}");
+        }
+
+        var start = mark;
+        var length = pos - mark;
+        mark = -1;
+        if (skipping) {
+            return isInteger ? Token.NUMBER : Token.DECIMAL;
+        }
+        if (!isInteger) {
+            doubleValue = Double.parseDouble(new String(buf, start, length, ISO_8859_1));
+            return Token.DECIMAL;
+        }
+
+        var negative = buf[start] == '-';
+        var i = negative ? start + 1 : start;
+        if (pos - i <= 18) {
+            // Cannot overflow
+            var value = 0L;
+            for (; i < pos; i++) {
+                value = value * 10 + (buf[i] - '0');
+            }
+            longValue = negative ? -value : value;
+        } else {
+            longValue = Long.parseLong(new String(buf, start, length, ISO_8859_1));
+        }
+        return Token.NUMBER;
+    }
+
+    /**
+     * Advances to the next token.
+     */
+    public Token next() {
+        var c = skipWhitespace();
+        if (depth > 0) {
+            var inObject = stack[depth - 1] == OBJECT;
+            if (afterName) {
+                afterName = false;
+            } else {
+                if (c == (inObject ? '}' : ']')) {
+                    pos++;
+                    depth--;
+                    first = false;
+                    return token = inObject ? Token.END_OBJECT : Token.END_ARRAY;
+                }
+                if (!first) {
+                    if (c != ',') {
+                        throw failure(inObject ? "object is not terminated with '}'" : "array is not terminated with ']'");
+                    }
+                    pos++;
+                    c = skipWhitespace();
+                }
+                first = false;
+                if (inObject) {
+                    if (c != '"') {
+                        throw failure("a field must of type string");
+                    }
+                    string = readString();
+                    if (skipWhitespace() != ':') {
+                        throw failure("a field must be followed by ':'");
+                    }
+                    pos++;
+                    afterName = true;
+                    return token = Token.FIELD_NAME;
+                }
+            }
+        } else if (started) {
+            if (c != -1) {
+                throw failure("can only have one top-level JSON value");
+            }
+            return token = Token.END;
+        }
+
+        started = true;
+        valueStart = pos;
+        switch (c) {
+            case -1:
+                if (depth > 0) {
+                    throw failure("unexpected end of input");
+                }
+                return token = Token.END;
+            case '{':
+                pos++;
+                push(OBJECT);
+                return token = Token.START_OBJECT;
+            case '[':
+                pos++;
+                push(ARRAY);
+                return token = Token.START_ARRAY;
+            case '"':
+                string = readString();
+                return token = Token.STRING;
+            case 't':
+                literal("true");
+                return token = Token.TRUE;
+            case 'f':
+                literal("false");
+                return token = Token.FALSE;
+            case 'n':
+                literal("null");
+                return token = Token.NULL;
+            default:
+                if (c == '-' || isDigit(c)) {
+                    return token = readNumber();
+                }
+                throw failure("not a valid start of a JSON value");
+        }
+    }
+
+    /**
+     * Returns the current token, or null if {@link #next()} has not been called yet.
+     */
+    public Token token() {
+        return token;
+    }
+
+    /**
+     * Returns the number of objects and arrays the current token is nested in.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    public String string() {
+        if (token != Token.STRING && token != Token.FIELD_NAME) {
+            throw new IllegalStateException("Current token is not a string or field name: " + token);
+        }
+        return string;
+    }
+
+    public long longValue() {
+        if (token != Token.NUMBER) {
+            throw new IllegalStateException("Current token is not an integer: " + token);
+        }
+        return longValue;
+    }
+
+    public double doubleValue() {
+        if (token == Token.NUMBER) {
+            return longValue;
+        }
+        if (token != Token.DECIMAL) {
+            throw new IllegalStateException("Current token is not a number: " + token);
+        }
+        return doubleValue;
+    }
+
+    JSONValue value(Token t) {
+        switch (t) {
+            case START_OBJECT:
+                if (lazy) {
+                    var offsets = new HashMap<String, int[]>();
+                    while (next() != Token.END_OBJECT) {
+                        var name = string;
+                        var start = skip();
+                        offsets.put(name, new int[] { start, pos });
+                    }
+                    return new LazyJSONObject(buf, offsets);
+                }
+                var object = new JSONObject();
+                while (next() != Token.END_OBJECT) {
+                    var name = string;
+                    object.put(name, value(next()));
+                }
+                return object;
+            case START_ARRAY:
+                var array = new JSONArray();
+                for (var n = next(); n != Token.END_ARRAY; n = next()) {
+                    array.add(value(n));
+                }
+                return array;
+            case STRING:
+                return new JSONString(string);
+            case NUMBER:
+                return new JSONNumber(longValue);
+            case DECIMAL:
+                return new JSONDecimal(doubleValue);
+            case TRUE:
+                return new JSONBoolean(true);
+            case FALSE:
+                return new JSONBoolean(false);
+            case NULL:
+                return new JSONNull();
+            case END:
+                return null;
+            default:
+                throw failure("Expected a value, found " + t);
+        }
+    }
+
+    /**
+     * Reads the next complete value. Returns null if the end of the input has been
+     * reached.
+     */
+    public JSONValue value() {
+        return value(next());
+    }
+
+    /**
+     * Skips the next complete value without decoding it.
+     */
+    public void skipValue() {
+        skip();
+    }
+
+    /**
+     * Skips the next complete value and returns the offset in the buffer where it started.
+     */
+    private int skip() {
+        skipping = true;
+        try {
+            var t = next();
+            var start = valueStart;
+            if (t == Token.START_OBJECT || t == Token.START_ARRAY) {
+                var target = depth - 1;
+                while (depth > target) {
+                    next();
+                }
+            }
+            return start;
+        } finally {
+            skipping = false;
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements of the array that starts with the next token.
+     * Each element is read when the iterator is advanced, so only one element at a time
+     * needs to be held in memory.
+     */
+    public Iterator<JSONValue> elements() {
+        if (next() != Token.START_ARRAY) {
+            throw failure("Expected an array, found " + token);
+        }
+        return new Iterator<JSONValue>() {
+            private Token lookahead = null;
+            private boolean done = false;
+
+            @Override
+            public boolean hasNext() {
+                if (done) {
+                    return false;
+                }
+                if (lookahead == null) {
+                    lookahead = JSONReader.this.next();
+                }
+                if (lookahead == Token.END_ARRAY) {
+                    done = true;
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public JSONValue next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var t = lookahead;
+                lookahead = null;
+                return value(t);
+            }
+        };
+    }
+
+    /**
+     * Reads a complete document, which must consist of exactly one value. Returns null
+     * for empty input.
+     */
+    JSONValue document() {
+        var result = value();
+        if (result != null) {
+            next();
+        }
+        return result;
+    }
+
+    JSONValue document(JSONProjection projection) {
+        var result = projection.read(this);
+        if (result != null) {
+            next();
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
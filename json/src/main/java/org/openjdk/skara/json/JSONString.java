@@ -36,44 +36,6 @@ class JSONString implements JSONValue {
 
     @Override
     public String toString() {
-        var builder = new StringBuilder();
-        builder.append("\"");
-
-        for (var i = 0; i < value.length(); i++) {
-            var c = value.charAt(i);
-
-            switch (c) {
-                case '"':
-                    builder.append("\\\"");
-                    break;
-                case '\\':
-                    builder.append("\\\\");
-                    break;
-                case '/':
-                    builder.append("\\/");
-                    break;
-                case '\b':
-                    builder.append("\\b");
-                    break;
-                case '\f':
-                    builder.append("\\f");
-                    break;
-                case '\n':
-                    builder.append("\\n");
-                    break;
-                case '\r':
-                    builder.append("\\r");
-                    break;
-                case '\t':
-                    builder.append("\\t");
-                    break;
-                default:
-                    builder.append(c);
-                    break;
-            }
-        }
-
-        builder.append("\"");
-        return builder.toString();
+        return JSONWriter.toString(this);
     }
 }
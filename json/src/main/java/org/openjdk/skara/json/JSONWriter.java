@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.json;
+
+import java.io.*;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serializes values as UTF-8 encoded JSON directly into bytes. Strings are escaped and
+ * encoded as they are written, so no intermediate Strings are created for the document
+ * or any part of it.
+ *
+ * When writing to an {@link OutputStream}, the output is passed on in chunks of the size
+ * of the internal buffer.
+ */
+public class JSONWriter implements AutoCloseable, Flushable {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(UTF_8);
+    private static final byte[] TRUE = "true".getBytes(UTF_8);
+    private static final byte[] FALSE = "false".getBytes(UTF_8);
+    private static final byte[] NULL = "null".getBytes(UTF_8);
+
+    private final OutputStream stream;
+    private byte[] buf;
+    private int pos;
+
+    public JSONWriter(OutputStream stream) {
+        this(stream, 8192);
+    }
+
+    private JSONWriter(OutputStream stream, int size) {
+        this.stream = stream;
+        this.buf = new byte[size];
+        this.pos = 0;
+    }
+
+    /**
+     * Returns the serialized form of the value as UTF-8 encoded bytes.
+     */
+    public static byte[] toBytes(JSONValue value) {
+        var writer = new JSONWriter(null, 256);
+        writer.write(value);
+        return Arrays.copyOf(writer.buf, writer.pos);
+    }
+
+    static String toString(JSONValue value) {
+        var writer = new JSONWriter(null, 256);
+        writer.write(value);
+        return new String(writer.buf, 0, writer.pos, UTF_8);
+    }
+
+    /**
+     * Makes room for at least {@code n} more bytes, either by passing on the buffered
+     * output to the stream or, if there is none, by growing the buffer.
+     */
+    private void reserve(int n) {
+        if (buf.length - pos >= n) {
+            return;
+        }
+        if (stream != null) {
+            drain();
+            if (buf.length >= n) {
+                return;
+            }
+        }
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+    }
+
+    private void drain() {
+        if (pos > 0) {
+            try {
+                stream.write(buf, 0, pos);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pos = 0;
+        }
+    }
+
+    private void put(byte b) {
+        reserve(1);
+        buf[pos++] = b;
+    }
+
+    private void put(byte[] bytes) {
+        reserve(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void putAscii(String s) {
+        reserve(s.length());
+        for (var i = 0; i < s.length(); i++) {
+            buf[pos++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            putAscii(Long.toString(value));
+            return;
+        }
+        reserve(20);
+        if (value < 0) {
+            buf[pos++] = '-';
+            value = -value;
+        }
+        var start = pos;
+        do {
+            buf[pos++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            var tmp = buf[i];
+            buf[i] = buf[j];
+            buf[j] = tmp;
+        }
+    }
+
+    private void putEscaped(byte c) {
+        buf[pos++] = '\\';
+        buf[pos++] = c;
+    }
+
+    private void putString(String s) {
+        reserve(s.length() + 2);
+        buf[pos++] = '"';
+        for (var i = 0; i < s.length(); i++) {
+            // Enough room for the longest encoding of a single char (or surrogate pair)
+            reserve(6);
+            var c = s.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\' && c != '/') {
+                buf[pos++] = (byte) c;
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    putEscaped((byte) '"');
+                    break;
+                case '\\':
+                    putEscaped((byte) '\\');
+                    break;
+                case '/':
+                    putEscaped((byte) '/');
+                    break;
+                case '\b':
+                    putEscaped((byte) 'b');
+                    break;
+                case '\f':
+                    putEscaped((byte) 'f');
+                    break;
+                case '\n':
+                    putEscaped((byte) 'n');
+                    break;
+                case '\r':
+                    putEscaped((byte) 'r');
+                    break;
+                case '\t':
+                    putEscaped((byte) 't');
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buf[pos++] = '\\';
+                        buf[pos++] = 'u';
+                        buf[pos++] = '0';
+                        buf[pos++] = '0';
+                        buf[pos++] = HEX[c >> 4];
+                        buf[pos++] = HEX[c & 0xf];
+                    } else if (c < 0x800) {
+                        buf[pos++] = (byte) (0xc0 | (c >> 6));
+                        buf[pos++] = (byte) (0x80 | (c & 0x3f));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < s.length() &&
+                               Character.isLowSurrogate(s.charAt(i + 1))) {
+                        var cp = Character.toCodePoint(c, s.charAt(++i));
+                        buf[pos++] = (byte) (0xf0 | (cp >> 18));
+                        buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                        buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                        buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+                    } else if (Character.isSurrogate(c)) {
+                        // Unpaired surrogates are replaced, just as String.getBytes does
+                        buf[pos++] = '?';
+                    } else {
+                        buf[pos++] = (byte) (0xe0 | (c >> 12));
+                        buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                        buf[pos++] = (byte) (0x80 | (c & 0x3f));
+                    }
+                    break;
+            }
+        }
+        put((byte) '"');
+    }
+
+    /**
+     * Writes the given value. Values written one after another are not separated.
+     */
+    public JSONWriter write(JSONValue value) {
+        if (value instanceof JSONObject) {
+            put((byte) '{');
+            var first = true;
+            for (var field : value.asObject().fields()) {
+                if (!first) {
+                    put((byte) ',');
+                }
+                first = false;
+                putString(field.name());
+                put((byte) ':');
+                write(field.value());
+            }
+            put((byte) '}');
+        } else if (value instanceof JSONArray) {
+            put((byte) '[');
+            var first = true;
+            for (var element : value.asArray()) {
+                if (!first) {
+                    put((byte) ',');
+                }
+                first = false;
+                write(element);
+            }
+            put((byte) ']');
+        } else if (value instanceof JSONString) {
+            putString(value.asString());
+        } else if (value instanceof JSONNumber) {
+            putLong(value.asLong());
+        } else if (value instanceof JSONDecimal) {
+            putAscii(Double.toString(value.asDouble()));
+        } else if (value instanceof JSONBoolean) {
+            put(value.asBoolean() ? TRUE : FALSE);
+        } else if (value instanceof JSONNull) {
+            put(NULL);
+        } else {
+            // Some other implementation, rely on its own serialization
+            put(value.toString().getBytes(UTF_8));
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        if (stream != null) {
+            drain();
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stream != null) {
+            drain();
+            stream.close();
+        }
+    }
+}
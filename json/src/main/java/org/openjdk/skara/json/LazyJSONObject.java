@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.json;
+
+import java.util.*;
+
+/**
+ * An object that has only been scanned, not decoded. While scanning, the offsets of the
+ * field values in the input are recorded, and a field value is decoded the first time it
+ * is accessed. Nested objects are in turn decoded lazily, so a field deep inside a large
+ * document can be read without decoding the rest of it.
+ *
+ * The object is fully decoded as soon as it is modified, or when all of its fields are
+ * requested.
+ */
+class LazyJSONObject extends JSONObject {
+    private final byte[] buf;
+    private final Map<String, int[]> offsets;
+    private final Map<String, JSONValue> decoded;
+    private boolean materialized = false;
+
+    LazyJSONObject(byte[] buf, Map<String, int[]> offsets) {
+        this.buf = buf;
+        this.offsets = offsets;
+        this.decoded = new HashMap<>();
+    }
+
+    private JSONValue decode(String name) {
+        var value = decoded.get(name);
+        if (value == null) {
+            var range = offsets.get(name);
+            if (range == null) {
+                return null;
+            }
+            value = JSONReader.lazy(buf, range[0], range[1] - range[0]).document();
+            decoded.put(name, value);
+        }
+        return value;
+    }
+
+    private void materialize() {
+        if (materialized) {
+            return;
+        }
+        for (var name : offsets.keySet()) {
+            super.put(name, decode(name));
+        }
+        materialized = true;
+    }
+
+    @Override
+    public JSONObject put(String k, boolean v) {
+        materialize();
+        return super.put(k, v);
+    }
+
+    @Override
+    public JSONObject put(String k, int v) {
+        materialize();
+        return super.put(k, v);
+    }
+
+    @Override
+    public JSONObject put(String k, long v) {
+        materialize();
+        return super.put(k, v);
+    }
+
+    @Override
+    public JSONObject put(String k, String v) {
+        materialize();
+        return super.put(k, v);
+    }
+
+    @Override
+    public JSONObject put(String k, double v) {
+        materialize();
+        return super.put(k, v);
+    }
+
+    @Override
+    public JSONObject put(String k, JSONArray v) {
+        materialize();
+        return super.put(k, v);
+    }
+
+    @Override
+    public JSONObject put(String k, JSONObject v) {
+        materialize();
+        return super.put(k, v);
+    }
+
+    @Override
+    public JSONObject put(String k, JSONValue v) {
+        materialize();
+        return super.put(k, v);
+    }
+
+    @Override
+    public JSONObject putNull(String k) {
+        materialize();
+        return super.putNull(k);
+    }
+
+    @Override
+    public JSONValue get(String k) {
+        return materialized ? super.get(k) : decode(k);
+    }
+
+    @Override
+    public List<Field> fields() {
+        materialize();
+        return super.fields();
+    }
+
+    @Override
+    public boolean contains(String field) {
+        return materialized ? super.contains(field) : offsets.containsKey(field);
+    }
+
+    @Override
+    public String toString() {
+        materialize();
+        return super.toString();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JSONProjectionTests {
+    private static final String PULL_REQUEST =
+        "{\"number\": 4, \"title\": \"A title\", \"user\": {\"id\": 1, \"login\": \"duke\", \"type\": \"User\"}, " +
+        "\"head\": {\"sha\": \"0123\", \"ref\": \"feature\", \"repo\": {\"id\": 2, \"owner\": {\"login\": \"duke\"}}}, " +
+        "\"assignees\": [{\"id\": 1, \"login\": \"duke\"}, {\"id\": 3, \"login\": \"ryu\"}], " +
+        "\"labels\": [\"a\", \"b\"], \"body\": null}";
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final JSONProjection PROJECTION =
+        JSONProjection.of("number", "user.login", "head.sha", "head.ref", "assignees.login", "labels", "body", "missing.field");
+
+    private static void assertProjected(JSONValue json) {
+        assertEquals(4, json.get("number").asInt());
+        assertEquals("duke", json.get("user").get("login").asString());
+        assertFalse(json.get("user").asObject().contains("id"));
+        assertEquals("0123", json.get("head").get("sha").asString());
+        assertEquals("feature", json.get("head").get("ref").asString());
+        assertFalse(json.get("head").asObject().contains("repo"));
+        assertEquals("duke,ryu", json.get("assignees").stream()
+                                     .map(a -> a.get("login").asString())
+                                     .collect(Collectors.joining(",")));
+        assertFalse(json.get("assignees").asArray().get(0).asObject().contains("id"));
+        assertEquals(2, json.get("labels").asArray().size());
+        assertTrue(json.get("body").isNull());
+        assertFalse(json.asObject().contains("title"));
+        assertFalse(json.asObject().contains("missing"));
+    }
+
+    @Test
+    void projectWhileReading() {
+        assertProjected(JSON.parse(bytes(PULL_REQUEST), PROJECTION));
+        assertProjected(JSON.parse(new ByteArrayInputStream(bytes(PULL_REQUEST)), PROJECTION));
+    }
+
+    @Test
+    void projectParsedValue() {
+        var json = JSON.parse(PULL_REQUEST);
+        assertProjected(PROJECTION.apply(json));
+
+        // Applying the same projection again has no effect
+        var projected = PROJECTION.apply(json);
+        assertEquals(projected.toString(), PROJECTION.apply(projected).toString());
+    }
+
+    @Test
+    void projectArrayOfObjects() {
+        var json = JSON.parse(bytes("[" + PULL_REQUEST + "," + PULL_REQUEST + "]"), PROJECTION);
+        assertEquals(2, json.asArray().size());
+        for (var element : json.asArray()) {
+            assertProjected(element);
+        }
+    }
+
+    @Test
+    void wholeValueWins() {
+        var projection = JSONProjection.of("head.sha", "head", "user", "user.login");
+        var json = projection.apply(JSON.parse(PULL_REQUEST));
+        assertEquals(2, json.get("head").get("repo").get("id").asInt());
+        assertEquals(1, json.get("user").get("id").asInt());
+    }
+
+    @Test
+    void malformedInputIsRejected() {
+        assertThrows(IllegalStateException.class, () -> JSON.parse(bytes("{\"number\": 4, \"head\": {]}"), PROJECTION));
+        assertThrows(IllegalStateException.class, () -> JSON.parse(bytes("{\"number\": 4} 5"), PROJECTION));
+    }
+
+    @Test
+    void lazyObjects() {
+        var json = JSON.parseLazily(bytes(PULL_REQUEST));
+        assertTrue(json instanceof LazyJSONObject);
+        assertEquals(4, json.get("number").asInt());
+        assertTrue(json.get("head") instanceof LazyJSONObject);
+        assertEquals("duke", json.get("head").get("repo").get("owner").get("login").asString());
+        assertSame(json.get("head"), json.get("head"));
+        assertEquals("ryu", json.get("assignees").asArray().get(1).get("login").asString());
+        assertTrue(json.asObject().contains("labels"));
+        assertFalse(json.asObject().contains("missing"));
+        assertNull(json.get("missing"));
+        assertEquals(JSON.parse(bytes(PULL_REQUEST)).toString(), json.toString());
+    }
+
+    @Test
+    void lazyObjectCanBeModified() {
+        var json = JSON.parseLazily(bytes(PULL_REQUEST)).asObject();
+        json.put("title", "Another title");
+        json.putNull("number");
+        assertEquals("Another title", json.get("title").asString());
+        assertTrue(json.get("number").isNull());
+        assertEquals("duke", json.get("user").get("login").asString());
+        assertEquals(7, json.fields().size());
+    }
+}
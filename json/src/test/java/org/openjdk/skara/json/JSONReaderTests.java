@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JSONReaderTests {
+    private static final String DOCUMENT =
+        "{\"id\": 17, \"title\": \"Fix \\\"bug\\\"\\n\\u00e5\\ud83d\\ude00 räksmörgås ☃\", " +
+        "\"draft\": false, \"merged\": true, \"closed_at\": null, \"score\": -1.5e3, " +
+        "\"big\": -9223372036854775808, \"labels\": [{\"name\": \"a\"}, {\"name\": \"b\"}], \"empty\": {}, \"none\": []}";
+
+    /**
+     * Returns at most one byte per read, so that every token crosses a buffer boundary.
+     */
+    private static InputStream trickle(String s) {
+        var bytes = new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+        return new InputStream() {
+            @Override
+            public int read() {
+                return bytes.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return bytes.read(b, off, Math.min(len, 1));
+            }
+        };
+    }
+
+    private static void assertSameAsParser(String s) {
+        var expected = new JSONParser().parse(s).toString();
+        assertEquals(expected, JSON.parse(s.getBytes(StandardCharsets.UTF_8)).toString());
+        assertEquals(expected, JSON.parse(ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8))).toString());
+        assertEquals(expected, JSON.parse(trickle(s)).toString());
+    }
+
+    @Test
+    void testSameResultAsStringParser() {
+        assertSameAsParser(DOCUMENT);
+        assertSameAsParser("  [1, 2.5, \"three\", [true, false, null], {\"x\": {\"y\": []}}]  ");
+        assertSameAsParser("\"\"");
+        assertSameAsParser("0");
+        assertSameAsParser("-0.25");
+        assertSameAsParser("1E+2");
+    }
+
+    @Test
+    void testValues() {
+        var value = JSON.parse(trickle(DOCUMENT));
+        assertEquals(17, value.get("id").asInt());
+        assertEquals("Fix \"bug\"\nå😀 räksmörgås ☃", value.get("title").asString());
+        assertFalse(value.get("draft").asBoolean());
+        assertTrue(value.get("merged").asBoolean());
+        assertTrue(value.get("closed_at").isNull());
+        assertEquals(-1500.0, value.get("score").asDouble());
+        assertEquals(Long.MIN_VALUE, value.get("big").asLong());
+        assertEquals("b", value.get("labels").get(1).get("name").asString());
+    }
+
+    @Test
+    void testTokens() {
+        var reader = new JSONReader(trickle("{\"a\": [1, \"b\"], \"c\": 2.5}"));
+        assertEquals(JSONReader.Token.START_OBJECT, reader.next());
+        assertEquals(JSONReader.Token.FIELD_NAME, reader.next());
+        assertEquals("a", reader.string());
+        assertEquals(JSONReader.Token.START_ARRAY, reader.next());
+        assertEquals(2, reader.depth());
+        assertEquals(JSONReader.Token.NUMBER, reader.next());
+        assertEquals(1, reader.longValue());
+        assertEquals(JSONReader.Token.STRING, reader.next());
+        assertEquals("b", reader.string());
+        assertEquals(JSONReader.Token.END_ARRAY, reader.next());
+        assertEquals(JSONReader.Token.FIELD_NAME, reader.next());
+        assertEquals("c", reader.string());
+        assertEquals(JSONReader.Token.DECIMAL, reader.next());
+        assertEquals(2.5, reader.doubleValue());
+        assertEquals(JSONReader.Token.END_OBJECT, reader.next());
+        assertEquals(JSONReader.Token.END, reader.next());
+    }
+
+    @Test
+    void testElements() {
+        var reader = new JSONReader(trickle("[{\"n\": 1}, {\"n\": 2}, {\"n\": 3}]"));
+        var numbers = new ArrayList<Integer>();
+        reader.elements().forEachRemaining(e -> numbers.add(e.get("n").asInt()));
+        assertEquals(List.of(1, 2, 3), numbers);
+        assertEquals(JSONReader.Token.END, reader.next());
+
+        assertFalse(new JSONReader("[]".getBytes(StandardCharsets.UTF_8)).elements().hasNext());
+    }
+
+    @Test
+    void testSkipValue() {
+        var reader = new JSONReader(trickle("{\"skipped\": {\"a\": [\"\\\"]\", {}]}, \"kept\": 1}"));
+        assertEquals(JSONReader.Token.START_OBJECT, reader.next());
+        assertEquals(JSONReader.Token.FIELD_NAME, reader.next());
+        reader.skipValue();
+        assertEquals(JSONReader.Token.FIELD_NAME, reader.next());
+        assertEquals("kept", reader.string());
+        assertEquals(1, reader.value().asInt());
+        assertEquals(JSONReader.Token.END_OBJECT, reader.next());
+    }
+
+    @Test
+    void testEmptyInput() {
+        assertNull(JSON.parse(new byte[0]));
+        assertNull(JSON.parse(trickle("  ")));
+    }
+
+    @Test
+    void testInvalidInput() {
+        for (var s : List.of("[1 2]", "{\"a\" 1}", "{1: 2}", "\"unterminated", "[1,]", "tru", "1 2", "-", "1.", "[")) {
+            assertThrows(IllegalStateException.class, () -> JSON.parse(s.getBytes(StandardCharsets.UTF_8)), s);
+        }
+    }
+}
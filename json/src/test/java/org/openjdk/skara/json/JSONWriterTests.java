@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JSONWriterTests {
+    private static String write(JSONValue value) {
+        return new String(JSONWriter.toBytes(value), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void scalars() {
+        assertEquals("17", write(JSON.of(17)));
+        assertEquals("-9223372036854775808", write(JSON.of(Long.MIN_VALUE)));
+        assertEquals("9223372036854775807", write(JSON.of(Long.MAX_VALUE)));
+        assertEquals("0", write(JSON.of(0)));
+        assertEquals("-1.5", write(JSON.of(-1.5)));
+        assertEquals("true", write(JSON.of(true)));
+        assertEquals("false", write(JSON.of(false)));
+        assertEquals("null", write(JSON.of()));
+    }
+
+    @Test
+    void escaping() {
+        assertEquals("\"a\\\"b\\\\c\\/d\\n\\t\\r\\b\\f\"", write(JSON.of("a\"b\\c/d\n\t\r\b\f")));
+        assertEquals("\"\\u0000\\u001f\"", write(JSON.of("\u0000\u001f")));
+        assertEquals("\"räksmörgås ☃ 😀\"", write(JSON.of("räksmörgås ☃ 😀")));
+        assertEquals("{\"a\\\"b\":1}", write(JSON.object().put("a\"b", 1)));
+    }
+
+    @Test
+    void roundTrip() {
+        var value = JSON.object()
+                        .put("title", "A title ☃")
+                        .put("draft", false)
+                        .put("number", 4)
+                        .putNull("body")
+                        .put("labels", JSON.array().add("a").add(JSON.object().put("name", "b")))
+                        .put("empty", JSON.object())
+                        .put("none", JSON.array());
+        var bytes = JSONWriter.toBytes(value);
+        assertEquals(value.toString(), new String(bytes, StandardCharsets.UTF_8));
+        assertEquals(value.toString(), JSON.parse(bytes).toString());
+        assertEquals(value.toString(), JSON.parse(value.toString()).toString());
+    }
+
+    @Test
+    void writeToStream() throws IOException {
+        var array = JSON.array();
+        for (var i = 0; i < 10000; i++) {
+            array.add(JSON.object().put("id", i).put("name", "element " + i));
+        }
+        var output = new ByteArrayOutputStream();
+        try (var writer = new JSONWriter(output)) {
+            writer.write(array);
+        }
+        assertArrayEquals(JSONWriter.toBytes(array), output.toByteArray());
+        assertEquals(10000, JSON.parse(output.toByteArray()).asArray().size());
+    }
+}
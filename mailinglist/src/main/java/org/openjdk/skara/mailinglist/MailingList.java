@@ -26,8 +26,13 @@ import org.openjdk.skara.email.*;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public interface MailingList {
-    void post(Email email);
+    /**
+     * Posts the email to the list. The returned future completes once the email has been
+     * accepted, or exceptionally if posting it failed.
+     */
+    CompletableFuture<Void> post(Email email);
     List<Conversation> conversations(Duration maxAge);
 }
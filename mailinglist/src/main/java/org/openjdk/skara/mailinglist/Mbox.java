@@ -35,37 +35,16 @@ import java.util.stream.Collectors;
 public class Mbox {
     private final static Logger log = Logger.getLogger("org.openjdk.skara.mailinglist");
 
-    private final static Pattern mboxMessagePattern = Pattern.compile(
-            "^(From (?:.(?!^\\R^From ))*)", Pattern.MULTILINE | Pattern.DOTALL);
     private final static DateTimeFormatter ctimeFormat = DateTimeFormatter.ofPattern(
             "EEE LLL dd HH:mm:ss yyyy", Locale.US);
     private final static Pattern fromStringEncodePattern = Pattern.compile("^(>*From )", Pattern.MULTILINE);
-    private final static Pattern fromStringDecodePattern = Pattern.compile("^>(>*From )", Pattern.MULTILINE);
 
     private static List<Email> splitMbox(String mbox) {
-        // Initial split
-        var messages = mboxMessagePattern.matcher(mbox).results()
-                                         .map(match -> match.group(1))
-                                         .filter(message -> message.length() > 0)
-                                         .map(Mbox::decodeFromStrings)
-                                         .collect(Collectors.toList());
-
-        // Pipermail can occasionally fail to encode 'From ' in message bodies, try to handle this
-        var messageBuilder = new StringBuilder();
-        var parsedMails = new ArrayList<Email>();
-        Collections.reverse(messages);
-        for (var message : messages) {
-            messageBuilder.insert(0, message);
-            try {
-                var email = Email.parse(messageBuilder.toString());
-                parsedMails.add(email);
-                messageBuilder.setLength(0);
-            } catch (RuntimeException ignored) {
-            }
+        try (var reader = new MboxReader(new StringReader(mbox))) {
+            return reader.readAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        Collections.reverse(parsedMails);
-        return parsedMails;
     }
 
     private static String encodeFromStrings(String body) {
@@ -73,13 +52,22 @@ public class Mbox {
         return fromStringMatcher.replaceAll(">$1");
     }
 
-    private static String decodeFromStrings(String body) {
-        var fromStringMatcher = fromStringDecodePattern.matcher(body);
-        return fromStringMatcher.replaceAll("$1");
+    /**
+     * Parses the messages in the mbox, without grouping them into conversations.
+     */
+    public static List<Email> parseEmails(String mbox) {
+        return splitMbox(mbox);
     }
 
     public static List<Conversation> parseMbox(String mbox) {
-        var emails = splitMbox(mbox);
+        return conversations(splitMbox(mbox));
+    }
+
+    /**
+     * Groups the given messages into conversations. Replies must come after the message
+     * they reply to.
+     */
+    public static List<Conversation> conversations(List<Email> emails) {
         var idToMail = emails.stream().collect(Collectors.toMap(Email::id, Function.identity(), (a, b) -> a));
         var idToConversation = idToMail.values().stream()
                                        .filter(email -> !email.hasHeader("In-Reply-To"))
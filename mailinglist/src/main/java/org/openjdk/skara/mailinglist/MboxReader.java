@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.mailinglist;
+
+import org.openjdk.skara.email.Email;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Reads the messages of an mbox archive one at a time, in a single pass over the lines of
+ * the input. A message starts with a line beginning with "From " that is either the first
+ * such line or follows an empty line; the empty line and the last character of the line
+ * break before it are not part of any message.
+ * Lines in the body that were escaped as {@code ">From "} are restored.
+ *
+ * Pipermail occasionally fails to escape "From " in message bodies, which splits a message
+ * in two. A part that cannot be parsed as a message on its own is therefore appended to the
+ * message before it.
+ */
+public class MboxReader implements AutoCloseable {
+    private final Reader reader;
+    private final char[] buf = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+
+    private StringBuilder current;
+    private String blank;
+    private boolean done = false;
+
+    // The last message that could be parsed on its own, and the parts after it that could not
+    private String openRaw;
+    private Email openEmail;
+    private final List<String> pending = new ArrayList<>();
+    private final Deque<Email> ready = new ArrayDeque<>();
+
+    public MboxReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public MboxReader(Path file) throws IOException {
+        this(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    private boolean fill() throws IOException {
+        if (pos < limit) {
+            return true;
+        }
+        var n = reader.read(buf, 0, buf.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    /**
+     * Returns the next line including its line break, or null at the end of the input.
+     */
+    private String readLine() throws IOException {
+        StringBuilder line = null;
+        while (fill()) {
+            var start = pos;
+            while (pos < limit && buf[pos] != '\n' && buf[pos] != '\r') {
+                pos++;
+            }
+            if (pos == limit) {
+                if (line == null) {
+                    line = new StringBuilder();
+                }
+                line.append(buf, start, pos - start);
+                continue;
+            }
+            var isCR = buf[pos] == '\r';
+            pos++;
+            if (line == null) {
+                line = new StringBuilder(pos - start + 1);
+            }
+            line.append(buf, start, pos - start);
+            if (isCR && fill() && buf[pos] == '\n') {
+                pos++;
+                line.append('\n');
+            }
+            return line.toString();
+        }
+        return line == null ? null : line.toString();
+    }
+
+    private static boolean isBlank(String line) {
+        return line.equals("\n") || line.equals("\r\n") || line.equals("\r");
+    }
+
+    private static String decodeFromString(String line) {
+        if (line.startsWith(">")) {
+            var i = 0;
+            while (i < line.length() && line.charAt(i) == '>') {
+                i++;
+            }
+            if (line.startsWith("From ", i)) {
+                return line.substring(1);
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Returns the text of the next message in the mbox, or null if there are no more.
+     */
+    private String nextRaw() throws IOException {
+        if (done) {
+            return null;
+        }
+        String line;
+        while ((line = readLine()) != null) {
+            if (current == null) {
+                if (line.startsWith("From ")) {
+                    current = new StringBuilder(line);
+                }
+                continue;
+            }
+            if (blank != null) {
+                if (line.startsWith("From ")) {
+                    // The last character of the line break before the empty line does not belong
+                    // to the message either
+                    var message = current.substring(0, current.length() - 1);
+                    current = new StringBuilder(line);
+                    blank = null;
+                    return message;
+                }
+                current.append(blank);
+                blank = null;
+            }
+            if (isBlank(line)) {
+                blank = line;
+            } else {
+                current.append(decodeFromString(line));
+            }
+        }
+
+        done = true;
+        if (current == null) {
+            return null;
+        }
+        if (blank != null) {
+            current.append(blank);
+        }
+        return current.toString();
+    }
+
+    private static Optional<Email> parse(String raw) {
+        try {
+            return Optional.of(Email.parse(raw));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static int lineBreak(String s, int i) {
+        if (i >= s.length()) {
+            return 0;
+        }
+        switch (s.charAt(i)) {
+            case '\r':
+                return i + 1 < s.length() && s.charAt(i + 1) == '\n' ? 2 : 1;
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\u0085':
+            case '\u2028':
+            case '\u2029':
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean hasHeaderEnd(String raw) {
+        for (var i = 0; i < raw.length(); i++) {
+            var first = lineBreak(raw, i);
+            if (first > 0) {
+                if (lineBreak(raw, i + first) > 0) {
+                    return true;
+                }
+                i += first - 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Assigns the parts that could not be parsed on their own. Going backwards, a part is
+     * joined with the parts after it; if that can be parsed it forms a message, otherwise the
+     * remaining parts are appended to the last message that could be parsed on its own. A part
+     * that has all of its headers cannot be parsed any better by appending more text to it, so
+     * only parts that end within their headers need to be tried again.
+     */
+    private void resolve() {
+        var messages = new ArrayDeque<Email>();
+        var end = pending.size();
+        for (var i = pending.size() - 1; i >= 0; i--) {
+            if (hasHeaderEnd(pending.get(i))) {
+                continue;
+            }
+            var email = parse(String.join("", pending.subList(i, end)));
+            if (email.isPresent()) {
+                messages.addFirst(email.get());
+                end = i;
+            }
+        }
+        if (openEmail != null) {
+            if (end == 0) {
+                // Nothing to append, so the message as already parsed is final
+                ready.add(openEmail);
+            } else {
+                var open = new StringBuilder(openRaw);
+                for (var i = 0; i < end; i++) {
+                    open.append(pending.get(i));
+                }
+                parse(open.toString()).ifPresent(ready::add);
+            }
+            openRaw = null;
+            openEmail = null;
+        }
+        ready.addAll(messages);
+        pending.clear();
+    }
+
+    /**
+     * Returns the next message, or an empty result at the end of the mbox.
+     */
+    public Optional<Email> next() throws IOException {
+        while (ready.isEmpty()) {
+            var raw = nextRaw();
+            if (raw == null) {
+                resolve();
+                return Optional.ofNullable(ready.poll());
+            }
+            var email = parse(raw);
+            if (email.isPresent()) {
+                resolve();
+                openRaw = raw;
+                openEmail = email.get();
+            } else {
+                pending.add(raw);
+            }
+        }
+        return Optional.of(ready.poll());
+    }
+
+    /**
+     * Returns all remaining messages.
+     */
+    public List<Email> readAll() throws IOException {
+        var emails = new ArrayList<Email>();
+        for (var email = next(); email.isPresent(); email = next()) {
+            emails.add(email.get());
+        }
+        return emails;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
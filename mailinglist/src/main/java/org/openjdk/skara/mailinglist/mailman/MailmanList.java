@@ -38,9 +38,23 @@ public class MailmanList implements MailingList {
     private final MailmanServer server;
     private final EmailAddress listAddress;
     private final Logger log = Logger.getLogger("org.openjdk.skara.mailinglist");
-    private final ConcurrentMap<URI, HttpResponse<String>> pageCache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<URI, MonthPage> pageCache = new ConcurrentHashMap<>();
     private List<Conversation> cachedConversations = new ArrayList<>();
 
+    /**
+     * The parsed messages of the mbox archive for one month. Only the messages are kept,
+     * the raw text is discarded once it has been parsed.
+     */
+    private static class MonthPage {
+        private final String etag;
+        private final List<Email> emails;
+
+        MonthPage(String etag, List<Email> emails) {
+            this.etag = etag;
+            this.emails = emails;
+        }
+    }
+
     MailmanList(MailmanServer server, EmailAddress name) {
         this.server = server;
         this.listAddress = name;
@@ -52,8 +66,8 @@ public class MailmanList implements MailingList {
     }
 
     @Override
-    public void post(Email email) {
-        server.sendMessage(listAddress, email);
+    public CompletableFuture<Void> post(Email email) {
+        return server.sendMessage(listAddress, email);
     }
 
     private List<ZonedDateTime> getMonthRange(Duration maxAge) {
@@ -72,25 +86,30 @@ public class MailmanList implements MailingList {
         return ret;
     }
 
-    private Optional<HttpResponse<String>> getPage(HttpClient client, URI uri) {
+    /**
+     * Returns the page for the given month. If the page has not changed since it was last
+     * fetched, the cached instance is returned without being parsed again.
+     */
+    private Optional<MonthPage> getPage(HttpClient client, URI uri) {
         var requestBuilder = HttpRequest.newBuilder(uri)
                                         .timeout(Duration.ofSeconds(30))
                                         .GET();
 
         var cached = pageCache.get(uri);
-        if (cached != null) {
-            var etag = cached.headers().firstValue("ETag");
-            etag.ifPresent(s -> requestBuilder.header("If-None-Match", s));
+        if (cached != null && cached.etag != null) {
+            requestBuilder.header("If-None-Match", cached.etag);
         }
 
         var request = requestBuilder.build();
         try {
             HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
             if (response.statusCode() == 200) {
-                pageCache.put(uri, response);
-                return Optional.of(response);
-            } else if (response.statusCode() == 304) {
-                return Optional.of(response);
+                var page = new MonthPage(response.headers().firstValue("ETag").orElse(null),
+                                         Mbox.parseEmails(response.body()));
+                pageCache.put(uri, page);
+                return Optional.of(page);
+            } else if (response.statusCode() == 304 && cached != null) {
+                return Optional.of(cached);
             } else if (response.statusCode() == 404) {
                 log.fine("Page not found for " + uri);
                 return Optional.empty();
@@ -113,37 +132,46 @@ public class MailmanList implements MailingList {
                                                   .sorted(Comparator.reverseOrder())
                                                   .collect(Collectors.toList());
 
-        var actualPages = new LinkedList<String>();
+        var actualPages = new LinkedList<MonthPage>();
+        var requestedUris = new HashSet<URI>();
         var useCached = false;
         var newContent = false;
         for (var month : potentialPages) {
             URI mboxUri = server.getMbox(listAddress.localPart(), month);
+            requestedUris.add(mboxUri);
 
             if (useCached) {
-                var cachedResponse = pageCache.get(mboxUri);
-                if (cachedResponse == null) {
+                var cachedPage = pageCache.get(mboxUri);
+                if (cachedPage == null) {
                     break;
                 } else {
-                    actualPages.addFirst(cachedResponse.body());
+                    actualPages.addFirst(cachedPage);
                 }
             } else {
-                var mboxResponse = getPage(client, mboxUri);
-                if (mboxResponse.isEmpty()) {
+                var previousPage = pageCache.get(mboxUri);
+                var mboxPage = getPage(client, mboxUri);
+                if (mboxPage.isEmpty()) {
                     break;
                 }
-                if (mboxResponse.get().statusCode() == 304) {
-                    actualPages.addFirst(pageCache.get(mboxUri).body());
+                if (mboxPage.get() == previousPage) {
                     useCached = true;
                 } else {
-                    actualPages.addFirst(mboxResponse.get().body());
                     newContent = true;
                 }
+                actualPages.addFirst(mboxPage.get());
             }
         }
 
+        // Months that have fallen out of the requested range will not be needed again
+        pageCache.keySet().retainAll(requestedUris);
+
         if (newContent) {
-            var concatenatedMbox = String.join("", actualPages);
-            var mails = Mbox.parseMbox(concatenatedMbox);
+            // Only the changed months have been parsed again, the conversations are rebuilt from
+            // the messages of all months
+            var emails = actualPages.stream()
+                                    .flatMap(page -> page.emails.stream())
+                                    .collect(Collectors.toList());
+            var mails = Mbox.conversations(emails);
             var threshold = ZonedDateTime.now().minus(maxAge);
             cachedConversations = mails.stream()
                                        .filter(mail -> mail.first().date().isAfter(threshold))
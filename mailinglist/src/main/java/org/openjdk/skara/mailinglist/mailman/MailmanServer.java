@@ -31,18 +31,15 @@ import java.net.URI;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 public class MailmanServer implements MailingListServer {
     private final URI archive;
-    private final String smtpServer;
-    private volatile Instant lastSend;
-    private Duration sendInterval;
+    private final SMTPQueue outbound;
 
     public MailmanServer(URI archive, String smtpServer, Duration sendInterval) {
         this.archive = archive;
-        this.smtpServer = smtpServer;
-        this.sendInterval = sendInterval;
-        lastSend = Instant.EPOCH;
+        this.outbound = new SMTPQueue(smtpServer, sendInterval);
     }
 
     URI getMbox(String listName, ZonedDateTime month) {
@@ -50,19 +47,13 @@ public class MailmanServer implements MailingListServer {
         return URIBuilder.base(archive).appendPath(listName + "/" + dateStr + ".txt").build();
     }
 
-    void sendMessage(EmailAddress recipientList, Email message) {
-        while (lastSend.plus(sendInterval).isAfter(Instant.now())) {
-            try {
-                Thread.sleep(sendInterval.dividedBy(10).toMillis());
-            } catch (InterruptedException ignored) {
-            }
-        }
-        lastSend = Instant.now();
-        try {
-            SMTP.send(smtpServer, recipientList, message);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+    /**
+     * Queues the message for sending. The returned future completes once the server has
+     * accepted it. Messages are sent with at least the send interval between them, and
+     * consecutive messages share a connection.
+     */
+    CompletableFuture<Void> sendMessage(EmailAddress recipientList, Email message) {
+        return outbound.send(recipientList, message);
     }
 
     @Override
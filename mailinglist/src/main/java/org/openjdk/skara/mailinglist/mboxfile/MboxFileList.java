@@ -26,25 +26,236 @@ import org.openjdk.skara.email.*;
 import org.openjdk.skara.mailinglist.*;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+/**
+ * A mailing list stored as a single mbox file. Next to the mbox file an index is kept with
+ * one line per message, holding the byte range of the message in the mbox file, its date,
+ * its id and the id of the message it replies to. The index is appended to when a message
+ * is posted, and rebuilt from the mbox file if it does not cover all of it. Conversations
+ * are grouped using the index alone, so only the messages of the conversations that are
+ * recent enough are read from the mbox file and parsed.
+ */
 public class MboxFileList implements MailingList {
     private final Path file;
+    private final Path index;
     private final EmailAddress recipient;
     private final Logger log = Logger.getLogger("org.openjdk.skara.mailinglist");
 
+    private static class IndexEntry {
+        final long offset;
+        final long length;
+        final Instant date;
+        final String id;
+        final String inReplyTo;
+
+        IndexEntry(long offset, long length, Instant date, String id, String inReplyTo) {
+            this.offset = offset;
+            this.length = length;
+            this.date = date;
+            this.id = id;
+            this.inReplyTo = inReplyTo;
+        }
+
+        static IndexEntry of(long offset, long length, Email email) {
+            var inReplyTo = "";
+            if (email.hasHeader("In-Reply-To")) {
+                try {
+                    inReplyTo = EmailAddress.parse(email.headerValue("In-Reply-To")).address();
+                } catch (IllegalArgumentException e) {
+                    // Treated as the start of a conversation here, the conversation grouping discards it
+                }
+            }
+            return new IndexEntry(offset, length, email.date().toInstant(), email.id().address(), inReplyTo);
+        }
+
+        static IndexEntry parse(String line) {
+            var fields = line.split("\t", -1);
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("Malformed index entry: " + line);
+            }
+            return new IndexEntry(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                                  Instant.ofEpochSecond(Long.parseLong(fields[2])), fields[3], fields[4]);
+        }
+
+        long end() {
+            return offset + length;
+        }
+
+        @Override
+        public String toString() {
+            return offset + "\t" + length + "\t" + date.getEpochSecond() + "\t" + id + "\t" + inReplyTo + "\n";
+        }
+    }
+
     MboxFileList(Path file, EmailAddress recipient) {
         this.file = file.resolveSibling(file.getFileName() + ".mbox");
+        this.index = file.resolveSibling(file.getFileName() + ".mbox.index");
         this.recipient = recipient;
     }
 
+    private static long size(Path path) throws IOException {
+        return Files.exists(path) ? Files.size(path) : 0;
+    }
+
+    /**
+     * Returns the index entries, or an empty result if the index does not cover the
+     * complete mbox file.
+     */
+    private Optional<List<IndexEntry>> readIndex() throws IOException {
+        var size = size(file);
+        if (Files.notExists(index)) {
+            return size == 0 ? Optional.of(new ArrayList<>()) : Optional.empty();
+        }
+        var entries = new ArrayList<IndexEntry>();
+        try {
+            for (var line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                entries.add(IndexEntry.parse(line));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warning("Ignoring malformed mbox index: " + e.getMessage());
+            return Optional.empty();
+        }
+        var end = entries.isEmpty() ? 0 : entries.get(entries.size() - 1).end();
+        return end == size ? Optional.of(entries) : Optional.empty();
+    }
+
+    /**
+     * Returns true if the index covers the complete mbox file. Only the last line of the
+     * index is read.
+     */
+    private boolean isIndexUpToDate() throws IOException {
+        var size = size(file);
+        if (Files.notExists(index)) {
+            return size == 0;
+        }
+        try (var channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            var indexSize = channel.size();
+            if (indexSize == 0) {
+                return size == 0;
+            }
+            // Read backwards until the start of the last line has been found
+            var chunk = 256;
+            while (true) {
+                var start = Math.max(0, indexSize - chunk);
+                var tail = read(channel, start, indexSize - start);
+                var lineStart = tail.lastIndexOf('\n', tail.length() - 2);
+                if (lineStart >= 0 || start == 0) {
+                    var last = tail.substring(lineStart + 1, tail.length() - 1);
+                    try {
+                        return IndexEntry.parse(last).end() == size;
+                    } catch (IllegalArgumentException e) {
+                        return false;
+                    }
+                }
+                chunk *= 2;
+            }
+        }
+    }
+
+    private static String read(FileChannel channel, long offset, long length) throws IOException {
+        var buffer = ByteBuffer.allocate(Math.toIntExact(length));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file at " + (offset + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    private static Optional<Email> parse(FileChannel mbox, long offset, long length) throws IOException {
+        var text = read(mbox, offset, length);
+        try (var reader = new MboxReader(new StringReader(text))) {
+            return reader.next();
+        }
+    }
+
+    /**
+     * Returns the offsets of all lines in the mbox file that start with "From " and either
+     * are the first line or follow an empty line.
+     */
+    private static List<Long> messageStarts(Path path) throws IOException {
+        var starts = new ArrayList<Long>();
+        var from = "From ".getBytes(StandardCharsets.US_ASCII);
+        var head = new byte[from.length];
+        try (var in = new BufferedInputStream(Files.newInputStream(path), 65536)) {
+            long pos = 0;
+            long lineStart = 0;
+            var previousEmpty = true;
+            var done = false;
+            while (!done) {
+                var b = in.read();
+                done = b == -1;
+                if (b == '\n' || done) {
+                    var lineLength = pos - lineStart;
+                    if (previousEmpty && lineLength >= head.length && Arrays.equals(head, from)) {
+                        starts.add(lineStart);
+                    }
+                    previousEmpty = lineLength == 0 || (lineLength == 1 && head[0] == '\r');
+                    lineStart = pos + 1;
+                } else if (pos - lineStart < head.length) {
+                    head[(int) (pos - lineStart)] = (byte) b;
+                }
+                pos++;
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Recreates the index by scanning the mbox file for the start of each message. Parts
+     * that cannot be parsed on their own are considered to belong to the message before.
+     */
+    private List<IndexEntry> rebuildIndex() throws IOException {
+        var entries = new ArrayList<IndexEntry>();
+        if (Files.exists(file)) {
+            var starts = messageStarts(file);
+            try (var mbox = FileChannel.open(file, StandardOpenOption.READ)) {
+                var size = mbox.size();
+                for (var i = 0; i < starts.size(); i++) {
+                    var start = starts.get(i);
+                    var end = i + 1 < starts.size() ? starts.get(i + 1) - 1 : size;
+                    var email = parse(mbox, start, end - start);
+                    if (email.isPresent()) {
+                        entries.add(IndexEntry.of(start, end - start, email.get()));
+                    } else if (!entries.isEmpty()) {
+                        var last = entries.remove(entries.size() - 1);
+                        var merged = parse(mbox, last.offset, end - last.offset);
+                        if (merged.isPresent()) {
+                            entries.add(IndexEntry.of(last.offset, end - last.offset, merged.get()));
+                        } else {
+                            entries.add(last);
+                        }
+                    }
+                }
+                // The index must cover the whole file to be considered up to date
+                if (!entries.isEmpty()) {
+                    var last = entries.remove(entries.size() - 1);
+                    entries.add(new IndexEntry(last.offset, size - last.offset, last.date, last.id, last.inReplyTo));
+                }
+            }
+        }
+
+        var tmp = index.resolveSibling(index.getFileName() + ".tmp");
+        try (var writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (var entry : entries) {
+                writer.write(entry.toString());
+            }
+        }
+        Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries;
+    }
+
     private void postNewConversation(Email mail) {
-        var mboxMail = Mbox.fromMail(mail);
         if (Files.notExists(file)) {
             if (Files.notExists(file.getParent())) {
                 try {
@@ -54,48 +265,86 @@ public class MboxFileList implements MailingList {
                 }
             }
         }
-        try {
-            Files.writeString(file, mboxMail, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
-        } catch (IOException e) {
-            try {
-                Files.writeString(file, mboxMail, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW);
-            } catch (IOException e1) {
-                throw new UncheckedIOException(e);
-            }
-        }
+        append(mail);
     }
 
     private void postReply(Email mail) {
-        var mboxMail = Mbox.fromMail(mail);
+        append(mail);
+    }
+
+    private void append(Email mail) {
+        var mboxMail = Mbox.fromMail(mail).getBytes(StandardCharsets.UTF_8);
         try {
-            Files.writeString(file, mboxMail, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            var upToDate = isIndexUpToDate();
+            var offset = size(file);
+            Files.write(file, mboxMail, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+            // An index that was already behind is rebuilt the next time it is needed
+            if (upToDate) {
+                var start = 0;
+                while (mboxMail[start] != 'F') {
+                    start++;
+                }
+                var entry = IndexEntry.of(offset + start, mboxMail.length - start, mail);
+                Files.writeString(index, entry.toString(), StandardCharsets.UTF_8,
+                                  StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
     @Override
-    public void post(Email email) {
+    public CompletableFuture<Void> post(Email email) {
         if (email.hasHeader(("In-Reply-To"))) {
             postReply(email);
         } else {
             postNewConversation(email);
         }
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
     public List<Conversation> conversations(Duration maxAge) {
-        String mbox;
+        if (Files.notExists(file)) {
+            log.info("Failed to open mbox file");
+            return new LinkedList<>();
+        }
+        var cutoff = Instant.now().minus(maxAge);
         try {
-            mbox = Files.readString(file, StandardCharsets.UTF_8);
+            var entries = readIndex();
+            if (entries.isEmpty()) {
+                log.info("Rebuilding index for " + file);
+                entries = Optional.of(rebuildIndex());
+            }
+
+            // Find the first message of the conversation that each message belongs to
+            var roots = new HashMap<String, IndexEntry>();
+            var included = new ArrayList<IndexEntry>();
+            for (var entry : entries.get()) {
+                var root = roots.getOrDefault(entry.inReplyTo, entry);
+                roots.putIfAbsent(entry.id, root);
+                if (root.date.isAfter(cutoff)) {
+                    included.add(entry);
+                }
+            }
+            if (included.isEmpty()) {
+                return new LinkedList<>();
+            }
+
+            var emails = new ArrayList<Email>();
+            try (var mbox = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (var entry : included) {
+                    parse(mbox, entry.offset, entry.length).ifPresent(emails::add);
+                }
+            }
+            return Mbox.conversations(emails).stream()
+                       .filter(email -> email.first().date().toInstant().isAfter(cutoff))
+                       .collect(Collectors.toList());
         } catch (IOException e) {
             log.info("Failed to open mbox file");
             log.throwing("MboxFileList", "conversations", e);
             return new LinkedList<>();
         }
-        var cutoff = Instant.now().minus(maxAge);
-        return Mbox.parseMbox(mbox).stream()
-                .filter(email -> email.first().date().toInstant().isAfter(cutoff))
-                .collect(Collectors.toList());
     }
 }
@@ -27,8 +27,11 @@ import org.openjdk.skara.test.TestMailmanServer;
 
 import org.junit.jupiter.api.Test;
 
-import java.io.IOException;
+import java.io.*;
+import java.net.*;
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -124,6 +127,40 @@ class MailmanTests {
         }
     }
 
+    @Test
+    void cachedAfterUpdate() throws IOException {
+        try (var testServer = new TestMailmanServer()) {
+            var listAddress = testServer.createList("test");
+            var mailmanServer = MailingListServerFactory.createMailmanServer(testServer.getArchive(), testServer.getSMTP(),
+                                                                             Duration.ZERO);
+            var mailmanList = mailmanServer.getList(listAddress);
+            var sender = EmailAddress.from("Test", "test@test.email");
+            var sentParent = Email.create(sender, "Subject", "Body")
+                                  .recipient(EmailAddress.parse(listAddress))
+                                  .build();
+            mailmanList.post(sentParent);
+            testServer.processIncoming();
+            assertEquals(1, mailmanList.conversations(Duration.ofDays(1)).size());
+
+            var replier = EmailAddress.from("Replier", "replier@test.email");
+            var sentReply = Email.create(replier, "Reply subject", "Reply body")
+                                 .recipient(EmailAddress.parse(listAddress))
+                                 .header("In-Reply-To", sentParent.id().toString())
+                                 .build();
+            mailmanList.post(sentReply);
+            testServer.processIncoming();
+
+            for (var i = 0; i < 2; i++) {
+                var conversations = mailmanList.conversations(Duration.ofDays(1));
+                assertEquals(i == 1, testServer.lastResponseCached());
+                assertEquals(1, conversations.size());
+                var conversation = conversations.get(0);
+                assertEquals(sentParent, conversation.first());
+                assertEquals(List.of(sentReply), conversation.replies(conversation.first()));
+            }
+        }
+    }
+
     @Test
     void interval() throws IOException {
         try (var testServer = new TestMailmanServer()) {
@@ -151,4 +188,24 @@ class MailmanTests {
             assertEquals(mail1, conversation.first());
         }
     }
+
+    @Test
+    void postFailure() throws IOException {
+        String smtp;
+        try (var socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            smtp = socket.getInetAddress().getHostAddress() + ":" + socket.getLocalPort();
+        }
+        try (var testServer = new TestMailmanServer()) {
+            var listAddress = testServer.createList("test");
+            var mailmanServer = MailingListServerFactory.createMailmanServer(testServer.getArchive(), smtp,
+                                                                             Duration.ZERO);
+            var mailmanList = mailmanServer.getList(listAddress);
+            var sender = EmailAddress.from("Test", "test@test.email");
+            var mail = Email.create(sender, "Subject", "Body")
+                            .recipient(EmailAddress.parse(listAddress))
+                            .build();
+            var error = assertThrows(ExecutionException.class, () -> mailmanList.post(mail).get());
+            assertTrue(error.getCause() instanceof IOException);
+        }
+    }
 }
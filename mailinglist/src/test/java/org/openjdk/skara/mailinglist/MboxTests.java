@@ -30,7 +30,8 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.time.Duration;
+import java.time.*;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -184,4 +185,85 @@ class MboxTests {
             assertTrue(conversation.first().body().contains("this point onwards"), conversation.first().body());
         }
     }
+
+    @Test
+    void windowsLineEndings() throws IOException {
+        try (var folder = new TemporaryDirectory()) {
+            var rawMbox = folder.path().resolve("test.mbox");
+            Files.writeString(rawMbox,
+                              "From test at example.com  Wed Aug 21 17:22:50 2019\r\n" +
+                                      "From: test at example.com (test at example.com)\r\n" +
+                                      "Date: Wed, 21 Aug 2019 17:22:50 +0000\r\n" +
+                                      "Subject: this is a test\r\n" +
+                                      "Message-ID: <abc123@example.com>\r\n" +
+                                      "\r\n" +
+                                      "First message\r\n" +
+                                      "\r\n" +
+                                      "From test at example.com  Wed Aug 21 17:32:50 2019\r\n" +
+                                      "From: test at example.com (test at example.com)\r\n" +
+                                      "Date: Wed, 21 Aug 2019 17:32:50 +0000\r\n" +
+                                      "Subject: Re: this is a test\r\n" +
+                                      "Message-ID: <def456@example.com>\r\n" +
+                                      "In-Reply-To: <abc123@example.com>\r\n" +
+                                      "\r\n" +
+                                      ">From the second message\r\n" +
+                                      "\r\n", StandardCharsets.UTF_8);
+            var mbox = MailingListServerFactory.createMboxFileServer(folder.path());
+            var list = mbox.getList("test");
+            var conversations = list.conversations(Duration.ofDays(365 * 100));
+            assertEquals(1, conversations.size());
+            var conversation = conversations.get(0);
+            assertEquals(2, conversation.allMessages().size());
+            assertEquals("this is a test", conversation.first().subject());
+            assertEquals("First message", conversation.first().body());
+            var reply = conversation.replies(conversation.first()).get(0);
+            assertEquals("From the second message", reply.body());
+        }
+    }
+
+    @Test
+    void index() throws IOException {
+        try (var folder = new TemporaryDirectory()) {
+            var mbox = MailingListServerFactory.createMboxFileServer(folder.path());
+            var list = mbox.getList("test");
+
+            var sender = EmailAddress.from("test", "test@test.mail");
+            var oldMail = Email.create(sender, "Old", "Old message")
+                               .date(ZonedDateTime.now().minusDays(10))
+                               .build();
+            list.post(oldMail);
+            var oldReply = Email.reply(oldMail, "Re: Old", "Recent reply").author(sender).build();
+            list.post(oldReply);
+            var sentMail = Email.create(sender, "Subject", "Message").build();
+            list.post(sentMail);
+            var reply = Email.reply(sentMail, "Re: Subject", "Reply\n\nFrom the reply").author(sender).build();
+            list.post(reply);
+
+            var index = folder.path().resolve("test.mbox.index");
+            var appended = Files.readAllLines(index);
+            assertEquals(4, appended.size());
+
+            var conversations = list.conversations(Duration.ofDays(1));
+            assertEquals(1, conversations.size());
+            var conversation = conversations.get(0);
+            assertEquals(List.of(sentMail, reply), conversation.allMessages());
+            assertEquals(2, list.conversations(Duration.ofDays(30)).size());
+
+            // A missing or outdated index is rebuilt
+            Files.delete(index);
+            assertEquals(conversations, list.conversations(Duration.ofDays(1)));
+            assertEquals(appended, Files.readAllLines(index));
+            Files.writeString(index, "0\t10\t0\t<a@b>\t\n");
+            assertEquals(conversations, list.conversations(Duration.ofDays(1)));
+            assertEquals(4, Files.readAllLines(index).size());
+
+            // Posting to a list with an outdated index does not extend it
+            Files.writeString(index, "0\t10\t0\t<a@b>\t\n");
+            var secondReply = Email.reply(sentMail, "Re: Subject", "Another reply").author(sender).build();
+            list.post(secondReply);
+            assertEquals(1, Files.readAllLines(index).size());
+            conversation = list.conversations(Duration.ofDays(1)).get(0);
+            assertEquals(List.of(sentMail, reply, secondReply), conversation.allMessages());
+        }
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.network;
+
+import org.openjdk.skara.json.*;
+
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.Flow;
+
+/**
+ * Publishes a JSON value as a request body. The value is serialized once, into the
+ * chunks that are then handed to the HTTP client, so that neither a String nor a single
+ * large array is created for it. Since the chunks are kept, the body can be published
+ * again when a request is retried.
+ */
+class JSONBodyPublisher implements HttpRequest.BodyPublisher {
+    private final long length;
+    private final HttpRequest.BodyPublisher delegate;
+
+    private static class ChunkCollector extends OutputStream {
+        private final List<byte[]> chunks = new ArrayList<>();
+        private long length = 0;
+
+        @Override
+        public void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            chunks.add(Arrays.copyOfRange(b, off, off + len));
+            length += len;
+        }
+    }
+
+    JSONBodyPublisher(JSONValue value) {
+        var collector = new ChunkCollector();
+        var writer = new JSONWriter(collector);
+        writer.write(value);
+        writer.flush();
+        length = collector.length;
+        delegate = HttpRequest.BodyPublishers.ofByteArrays(collector.chunks);
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        delegate.subscribe(subscriber);
+    }
+}
@@ -27,6 +27,7 @@ import org.openjdk.skara.json.*;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.*;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
 import java.util.logging.Logger;
@@ -67,6 +68,7 @@ public class RestRequest {
         private JSONValue body;
         private int maxPages;
         private ErrorTransform onError;
+        private JSONProjection projection;
 
         private QueryBuilder(RequestType queryType, String endpoint) {
             this.queryType = queryType;
@@ -75,6 +77,7 @@ public class RestRequest {
             body = null;
             maxPages = Integer.MAX_VALUE;
             onError = null;
+            projection = null;
         }
 
         private JSONValue composedBody() {
@@ -144,6 +147,17 @@ public class RestRequest {
             return this;
         }
 
+        /**
+         * Only decode the parts of the response that are selected by the given projection.
+         * For paginated results, the projection is applied to each element.
+         * @param projection
+         * @return
+         */
+        public QueryBuilder project(JSONProjection projection) {
+            this.projection = projection;
+            return this;
+        }
+
         public QueryBuilder header(String name, String value) {
             headers.put(name, value);
             return this;
@@ -158,6 +172,58 @@ public class RestRequest {
         }
     }
 
+    /**
+     * A response whose body has been received as bytes, presented with the body decoded
+     * as a String for error handlers.
+     */
+    private static class StringResponse implements HttpResponse<String> {
+        private final HttpResponse<byte[]> response;
+
+        StringResponse(HttpResponse<byte[]> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return response.previousResponse().map(StringResponse::new);
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return response.headers();
+        }
+
+        @Override
+        public String body() {
+            return new String(response.body(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Optional<javax.net.ssl.SSLSession> sslSession() {
+            return response.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return response.version();
+        }
+    }
+
     private final URI apiBase;
     private final AuthenticationGenerator authGen;
     private final Logger log = Logger.getLogger("org.openjdk.skara.host.network");
@@ -216,8 +282,8 @@ public class RestRequest {
         retryBackoffStep = duration;
     }
 
-    private HttpResponse<String> sendRequest(HttpRequest request) {
-        HttpResponse<String> response;
+    private HttpResponse<byte[]> sendRequest(HttpRequest request) {
+        HttpResponse<byte[]> response;
 
         var retryCount = 0;
         while (true) {
@@ -225,7 +291,7 @@ public class RestRequest {
                 var client = HttpClient.newBuilder()
                                        .connectTimeout(Duration.ofSeconds(10))
                                        .build();
-                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
                 break;
             } catch (IOException | InterruptedException e) {
                 if (retryCount < 5) {
@@ -244,21 +310,36 @@ public class RestRequest {
         return response;
     }
 
-    private JSONValue parseResponse(HttpResponse<String> response) {
-        if (response.body().isEmpty()) {
+    private JSONValue parseResponse(HttpResponse<byte[]> response, JSONProjection projection) {
+        if (response.body().length == 0) {
             return JSON.of();
         }
+        if (projection != null) {
+            return JSON.parse(response.body(), projection);
+        }
         return JSON.parse(response.body());
     }
 
-    private Optional<JSONValue> transformBadResponse(HttpResponse<String> response, QueryBuilder queryBuilder) {
+    private void addElements(HttpResponse<byte[]> response, JSONProjection projection, List<JSONValue> elements) {
+        if (response.body().length == 0) {
+            throw new IllegalStateException("Unsupported conversion to array");
+        }
+        var reader = new JSONReader(response.body());
+        if (projection != null) {
+            projection.read(reader).asArray().forEach(elements::add);
+        } else {
+            reader.elements().forEachRemaining(elements::add);
+        }
+    }
+
+    private Optional<JSONValue> transformBadResponse(HttpResponse<byte[]> response, QueryBuilder queryBuilder) {
         if (response.statusCode() >= 400) {
             if (queryBuilder.onError == null) {
                 log.warning(queryBuilder.toString());
-                log.warning(response.body());
+                log.warning(new String(response.body(), StandardCharsets.UTF_8));
                 throw new RuntimeException("Request returned bad status: " + response.statusCode());
             } else {
-                return Optional.of(queryBuilder.onError.onError(response));
+                return Optional.of(queryBuilder.onError.onError(new StringResponse(response)));
             }
         } else {
             return Optional.empty();
@@ -284,7 +365,7 @@ public class RestRequest {
             requestBuilder.headers(authGen.getAuthHeaders().toArray(new String[0]));
         }
         if (body != null) {
-            requestBuilder.method(requestType.name(), HttpRequest.BodyPublishers.ofString(body.toString()));
+            requestBuilder.method(requestType.name(), new JSONBodyPublisher(body));
         }
         headers.forEach(requestBuilder::header);
         return requestBuilder.build();
@@ -308,16 +389,17 @@ public class RestRequest {
 
         var link = response.headers().firstValue("Link");
         if (link.isEmpty() || queryBuilder.maxPages < 2) {
-            return parseResponse(response);
+            return parseResponse(response, queryBuilder.projection);
         }
 
-        // If a pagination header is present, it means that the returned data type must be an array
-        var ret = new LinkedList<JSONArray>();
-        var parsedResponse = parseResponse(response).asArray();
-        ret.add(parsedResponse);
+        // If a pagination header is present, it means that the returned data type must be an array.
+        // The elements of all pages are collected directly, without building an array per page.
+        var elements = new ArrayList<JSONValue>();
+        addElements(response, queryBuilder.projection, elements);
+        var pages = 1;
 
         var links = parseLink(link.get());
-        while (links.containsKey("next") && ret.size() < queryBuilder.maxPages) {
+        while (links.containsKey("next") && pages < queryBuilder.maxPages) {
             var uri = URI.create(links.get("next"));
             request = getHttpRequestBuilder(uri).GET().build();
             response = sendRequest(request);
@@ -332,18 +414,18 @@ public class RestRequest {
             links = parseLink(link.orElseThrow(
                     () -> new RuntimeException("Initial paginated response no longer paginated")));
 
-            parsedResponse = parseResponse(response).asArray();
-            ret.add(parsedResponse);
+            addElements(response, queryBuilder.projection, elements);
+            pages++;
         }
 
-        return new JSONArray(ret.stream().flatMap(JSONArray::stream).toArray(JSONValue[]::new));
+        return new JSONArray(elements);
     }
 
     private String executeUnparsed(QueryBuilder queryBuilder) {
         var request = createRequest(queryBuilder.queryType, queryBuilder.endpoint, queryBuilder.composedBody(),
                                     queryBuilder.params, queryBuilder.headers);
         var response = sendRequest(request);
-        return response.body();
+        return new String(response.body(), StandardCharsets.UTF_8);
     }
 
     public QueryBuilder get(String endpoint) {
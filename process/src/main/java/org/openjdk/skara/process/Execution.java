@@ -23,10 +23,11 @@
 package org.openjdk.skara.process;
 
 import java.io.*;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 public class Execution implements AutoCloseable {
@@ -34,19 +35,93 @@ public class Execution implements AutoCloseable {
     private final ProcessBuilder processBuilder;
     private final Process.OutputOption outputOption;
     private final Duration timeout;
+    private final Consumer<String> stdoutConsumer;
 
     private final Logger log = Logger.getLogger("org.openjdk.skara.process");
 
+    // Only the tail of stderr is kept, it is only used to describe failures
+    private static final int MAX_STDERR_LINES = 1000;
+    // How long to wait for the output to be drained after the process has exited
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final ExecutorService readers = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "process-output-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private String cmd;
     private int status = 0;
-    private File stdoutFile;
-    private File stderrFile;
+    private OutputReader stdoutReader;
+    private OutputReader stderrReader;
 
     private boolean finished;
     private Result result;
     private Throwable exception;
     private java.lang.Process process;
 
+    /**
+     * Reads the lines written to a process output stream as they are produced, so that the
+     * process never blocks on a full pipe. Lines are either kept in memory, optionally only
+     * the most recent ones, or passed on to a consumer.
+     */
+    private static class OutputReader implements Runnable {
+        private final InputStream stream;
+        private final Consumer<String> consumer;
+        private final int maxLines;
+        private final ArrayDeque<String> lines = new ArrayDeque<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private int dropped = 0;
+
+        OutputReader(InputStream stream, Consumer<String> consumer, int maxLines) {
+            this.stream = stream;
+            this.consumer = consumer;
+            this.maxLines = maxLines;
+        }
+
+        @Override
+        public void run() {
+            try (var reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (consumer != null) {
+                        consumer.accept(line);
+                        continue;
+                    }
+                    synchronized (lines) {
+                        if (lines.size() == maxLines) {
+                            lines.removeFirst();
+                            dropped++;
+                        }
+                        lines.addLast(line);
+                    }
+                }
+            } catch (IOException e) {
+                // The stream is closed when the process is killed
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Waits for the end of the stream, returns false if it wasn't reached in time.
+         */
+        boolean await(Duration wait) throws InterruptedException {
+            return done.await(wait.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        List<String> lines() {
+            synchronized (lines) {
+                var result = new ArrayList<String>(lines.size() + 1);
+                if (dropped > 0) {
+                    result.add("[" + dropped + " earlier lines omitted]");
+                }
+                result.addAll(lines);
+                return result;
+            }
+        }
+    }
+
     public static class CheckedResult {
 
         protected final int status;
@@ -105,26 +180,17 @@ public class Execution implements AutoCloseable {
         }
     }
 
-    private void prepareRedirects() throws IOException {
-
+    private void prepareRedirects() {
         if (outputOption == Process.OutputOption.CAPTURE) {
-            stdoutFile = File.createTempFile("stdout", ".txt");
-            processBuilder.redirectOutput(stdoutFile);
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.PIPE);
+            processBuilder.redirectError(ProcessBuilder.Redirect.PIPE);
         } else if (outputOption == Process.OutputOption.INHERIT) {
             processBuilder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
-        } else {
-            processBuilder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
-        }
-
-        if (outputOption == Process.OutputOption.CAPTURE) {
-            stderrFile = File.createTempFile("stderr", ".txt");
-            processBuilder.redirectError(stderrFile);
-        } else if (outputOption == Process.OutputOption.INHERIT) {
             processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
         } else {
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
             processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
         }
-
     }
 
     private void startProcess() throws IOException {
@@ -134,53 +200,66 @@ public class Execution implements AutoCloseable {
         prepareRedirects();
 
         process = processBuilder.start();
+        if (outputOption == Process.OutputOption.CAPTURE) {
+            stdoutReader = new OutputReader(process.getInputStream(), stdoutConsumer, Integer.MAX_VALUE);
+            stderrReader = new OutputReader(process.getErrorStream(), null, MAX_STDERR_LINES);
+            readers.execute(stdoutReader);
+            readers.execute(stderrReader);
+        }
+    }
+
+    /**
+     * Kills the process along with any processes it has started, such as the helpers that
+     * git uses for remote operations, and reaps it. Descendants are collected first since
+     * they are reparented once the process itself is gone.
+     */
+    private void terminate() throws InterruptedException {
+        var descendants = process.descendants().toArray(ProcessHandle[]::new);
+        process.destroyForcibly();
+        for (var descendant : descendants) {
+            descendant.destroyForcibly();
+        }
+        process.waitFor();
     }
 
     private void waitForProcess() throws IOException, InterruptedException {
         var terminated = this.process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
         if (!terminated) {
             log.warning("Command '" + cmd + "' didn't finish in " + timeout + ", attempting to terminate...");
-            this.process.destroyForcibly().waitFor();
+            terminate();
             throw new InterruptedException("Command '" + cmd + "' didn't finish in " + timeout + ", terminated");
         }
         status = this.process.exitValue();
     }
 
-    private List<String> content(File f) {
-        var p = f.toPath();
-        if (Files.exists(p)) {
-            try {
-                return Files.readAllLines(p);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        }
-        return new ArrayList<String>();
-    }
-
     private Result createResult() {
         List<String> stdout = new ArrayList<>();
         List<String> stderr = new ArrayList<>();
 
-        if (outputOption == Process.OutputOption.CAPTURE) {
-            stdout = content(stdoutFile);
-            if (!stdoutFile.delete()) {
-                log.warning("Failed to delete stdout file buffer: " + stdoutFile.toString());
-            }
-
-            stderr = content(stderrFile);
-            if (!stderrFile.delete()) {
-                log.warning("Failed to delete stderr file buffer: " + stderrFile.toString());
+        if (stdoutReader != null) {
+            try {
+                // A descendant of the process may still hold the pipes open
+                var stdoutDrained = stdoutReader.await(DRAIN_TIMEOUT);
+                var stderrDrained = stderrReader.await(DRAIN_TIMEOUT);
+                if (!stdoutDrained || !stderrDrained) {
+                    log.warning("Output from '" + cmd + "' wasn't fully read in " + DRAIN_TIMEOUT + ", result is incomplete");
+                }
+                stdout = stdoutReader.lines();
+                stderr = stderrReader.lines();
+            } catch (InterruptedException e) {
+                status = -1;
+                exception = e;
             }
         }
 
         return new Result(cmd, stdout, stderr, status, exception);
     }
 
-    Execution(ProcessBuilder processBuilder, Process.OutputOption outputOption, Duration timeout) {
+    Execution(ProcessBuilder processBuilder, Process.OutputOption outputOption, Duration timeout, Consumer<String> stdoutConsumer) {
         this.processBuilder = processBuilder;
         this.outputOption = outputOption;
         this.timeout = timeout;
+        this.stdoutConsumer = stdoutConsumer;
 
         finished = false;
 
@@ -229,7 +308,14 @@ public class Execution implements AutoCloseable {
     public void close() {
         synchronized (this) {
             if (!finished) {
-                // FIXME: stop process
+                if (process != null && process.isAlive()) {
+                    log.fine("Command '" + cmd + "' closed while still running, terminating...");
+                    try {
+                        terminate();
+                    } catch (InterruptedException e) {
+                        exception = e;
+                    }
+                }
                 finished = true;
                 status = -1;
                 result = createResult();
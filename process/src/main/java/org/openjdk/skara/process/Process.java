@@ -25,6 +25,7 @@ package org.openjdk.skara.process;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class Process {
@@ -50,6 +51,7 @@ public class Process {
         private final OutputOption outputOption;
         private ProcessBuilderSetup processBuilderSetup;
         private Duration timeout;
+        private Consumer<String> stdoutConsumer;
 
         Description(Process.OutputOption outputOption, String... command) {
             this.outputOption = outputOption;
@@ -72,6 +74,18 @@ public class Process {
             return this;
         }
 
+        /**
+         * Pass each line written to stdout to the consumer as soon as it is available,
+         * instead of collecting all of them in the result. Only applies to captured
+         * output, the consumer is called from a separate thread.
+         * @param consumer
+         * @return
+         */
+        public Description stdout(Consumer<String> consumer) {
+            this.stdoutConsumer = consumer;
+            return this;
+        }
+
         public Description workdir(Path workdir) {
             getCurrentProcessBuilderSetup().workdir = workdir;
             return this;
@@ -90,7 +104,7 @@ public class Process {
                 builder.directory(processBuilderSetup.workdir.toFile());
             }
 
-            return new Execution(builder, outputOption, timeout);
+            return new Execution(builder, outputOption, timeout, stdoutConsumer);
         }
 
     }
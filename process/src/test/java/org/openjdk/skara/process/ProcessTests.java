@@ -28,6 +28,7 @@ import org.junit.jupiter.api.condition.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.time.Duration;
+import java.util.*;
 import java.util.logging.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -98,4 +99,58 @@ class ProcessTests {
             assertNotEquals(0, result.status());
         }
     }
+
+    @Test
+    void largeOutput() {
+        try (var p = Process.capture("sh", "-c", "seq 1 200000; seq 1 50000 >&2").execute()) {
+            var result = p.check();
+            assertEquals(200000, result.stdout().size());
+            assertEquals("1", result.stdout().get(0));
+            assertEquals("200000", result.stdout().get(199999));
+
+            // Only the tail of stderr is kept
+            assertTrue(result.stderr().size() < 50000);
+            assertEquals("50000", result.stderr().get(result.stderr().size() - 1));
+        }
+    }
+
+    @Test
+    void streamOutput() {
+        var lines = Collections.synchronizedList(new ArrayList<String>());
+        try (var p = Process.capture("seq", "1", "5")
+                            .stdout(lines::add)
+                            .execute()) {
+            var result = p.check();
+            assertEquals(0, result.stdout().size());
+            assertEquals(List.of("1", "2", "3", "4", "5"), lines);
+        }
+    }
+
+    @Test
+    void timeoutTerminatesChildren() {
+        try (var p = Process.capture("sh", "-c", "sleep 10000 & sleep 10000; wait")
+                            .timeout(Duration.ofMillis(500))
+                            .execute()) {
+            var start = System.currentTimeMillis();
+            var result = p.await();
+            assertEquals(-1, result.status());
+            // The background sleep keeps the output pipe open unless it is killed as well
+            assertTrue(System.currentTimeMillis() - start < 10000);
+        }
+    }
+
+    @Test
+    void closeTerminatesProcess() throws IOException, InterruptedException {
+        var pidFile = Files.createTempFile("closeterminates", "pid");
+        Optional<ProcessHandle> handle;
+        try (var p = Process.capture("sh", "-c", "echo $$ > " + pidFile + "; exec sleep 10000").execute()) {
+            while (Files.readString(pidFile).isBlank()) {
+                Thread.sleep(10);
+            }
+            handle = ProcessHandle.of(Long.parseLong(Files.readString(pidFile).strip()));
+            assertTrue(handle.isPresent());
+        }
+        assertFalse(handle.get().isAlive());
+        Files.delete(pidFile);
+    }
 }
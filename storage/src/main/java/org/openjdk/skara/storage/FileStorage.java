@@ -30,6 +30,7 @@ import java.util.*;
 class FileStorage<T> implements Storage<T> {
     private final Path file;
     private String current;
+    private Set<T> currentItems;
     private StorageSerializer<T> serializer;
     private StorageDeserializer<T> deserializer;
 
@@ -48,7 +49,10 @@ class FileStorage<T> implements Storage<T> {
                 current = "";
             }
         }
-        return Collections.unmodifiableSet(deserializer.deserialize(current));
+        if (currentItems == null) {
+            currentItems = Collections.unmodifiableSet(deserializer.deserialize(current));
+        }
+        return currentItems;
     }
 
     @Override
@@ -63,5 +67,6 @@ class FileStorage<T> implements Storage<T> {
             throw new UncheckedIOException(e);
         }
         current = updated;
+        currentItems = null;
     }
 }
@@ -26,10 +26,14 @@ import org.openjdk.skara.forge.HostedRepository;
 import org.openjdk.skara.vcs.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.*;
 import java.util.*;
+import java.util.logging.Logger;
 
 class HostedRepositoryStorage<T> implements Storage<T> {
+    private final Logger log = Logger.getLogger("org.openjdk.skara.storage");
     private final HostedRepository hostedRepository;
     private final String ref;
     private final String fileName;
@@ -39,12 +43,23 @@ class HostedRepositoryStorage<T> implements Storage<T> {
     private final Repository localRepository;
     private final StorageSerializer<T> serializer;
     private final StorageDeserializer<T> deserializer;
+    private final Duration writeBehind;
+    private final Path journal;
 
     private Hash hash;
     private RepositoryStorage<T> repositoryStorage;
     private Set<T> current;
 
+    // Updates that have not yet been pushed in write-behind mode
+    private final List<T> pending = new ArrayList<>();
+    private Set<T> pendingCurrent;
+    private Instant pendingSince;
+
     HostedRepositoryStorage(HostedRepository repository, Path localStorage, String ref, String fileName, String authorName, String authorEmail, String message, StorageSerializer<T> serializer, StorageDeserializer<T> deserializer) {
+        this(repository, localStorage, ref, fileName, authorName, authorEmail, message, null, null, serializer, deserializer);
+    }
+
+    HostedRepositoryStorage(HostedRepository repository, Path localStorage, String ref, String fileName, String authorName, String authorEmail, String message, Duration writeBehind, Path journalFolder, StorageSerializer<T> serializer, StorageDeserializer<T> deserializer) {
         this.hostedRepository = repository;
         this.ref = ref;
         this.fileName = fileName;
@@ -53,6 +68,8 @@ class HostedRepositoryStorage<T> implements Storage<T> {
         this.message = message;
         this.serializer = serializer;
         this.deserializer = deserializer;
+        this.writeBehind = writeBehind;
+        this.journal = journalFolder == null ? null : journalFolder.resolve(fileName + ".pending");
 
         try {
             Repository localRepository;
@@ -69,6 +86,25 @@ class HostedRepositoryStorage<T> implements Storage<T> {
             hash = localRepository.head();
             repositoryStorage = new RepositoryStorage<>(localRepository, fileName, authorName, authorEmail, message, serializer, deserializer);
             current = current();
+
+            // Pick up updates that were deferred but never pushed, as long as they were made
+            // on top of what is still the current remote state
+            if (journal != null && Files.exists(journal)) {
+                var content = Files.readString(journal, StandardCharsets.UTF_8);
+                var separator = content.indexOf('\n');
+                var base = separator == -1 ? content : content.substring(0, separator);
+                if (!base.equals(hash.hex())) {
+                    log.warning("Discarding pending updates for " + fileName + " - the remote has changed since " + base);
+                    Files.delete(journal);
+                } else {
+                    var journaled = deserializer.deserialize(content.substring(separator + 1));
+                    Files.delete(journal);
+                    defer(journaled);
+                    if (writeBehind == null) {
+                        flush();
+                    }
+                }
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -76,11 +112,79 @@ class HostedRepositoryStorage<T> implements Storage<T> {
 
     @Override
     public Set<T> current() {
+        if (pendingCurrent != null) {
+            return pendingCurrent;
+        }
         return repositoryStorage.current();
     }
 
+    /**
+     * Records the updates in the journal and in the in-memory view of the storage, without
+     * committing them.
+     */
+    private void defer(Collection<T> items) throws IOException {
+        var existing = current();
+        var added = new ArrayList<T>();
+        for (var item : items) {
+            if (!existing.contains(item)) {
+                added.add(item);
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+
+        pending.addAll(added);
+        if (journal != null) {
+            // The journal starts with the remote state that the pending updates were made on
+            Files.createDirectories(journal.getParent());
+            var tmp = journal.resolveSibling(journal.getFileName() + ".tmp");
+            Files.writeString(tmp, hash.hex() + "\n" + serializer.serialize(pending, Set.of()), StandardCharsets.UTF_8);
+            Files.move(tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        pendingCurrent = Collections.unmodifiableSet(deserializer.deserialize(serializer.serialize(added, existing)));
+        if (pendingSince == null) {
+            pendingSince = Instant.now();
+        }
+    }
+
     @Override
     public void put(Collection<T> items) {
+        if (writeBehind == null) {
+            push(items);
+            return;
+        }
+
+        try {
+            defer(items);
+            if (pendingSince != null && Duration.between(pendingSince, Instant.now()).compareTo(writeBehind) >= 0) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        push(pending);
+        pending.clear();
+        pendingCurrent = null;
+        pendingSince = null;
+        if (journal != null) {
+            try {
+                Files.deleteIfExists(journal);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void push(Collection<T> items) {
         int retryCount = 0;
         IOException lastException = null;
         Hash lastRemoteHash = null;
@@ -108,6 +212,7 @@ class HostedRepositoryStorage<T> implements Storage<T> {
                     var remoteHash = localRepository.fetch(hostedRepository.url(), ref);
                     if (!remoteHash.equals(lastRemoteHash)) {
                         localRepository.checkout(remoteHash, true);
+                        hash = remoteHash;
                         repositoryStorage = new RepositoryStorage<>(localRepository, fileName, authorName, authorEmail, message, serializer, deserializer);
                         lastRemoteHash = remoteHash;
 
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.storage;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A storage that keeps the current items in memory and records updates by appending the
+ * added items to a log next to the stored file, instead of rewriting the file. When the
+ * log has grown larger than the stored file, the log is compacted into the stored file.
+ *
+ * The stored file has the same format as for {@link FileStorage}. Each log record holds the
+ * added items serialized on their own, and the records are merged into the stored items
+ * in order when the storage is opened. A record that was only partially written is
+ * discarded.
+ *
+ * If a key function is given, an added item replaces the current item with the same key, and
+ * other items are kept. Updates are then applied to the in-memory set directly. Without a key
+ * function, the serializer decides how added items are merged with the current ones, which
+ * requires serializing and deserializing all items on every update.
+ *
+ * With a key function, {@link #current()} returns a live, unmodifiable view of the in-memory
+ * set rather than a snapshot, so that updates do not have to copy all items. The view reflects
+ * later updates, and must not be iterated while items are being put.
+ */
+class LogStorage<T> implements Storage<T> {
+    private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final Path log;
+    private final StorageSerializer<T> serializer;
+    private final StorageDeserializer<T> deserializer;
+    private final Function<T, ?> key;
+
+    private Set<T> items;
+    private Map<Object, T> itemsByKey;
+    private Set<T> current;
+    private long fileSize;
+    private long logSize;
+
+    LogStorage(Path file, StorageSerializer<T> serializer, StorageDeserializer<T> deserializer) {
+        this(file, serializer, deserializer, null);
+    }
+
+    LogStorage(Path file, StorageSerializer<T> serializer, StorageDeserializer<T> deserializer, Function<T, ?> key) {
+        this.file = file;
+        this.log = file.resolveSibling(file.getFileName() + ".log");
+        this.serializer = serializer;
+        this.deserializer = deserializer;
+        this.key = key;
+    }
+
+    private static String readString(Path path) {
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Returns the records in the log, discarding a partially written last record.
+     */
+    private List<String> readLog() throws IOException {
+        var records = new ArrayList<String>();
+        if (!Files.exists(log)) {
+            return records;
+        }
+        var bytes = Files.readAllBytes(log);
+        var pos = 0;
+        while (pos < bytes.length) {
+            var start = pos;
+            var length = -1;
+            while (pos < bytes.length && bytes[pos] != '\n') {
+                pos++;
+            }
+            try {
+                length = Integer.parseInt(new String(bytes, start, pos - start, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                // Handled below
+            }
+            if (length < 0 || pos + 1 + length + 1 > bytes.length || bytes[pos + 1 + length] != '\n') {
+                try (var channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                    channel.truncate(start);
+                }
+                pos = start;
+                break;
+            }
+            records.add(new String(bytes, pos + 1, length, StandardCharsets.UTF_8));
+            pos += 1 + length + 1;
+        }
+        logSize = pos;
+        return records;
+    }
+
+    private void setItems(Set<T> updated) {
+        items = new HashSet<>(updated);
+        current = Collections.unmodifiableSet(items);
+        if (key != null) {
+            itemsByKey = new HashMap<>();
+            for (var item : items) {
+                itemsByKey.put(key.apply(item), item);
+            }
+        }
+    }
+
+    /**
+     * Returns the items that result from merging added into the current items, as decided
+     * by the serializer.
+     */
+    private Set<T> serializerMerge(Collection<T> added) {
+        return deserializer.deserialize(serializer.serialize(added, current));
+    }
+
+    private void merge(Collection<T> added) {
+        if (key == null) {
+            setItems(serializerMerge(added));
+            return;
+        }
+        for (var item : added) {
+            var replaced = itemsByKey.put(key.apply(item), item);
+            if (replaced != null) {
+                items.remove(replaced);
+            }
+            items.add(item);
+        }
+    }
+
+    private void load() {
+        var stored = readString(file);
+        fileSize = stored.getBytes(StandardCharsets.UTF_8).length;
+        setItems(deserializer.deserialize(stored));
+        try {
+            var added = new ArrayList<T>();
+            for (var record : readLog()) {
+                added.addAll(deserializer.deserialize(record));
+            }
+            if (!added.isEmpty()) {
+                merge(added);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(String record) throws IOException {
+        var payload = record.getBytes(StandardCharsets.UTF_8);
+        var header = (payload.length + "\n").getBytes(StandardCharsets.US_ASCII);
+        var bytes = new byte[header.length + payload.length + 1];
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        System.arraycopy(payload, 0, bytes, header.length, payload.length);
+        bytes[bytes.length - 1] = '\n';
+        Files.write(log, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        logSize += bytes.length;
+    }
+
+    /**
+     * Writes all current items to the stored file and empties the log. If this is
+     * interrupted after the stored file has been replaced, the records in the log are
+     * merged again the next time the storage is opened, which has no effect.
+     */
+    private void compact() throws IOException {
+        var serialized = serializer.serialize(List.of(), current).getBytes(StandardCharsets.UTF_8);
+        var tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, serialized);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(log);
+        fileSize = serialized.length;
+        logSize = 0;
+    }
+
+    @Override
+    public Set<T> current() {
+        if (current == null) {
+            load();
+        }
+        return current;
+    }
+
+    @Override
+    public void put(Collection<T> items) {
+        var existing = current();
+        var added = new ArrayList<T>();
+        for (var item : items) {
+            if (!existing.contains(item)) {
+                added.add(item);
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+
+        Set<T> updated = null;
+        if (key == null) {
+            updated = serializerMerge(added);
+            if (updated.equals(existing)) {
+                return;
+            }
+        }
+        try {
+            append(serializer.serialize(added, Set.of()));
+            if (updated != null) {
+                setItems(updated);
+            } else {
+                merge(added);
+            }
+            if (logSize > Math.max(MIN_COMPACTION_SIZE, fileSize)) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -43,4 +43,11 @@ public interface Storage<T> {
     default void put(T item) {
         put(List.of(item));
     }
+
+    /**
+     * Write any updates that have been deferred to permanent storage. Storages that write
+     * updates immediately have nothing to do.
+     */
+    default void flush() {
+    }
 }
@@ -25,6 +25,8 @@ package org.openjdk.skara.storage;
 import org.openjdk.skara.forge.HostedRepository;
 
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Function;
 
 public class StorageBuilder<T> {
     private final String fileName;
@@ -34,8 +36,11 @@ public class StorageBuilder<T> {
     private String remoteAuthorName;
     private String remoteAuthorEmail;
     private String remoteMessage;
+    private Duration remoteWriteBehind;
+    private Path remoteJournalFolder;
     private StorageSerializer<T> serializer;
     private StorageDeserializer<T> deserializer;
+    private Function<T, ?> key;
 
     /**
      * Create a StorageBuilder instance that will use the given fileName to store data.
@@ -66,6 +71,19 @@ public class StorageBuilder<T> {
         return this;
     }
 
+    /**
+     * Set the key of stored items. An added item replaces the existing item with the same key,
+     * the serializer must merge items the same way. Allows local storage to be updated without
+     * serializing all items. The current items of such a local storage are then a live view that
+     * reflects later updates.
+     * @param key
+     * @return
+     */
+    public StorageBuilder<T> key(Function<T, ?> key) {
+        this.key = key;
+        return this;
+    }
+
     /**
      * Attach a remote repository to the Storage where any changes will be added as commits.
      * @param repository
@@ -87,6 +105,23 @@ public class StorageBuilder<T> {
         return this;
     }
 
+    /**
+     * Defer committing and pushing changes to the remote repository, so that updates made close
+     * to each other end up in a single commit. Deferred changes are pushed by the first update
+     * made after the given time has passed, or by an explicit flush. Until then they are kept in
+     * a journal in the given folder, which should be persistent, so that they survive a restart.
+     * A journal is only picked up again if the remote repository has not changed since it was
+     * written.
+     * @param window
+     * @param journalFolder
+     * @return
+     */
+    public StorageBuilder<T> writeBehind(Duration window, Path journalFolder) {
+        remoteWriteBehind = window;
+        remoteJournalFolder = journalFolder;
+        return this;
+    }
+
     /**
      * Create a Storage instance.
      * @param localFolder
@@ -94,9 +129,9 @@ public class StorageBuilder<T> {
      */
     public Storage<T> materialize(Path localFolder) {
         if (remoteRepository != null) {
-            return new HostedRepositoryStorage<>(remoteRepository, localFolder, remoteRef, fileName, remoteAuthorName, remoteAuthorEmail, remoteMessage, serializer, deserializer);
+            return new HostedRepositoryStorage<>(remoteRepository, localFolder, remoteRef, fileName, remoteAuthorName, remoteAuthorEmail, remoteMessage, remoteWriteBehind, remoteJournalFolder, serializer, deserializer);
         } else {
-            return new FileStorage<>(localFolder.resolve(fileName), serializer, deserializer);
+            return new LogStorage<>(localFolder.resolve(fileName), serializer, deserializer, key);
         }
     }
 }
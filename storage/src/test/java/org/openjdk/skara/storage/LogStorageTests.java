@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.storage;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.skara.test.TemporaryDirectory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogStorageTests {
+    private LogStorage<String> stringStorage(Path fileName) {
+        return new LogStorage<>(fileName, (added, cur) -> Stream.concat(cur.stream(), added.stream())
+                                                                .sorted()
+                                                                .distinct()
+                                                                .collect(Collectors.joining(";")),
+                                cur -> Arrays.stream(cur.split(";"))
+                                             .filter(str -> !str.isEmpty())
+                                             .collect(Collectors.toSet()));
+    }
+
+    // Entries are "key=value", and an added entry replaces an existing one with the same key
+    private LogStorage<String> keyedStorage(Path fileName) {
+        return keyedStorage(fileName, false);
+    }
+
+    private LogStorage<String> keyedStorage(Path fileName, boolean withKey) {
+        return new LogStorage<>(fileName, (added, cur) -> {
+                                    var entries = new TreeMap<String, String>();
+                                    for (var entry : cur) {
+                                        entries.put(entry.split("=")[0], entry);
+                                    }
+                                    for (var entry : added) {
+                                        entries.put(entry.split("=")[0], entry);
+                                    }
+                                    return String.join("\n", entries.values());
+                                },
+                                cur -> cur.lines().collect(Collectors.toSet()),
+                                withKey ? entry -> entry.split("=")[0] : null);
+    }
+
+    @Test
+    void simple() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var storage = stringStorage(dir.path().resolve("storage.txt"));
+
+            assertEquals(Set.of(), storage.current());
+            storage.put("hello there");
+            assertEquals(Set.of("hello there"), storage.current());
+            storage.put(List.of("hello", "there"));
+            assertEquals(Set.of("hello there", "hello", "there"), storage.current());
+        }
+    }
+
+    @Test
+    void retained() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var file = dir.path().resolve("storage.txt");
+            var storage = stringStorage(file);
+            storage.put("hello");
+            storage.put("there");
+
+            // The updates are only in the log so far
+            assertFalse(Files.exists(file));
+            assertEquals(Set.of("hello", "there"), stringStorage(file).current());
+        }
+    }
+
+    @Test
+    void readsFileStorage() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var file = dir.path().resolve("storage.txt");
+            Files.writeString(file, "hello;there");
+            var storage = stringStorage(file);
+            assertEquals(Set.of("hello", "there"), storage.current());
+            storage.put("again");
+            assertEquals(Set.of("hello", "there", "again"), stringStorage(file).current());
+        }
+    }
+
+    @Test
+    void replacedEntries() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var file = dir.path().resolve("storage.txt");
+            var storage = keyedStorage(file);
+            storage.put(List.of("a=1", "b=1"));
+            storage.put("a=2");
+            storage.put("a=3");
+            assertEquals(Set.of("a=3", "b=1"), storage.current());
+            assertEquals(Set.of("a=3", "b=1"), keyedStorage(file).current());
+        }
+    }
+
+    @Test
+    void replacedEntriesByKey() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var file = dir.path().resolve("storage.txt");
+            var storage = keyedStorage(file, true);
+            storage.put(List.of("a=1", "b=1"));
+            storage.put("a=2");
+            storage.put("a=3");
+            storage.put("c=1");
+            assertEquals(Set.of("a=3", "b=1", "c=1"), storage.current());
+            assertEquals(Set.of("a=3", "b=1", "c=1"), keyedStorage(file, true).current());
+            assertEquals(Set.of("a=3", "b=1", "c=1"), keyedStorage(file, false).current());
+        }
+    }
+
+    @Test
+    void keyedCurrentIsLive() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var file = dir.path().resolve("storage.txt");
+            var storage = keyedStorage(file, true);
+            storage.put(List.of("a=1", "b=1"));
+            var current = storage.current();
+            storage.put("a=2");
+            assertSame(current, storage.current());
+            assertEquals(Set.of("a=2", "b=1"), current);
+            assertThrows(UnsupportedOperationException.class, () -> current.add("c=1"));
+        }
+    }
+
+    @Test
+    void compaction() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var file = dir.path().resolve("storage.txt");
+            var log = dir.path().resolve("storage.txt.log");
+            var storage = stringStorage(file);
+            var expected = new HashSet<String>();
+            for (var i = 0; i < 2000; i++) {
+                var item = String.format("item %05d with some additional content", i);
+                storage.put(item);
+                expected.add(item);
+                assertTrue(!Files.exists(log) || Files.size(log) < 2 * 64 * 1024);
+            }
+            assertTrue(Files.exists(file));
+            assertEquals(expected, storage.current());
+            assertEquals(expected, stringStorage(file).current());
+        }
+    }
+
+    @Test
+    void partialRecordIsDiscarded() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var file = dir.path().resolve("storage.txt");
+            var log = dir.path().resolve("storage.txt.log");
+            var storage = stringStorage(file);
+            storage.put("hello");
+            storage.put("there");
+
+            var size = Files.size(log);
+            Files.writeString(log, "12\nunfini", StandardOpenOption.APPEND);
+            var recovered = stringStorage(file);
+            assertEquals(Set.of("hello", "there"), recovered.current());
+            assertEquals(size, Files.size(log));
+
+            recovered.put("again");
+            assertEquals(Set.of("hello", "there", "again"), stringStorage(file).current());
+        }
+    }
+}
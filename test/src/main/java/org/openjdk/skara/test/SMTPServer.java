@@ -27,19 +27,23 @@ import org.openjdk.skara.email.*;
 import java.io.*;
 import java.net.*;
 import java.time.*;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 public class SMTPServer implements AutoCloseable {
     private final ServerSocket serverSocket;
     private final Thread acceptThread;
     private final ConcurrentLinkedDeque<Email> emails = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger sessions = new AtomicInteger();
 
     private static Pattern ehloPattern = Pattern.compile("^EHLO .*$");
     private static Pattern mailFromPattern = Pattern.compile("^MAIL FROM:.*$");
     private static Pattern rcptToPattern = Pattern.compile("^RCPT TO:<.*$");
     private static Pattern dataPattern = Pattern.compile("^DATA$");
     private static Pattern messageEndPattern = Pattern.compile("^\\.$");
+    private static Pattern resetPattern = Pattern.compile("^RSET$");
     private static Pattern quitPattern = Pattern.compile("^QUIT$");
 
     private final static Pattern encodeQuotedPrintablePattern = Pattern.compile("([^\\x00-\\x7f]+)");
@@ -47,18 +51,43 @@ public class SMTPServer implements AutoCloseable {
 
     private class AcceptThread implements Runnable {
         private void handleSession(SMTPSession session) throws IOException {
-            session.sendCommand("220 localhost SMTP", ehloPattern);
-            session.sendCommand("250 HELP", mailFromPattern);
-            session.sendCommand("250 FROM OK", rcptToPattern);
-            session.sendCommand("250 RCPT OK", dataPattern);
-            session.sendCommand("354 Enter message now, end with .");
-            var message = session.readLinesUntil(messageEndPattern);
-            session.sendCommand("250 MESSAGE OK", quitPattern);
+            session.sendCommand("220 localhost SMTP");
+            while (true) {
+                var command = session.readLine();
+                if (command == null) {
+                    return;
+                } else if (quitPattern.matcher(command).matches()) {
+                    session.sendCommand("221 Bye");
+                    return;
+                } else if (ehloPattern.matcher(command).matches()) {
+                    session.sendCommand("250-localhost");
+                    session.sendCommand("250-PIPELINING");
+                    session.sendCommand("250 HELP");
+                } else if (mailFromPattern.matcher(command).matches()) {
+                    session.sendCommand("250 FROM OK");
+                } else if (rcptToPattern.matcher(command).matches()) {
+                    session.sendCommand("250 RCPT OK");
+                } else if (resetPattern.matcher(command).matches()) {
+                    session.sendCommand("250 RESET OK");
+                } else if (dataPattern.matcher(command).matches()) {
+                    session.sendCommand("354 Enter message now, end with .");
+                    var message = session.readLinesUntil(messageEndPattern);
+                    session.sendCommand("250 MESSAGE OK");
+                    receive(message);
+                } else {
+                    session.sendCommand("500 Unknown command");
+                }
+            }
+        }
 
+        private void receive(List<String> message) {
             // Email headers are only 7-bit safe, ensure that we break any high ascii passing through
             var inHeader = true;
             var mailBody = new StringBuilder();
             for (var line : message) {
+                if (line.startsWith(".")) {
+                    line = line.substring(1);
+                }
                 if (inHeader) {
                     var headerMatcher = headerPattern.matcher(line);
                     if (headerMatcher.matches()) {
@@ -87,6 +116,7 @@ public class SMTPServer implements AutoCloseable {
                          var input = new InputStreamReader(socket.getInputStream());
                          var output = new OutputStreamWriter(socket.getOutputStream())) {
                         var session = new SMTPSession(input, output, Duration.ofMinutes(10));
+                        sessions.incrementAndGet();
                         handleSession(session);
                     }
                 } catch (SocketException e) {
@@ -109,6 +139,13 @@ public class SMTPServer implements AutoCloseable {
         return InetAddress.getLoopbackAddress().getHostAddress() + ":" + serverSocket.getLocalPort();
     }
 
+    /**
+     * Returns the number of sessions that clients have opened so far.
+     */
+    public int sessions() {
+        return sessions.get();
+    }
+
     public Email receive(Duration timeout) {
         var start = Instant.now();
         while (emails.isEmpty() && start.plus(timeout).isAfter(Instant.now())) {
@@ -40,7 +40,7 @@ public class TestMailmanServer implements AutoCloseable {
     private final HttpServer httpServer;
     private final SMTPServer smtpServer;
     private final Map<String, Path> lists = new HashMap<>();
-    private boolean lastResponseCached;
+    private volatile boolean lastResponseCached;
 
     static private final Pattern listPathPattern = Pattern.compile("^/test/(.*?)/.*");
 
@@ -63,8 +63,9 @@ public class TestMailmanServer implements AutoCloseable {
 
                 if (exchange.getRequestHeaders().containsKey("If-None-Match")) {
                     if (exchange.getRequestHeaders().getFirst("If-None-Match").equals(etag)) {
-                        exchange.sendResponseHeaders(304, 0);
+                        // Set before responding, the client may look at it as soon as it has the response
                         lastResponseCached = true;
+                        exchange.sendResponseHeaders(304, -1);
                         return;
                     }
                 }
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.vcs;
+
+import java.util.*;
+
+/**
+ * An in-memory index of the parent relationships between commits. Each commit
+ * is assigned a dense integer index and a generation number (one more than the
+ * highest generation of its parents), which allows ancestry queries to stop
+ * walking as soon as they pass below the generation of the commit of interest.
+ *
+ * Since the parents of a commit never change, the graph can only ever become
+ * incomplete, never stale, and it can therefore be extended incrementally.
+ * Commits must be added after their parents; parents that are not known to
+ * the graph (for example at a shallow clone boundary) are ignored.
+ *
+ * All methods are synchronized, so a graph can be shared between threads.
+ */
+public class CommitGraph {
+    private static final int[] NO_PARENTS = new int[0];
+    private static final int MAX_CACHED_REACHABILITY = 256;
+
+    private static final int FIRST = 1;
+    private static final int SECOND = 2;
+    private static final int STALE = 4;
+    private static final int DONE = 8;
+    private static final int QUEUED = 16;
+
+    private final Map<Hash, Integer> indices = new HashMap<>();
+    private Hash[] hashes = new Hash[1024];
+    private int[][] parents = new int[1024][];
+    private int[] generations = new int[1024];
+    private boolean[] hasChildren = new boolean[1024];
+    private int size = 0;
+
+    private final Map<Integer, BitSet> reachability = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, BitSet> eldest) {
+            return size() > MAX_CACHED_REACHABILITY;
+        }
+    };
+
+    private void grow() {
+        var capacity = hashes.length * 2;
+        hashes = Arrays.copyOf(hashes, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+        hasChildren = Arrays.copyOf(hasChildren, capacity);
+    }
+
+    private int index(Hash hash) {
+        var index = indices.get(hash);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown commit: " + hash.hex());
+        }
+        return index;
+    }
+
+    /**
+     * Adds a commit to the graph. Adding a commit that is already known has
+     * no effect.
+     */
+    public synchronized void add(Hash hash, List<Hash> parentHashes) {
+        if (indices.containsKey(hash)) {
+            return;
+        }
+        if (size == hashes.length) {
+            grow();
+        }
+
+        var known = new int[parentHashes.size()];
+        var numKnown = 0;
+        var generation = 1;
+        for (var parentHash : parentHashes) {
+            var parent = indices.get(parentHash);
+            if (parent == null) {
+                continue;
+            }
+            known[numKnown++] = parent;
+            hasChildren[parent] = true;
+            generation = Math.max(generation, generations[parent] + 1);
+        }
+
+        var index = size++;
+        indices.put(hash, index);
+        hashes[index] = hash;
+        parents[index] = numKnown == 0 ? NO_PARENTS : Arrays.copyOf(known, numKnown);
+        generations[index] = generation;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean contains(Hash hash) {
+        return indices.containsKey(hash);
+    }
+
+    public synchronized List<Hash> parents(Hash hash) {
+        var result = new ArrayList<Hash>();
+        for (var parent : parents[index(hash)]) {
+            result.add(hashes[parent]);
+        }
+        return result;
+    }
+
+    public synchronized int generation(Hash hash) {
+        return generations[index(hash)];
+    }
+
+    /**
+     * Returns the commits that do not have any children in the graph.
+     */
+    public synchronized List<Hash> tips() {
+        var result = new ArrayList<Hash>();
+        for (var i = 0; i < size; i++) {
+            if (!hasChildren[i]) {
+                result.add(hashes[i]);
+            }
+        }
+        return result;
+    }
+
+    private BitSet reachable(int tip) {
+        var cached = reachability.get(tip);
+        if (cached != null) {
+            return cached;
+        }
+
+        var visited = new BitSet(size);
+        var stack = new int[64];
+        var top = 0;
+        stack[top++] = tip;
+        visited.set(tip);
+        while (top > 0) {
+            var current = stack[--top];
+            for (var parent : parents[current]) {
+                if (!visited.get(parent)) {
+                    visited.set(parent);
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = parent;
+                }
+            }
+        }
+
+        reachability.put(tip, visited);
+        return visited;
+    }
+
+    /**
+     * Returns true if {@code hash} can be reached from {@code tip}. The set of
+     * commits reachable from {@code tip} is computed once and then cached,
+     * which makes this suitable for repeated queries against branch heads.
+     */
+    public synchronized boolean reaches(Hash tip, Hash hash) {
+        return reachable(index(tip)).get(index(hash));
+    }
+
+    public synchronized boolean isAncestor(Hash ancestor, Hash descendant) {
+        var target = index(ancestor);
+        var start = index(descendant);
+        if (target == start) {
+            return true;
+        }
+
+        var cached = reachability.get(start);
+        if (cached != null) {
+            return cached.get(target);
+        }
+
+        var minGeneration = generations[target];
+        if (generations[start] <= minGeneration) {
+            return false;
+        }
+
+        var visited = new BitSet(size);
+        var pending = new ArrayDeque<Integer>();
+        pending.push(start);
+        visited.set(start);
+        while (!pending.isEmpty()) {
+            var current = pending.pop();
+            for (var parent : parents[current]) {
+                if (parent == target) {
+                    return true;
+                }
+                if (!visited.get(parent) && generations[parent] > minGeneration) {
+                    visited.set(parent);
+                    pending.push(parent);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A walk over the graph in decreasing generation order. Each commit is queued at most
+     * once, and the number of queued commits that do not have any of the flags in the
+     * given mask is kept up to date, so that the walk can stop as soon as only commits
+     * that are no longer of interest remain.
+     */
+    private class Walk {
+        private final byte[] flags = new byte[size];
+        private final PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> generations[a] != generations[b] ?
+                                                                              Integer.compare(generations[b], generations[a]) :
+                                                                              Integer.compare(b, a));
+        private final int mask;
+        private int interesting = 0;
+
+        Walk(int mask) {
+            this.mask = mask;
+        }
+
+        void mark(int index, int mark) {
+            var old = flags[index];
+            if ((old & mark) == mark) {
+                return;
+            }
+            flags[index] |= mark;
+            if ((old & DONE) != 0) {
+                return;
+            }
+            if ((old & QUEUED) == 0) {
+                flags[index] |= QUEUED;
+                queue.add(index);
+                if ((flags[index] & mask) == 0) {
+                    interesting++;
+                }
+            } else if ((old & mask) == 0 && (flags[index] & mask) != 0) {
+                interesting--;
+            }
+        }
+
+        void markParents(int index, int mark) {
+            for (var parent : parents[index]) {
+                mark(parent, mark);
+            }
+        }
+
+        boolean hasInteresting() {
+            return interesting > 0;
+        }
+
+        int poll() {
+            var index = queue.poll();
+            if ((flags[index] & mask) == 0) {
+                interesting--;
+            }
+            flags[index] = (byte) ((flags[index] & ~QUEUED) | DONE);
+            return index;
+        }
+
+        int flags(int index) {
+            return flags[index];
+        }
+    }
+
+    /**
+     * Returns the best common ancestor of the two commits, if there is one.
+     * If there are several equally good candidates (criss-cross merges), the
+     * one with the highest generation is returned. Commits are visited in
+     * decreasing generation order, which guarantees that a commit is only
+     * processed once all of its descendants have been.
+     */
+    public synchronized Optional<Hash> mergeBase(Hash first, Hash second) {
+        var a = index(first);
+        var b = index(second);
+        if (a == b) {
+            return Optional.of(first);
+        }
+
+        var walk = new Walk(STALE);
+        walk.mark(a, FIRST);
+        walk.mark(b, SECOND);
+
+        var best = -1;
+        while (walk.hasInteresting()) {
+            var current = walk.poll();
+            var mark = walk.flags(current) & (FIRST | SECOND | STALE);
+            if ((mark & (FIRST | SECOND)) == (FIRST | SECOND) && (mark & STALE) == 0) {
+                if (best == -1) {
+                    best = current;
+                }
+                mark |= STALE;
+            }
+            walk.markParents(current, mark);
+        }
+
+        return best == -1 ? Optional.empty() : Optional.of(hashes[best]);
+    }
+
+    /**
+     * Returns the number of commits reachable from {@code to} but not from
+     * {@code from}, i.e. the number of commits in the range {@code from..to}.
+     */
+    public synchronized int count(Hash from, Hash to) {
+        var a = index(from);
+        var b = index(to);
+        if (a == b) {
+            return 0;
+        }
+
+        var cachedFrom = reachability.get(a);
+        var cachedTo = reachability.get(b);
+        if (cachedFrom != null && cachedTo != null) {
+            var range = (BitSet) cachedTo.clone();
+            range.andNot(cachedFrom);
+            return range.cardinality();
+        }
+
+        var walk = new Walk(FIRST);
+        walk.mark(a, FIRST);
+        walk.mark(b, SECOND);
+
+        var count = 0;
+        while (walk.hasInteresting()) {
+            var current = walk.poll();
+            var mark = walk.flags(current) & (FIRST | SECOND);
+            if (mark == SECOND) {
+                count++;
+            }
+            walk.markParents(current, mark);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.skara.vcs;
+
+/**
+ * How much of the difference between a commit and its parents to load. Each
+ * level includes everything in the levels before it.
+ */
+public enum DiffDetail {
+    /**
+     * Only the metadata of the commit, the diffs do not contain any patches.
+     */
+    NONE,
+
+    /**
+     * The paths, file types and status of the changed files, the patches do
+     * not contain any hunks.
+     */
+    STATUS,
+
+    /**
+     * The hunks of all textual patches. Binary files are reported as binary
+     * patches without any hunks.
+     */
+    TEXT,
+
+    /**
+     * The hunks of all patches, including the contents of binary files.
+     */
+    FULL;
+
+    public boolean includes(DiffDetail other) {
+        return compareTo(other) >= 0;
+    }
+}
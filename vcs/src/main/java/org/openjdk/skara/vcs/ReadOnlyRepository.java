@@ -44,15 +44,40 @@ public interface ReadOnlyRepository {
     Commits commits(String range, boolean reverse) throws IOException;
     Commits commits(String range, int n) throws IOException;
     Commits commits(String range, int n, boolean reverse) throws IOException;
+
+    /**
+     * Returns the commits in the given range, with only as much of their diffs
+     * loaded as requested by detail.
+     */
+    Commits commits(String range, DiffDetail detail) throws IOException;
     Optional<Commit> lookup(Hash h) throws IOException;
+
+    /**
+     * Returns the commit with only as much of its diffs loaded as requested by detail.
+     */
+    Optional<Commit> lookup(Hash h, DiffDetail detail) throws IOException;
     Optional<Commit> lookup(Branch b) throws IOException;
     Optional<Commit> lookup(Tag t) throws IOException;
     List<CommitMetadata> commitMetadata() throws IOException;
+
+    /**
+     * Returns the metadata of the commits that are reachable from any of the commits in
+     * include, but not from any of the commits in exclude.
+     */
+    List<CommitMetadata> commitMetadata(List<Hash> include, List<Hash> exclude) throws IOException;
+
+    /**
+     * Returns the commits pointed to by HEAD and the refs in the repository. Every commit
+     * included in {@link #commitMetadata()} is reachable from at least one of them.
+     */
+    List<Hash> tips() throws IOException;
+    CommitGraph commitGraph() throws IOException;
     Path root() throws IOException;
     boolean exists() throws IOException;
     boolean isHealthy() throws IOException;
     boolean isEmpty() throws IOException;
     boolean isClean() throws IOException;
+    boolean isShallow() throws IOException;
     Hash mergeBase(Hash first, Hash second) throws IOException;
     boolean isAncestor(Hash ancestor, Hash descendant) throws IOException;
     Optional<Hash> resolve(String ref) throws IOException;
@@ -77,6 +102,12 @@ public interface ReadOnlyRepository {
     void dump(FileEntry entry, Path to) throws IOException;
     List<StatusEntry> status(Hash from, Hash to) throws IOException;
     Diff diff(Hash base, Hash head) throws IOException;
+
+    /**
+     * Returns the paths of the files that differ between base and head. Renames and copies
+     * are not detected, so the contents of the files are never needed.
+     */
+    List<Path> changedPaths(Hash base, Hash head) throws IOException;
     Diff diff(Hash head) throws IOException;
     List<String> config(String key) throws IOException;
     Repository copyTo(Path destination) throws IOException;
@@ -43,11 +43,24 @@ public interface Repository extends ReadOnlyRepository {
         checkout(b, false);
     }
     Hash fetch(URI uri, String refspec) throws IOException;
+    Hash fetch(URI uri, String refspec, int depth) throws IOException;
+
+    /**
+     * Extends the history of a shallow repository by depth commits beyond the current
+     * shallow boundary of the given commits. If depth is zero, the complete history is fetched.
+     */
+    void deepen(URI uri, List<Hash> hashes, int depth) throws IOException;
     void fetchAll() throws IOException;
     void pushAll(URI uri) throws IOException;
     void push(Hash hash, URI uri, String ref, boolean force) throws IOException;
     void push(Branch branch, String remote, boolean setUpstream) throws IOException;
     void clean() throws IOException;
+
+    /**
+     * Returns true if there is nothing for clean to do: no operation is in progress and the
+     * working tree has no modified, untracked or ignored files.
+     */
+    boolean isPristine() throws IOException;
     void reset(Hash target, boolean hard) throws IOException;
     void revert(Hash parent) throws IOException;
     Repository reinitialize() throws IOException;
@@ -91,10 +104,18 @@ public interface Repository extends ReadOnlyRepository {
                String authorEmail,
                String committerName,
                String committerEmail) throws IOException;
+    Hash amend(String message,
+               String authorName,
+               String authorEmail,
+               ZonedDateTime authorDate,
+               String committerName,
+               String committerEmail,
+               ZonedDateTime committerDate) throws IOException;
     Tag tag(Hash hash, String tagName, String message, String authorName, String authorEmail) throws IOException;
     Branch branch(Hash hash, String branchName) throws IOException;
     void delete(Branch b) throws IOException;
     void rebase(Hash hash, String committerName, String committerEmail) throws IOException;
+    void rebase(Hash hash, String committerName, String committerEmail, ZonedDateTime committerDate) throws IOException;
     void merge(Hash hash) throws IOException;
     void merge(Hash hash, String strategy) throws IOException;
     void abortMerge() throws IOException;
@@ -112,6 +133,26 @@ public interface Repository extends ReadOnlyRepository {
         push(hash, uri, ref, false);
     }
 
+    /**
+     * Returns the merge base of first and second. If the repository is shallow and the
+     * merge base is not yet part of the local history, the history of both commits is
+     * fetched from uri in increasingly larger steps until the merge base is found.
+     */
+    default Hash mergeBase(Hash first, Hash second, URI uri) throws IOException {
+        var depth = 32;
+        while (true) {
+            try {
+                return mergeBase(first, second);
+            } catch (IOException e) {
+                if (!isShallow()) {
+                    throw e;
+                }
+            }
+            deepen(uri, List.of(first, second), depth > 4096 ? 0 : depth);
+            depth *= 2;
+        }
+    }
+
     default ReadOnlyRepository readOnly() {
         return this;
     }
@@ -144,12 +185,67 @@ public interface Repository extends ReadOnlyRepository {
     }
 
     static Repository materialize(Path p, URI remote, String ref, boolean checkout) throws IOException {
-        var localRepo = remote.getPath().endsWith(".git") ?
-            Repository.init(p, VCS.GIT) : Repository.init(p, VCS.HG);
+        return materialize(p, remote, ref, checkout, null);
+    }
+
+    static Repository materialize(Path p, URI remote, String ref, Path objectCache) throws IOException {
+        return materialize(p, remote, ref, true, objectCache);
+    }
+
+    /**
+     * If objectCache is not null, objects are shared with other repositories materialized
+     * or cloned from the same remote using the same cache folder. This is only supported
+     * for git repositories, for hg repositories objectCache is ignored.
+     */
+    static Repository materialize(Path p, URI remote, String ref, boolean checkout, Path objectCache) throws IOException {
+        return materialize(p, remote, ref, checkout, objectCache, false, 0);
+    }
+
+    /**
+     * Materializes a git repository without transferring the contents of any files up front,
+     * they are instead fetched from the remote on demand. If depth is larger than zero, only
+     * the last depth commits of ref are fetched, use {@link #mergeBase(Hash, Hash, URI)} to
+     * extend the history when needed. For hg repositories, this is the same as a regular
+     * materialize.
+     */
+    static Repository materializePartial(Path p, URI remote, String ref, boolean checkout, int depth) throws IOException {
+        return materializePartial(p, remote, ref, checkout, depth, null);
+    }
+
+    /**
+     * See {@link #materializePartial(Path, URI, String, boolean, int)}. If objectCache is not null,
+     * objects already in the cache are used instead of being fetched, see
+     * {@link #materialize(Path, URI, String, boolean, Path)}.
+     */
+    static Repository materializePartial(Path p, URI remote, String ref, boolean checkout, int depth, Path objectCache) throws IOException {
+        return materialize(p, remote, ref, checkout, objectCache, true, depth);
+    }
+
+    private static void prepare(Repository localRepo, Path p, URI remote, String ref, Path objectCache, boolean partial) throws IOException {
+        if (!(localRepo instanceof GitRepository)) {
+            return;
+        }
+        if (objectCache != null) {
+            GitRepository.useObjectCache(p, objectCache, remote, ref);
+        }
+        if (partial) {
+            GitRepository.usePartialClone(p, remote);
+        }
+    }
+
+    private static Repository materialize(Path p, URI remote, String ref, boolean checkout, Path objectCache,
+                                          boolean partial, int depth) throws IOException {
+        var isGit = remote.getPath().endsWith(".git");
+        var localRepo = isGit ? Repository.init(p, VCS.GIT) : Repository.init(p, VCS.HG);
         if (!localRepo.exists()) {
             localRepo.init();
         } else if (!localRepo.isHealthy()) {
             localRepo.reinitialize();
+        } else if (depth == 0 && localRepo.isShallow()) {
+            // Left behind by an earlier shallow materialization
+            localRepo.reinitialize();
+        } else if (localRepo.isPristine()) {
+            // Nothing to clean up
         } else {
             try {
                 localRepo.clean();
@@ -158,14 +254,16 @@ public interface Repository extends ReadOnlyRepository {
             }
         }
 
-        var baseHash = localRepo.fetch(remote, ref);
+        prepare(localRepo, p, remote, ref, objectCache, partial);
+        var baseHash = localRepo.fetch(remote, ref, depth);
 
         if (checkout) {
             try {
                 localRepo.checkout(baseHash, true);
             } catch (IOException e) {
                 localRepo.reinitialize();
-                baseHash = localRepo.fetch(remote, ref);
+                prepare(localRepo, p, remote, ref, objectCache, partial);
+                baseHash = localRepo.fetch(remote, ref, depth);
                 localRepo.checkout(baseHash, true);
             }
         }
@@ -186,13 +284,27 @@ public interface Repository extends ReadOnlyRepository {
     }
 
     static Repository clone(URI from, Path to, boolean isBare) throws IOException {
+        return clone(from, to, isBare, null);
+    }
+
+    /**
+     * See {@link #materialize(Path, URI, String, boolean, Path)} for a description of objectCache.
+     */
+    static Repository clone(URI from, Path to, boolean isBare, Path objectCache) throws IOException {
         return from.getPath().toString().endsWith(".git") ?
-            GitRepository.clone(from, to, isBare) : HgRepository.clone(from, to, isBare);
+            GitRepository.clone(from, to, isBare, objectCache) : HgRepository.clone(from, to, isBare);
     }
 
     static Repository mirror(URI from, Path to) throws IOException {
+        return mirror(from, to, null);
+    }
+
+    /**
+     * See {@link #materialize(Path, URI, String, boolean, Path)} for a description of objectCache.
+     */
+    static Repository mirror(URI from, Path to, Path objectCache) throws IOException {
         return from.getPath().toString().endsWith(".git") ?
-            GitRepository.mirror(from, to) :
+            GitRepository.mirror(from, to, objectCache) :
             HgRepository.clone(from, to, true); // hg does not have concept of "mirror"
     }
 }
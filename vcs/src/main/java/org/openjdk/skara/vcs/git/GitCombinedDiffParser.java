@@ -29,7 +29,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
 
-class GitCombinedDiffParser {
+public class GitCombinedDiffParser {
     private final List<Hash> bases;
     private final int numParents;
     private final Hash head;
@@ -194,9 +194,11 @@ class GitCombinedDiffParser {
             line = reader.readLine();
         }
 
-        // skip empty newline added by git
-        assert line.equals("");
-        line = reader.readLine();
+        if (line != null && !line.equals(delimiter)) {
+            // skip empty newline added by git
+            assert line.equals("");
+            line = reader.readLine();
+        }
 
         var hunksPerFilePerParent = new ArrayList<List<List<Hunk>>>(numParents);
         for (int i = 0; i < numParents; i++) {
@@ -223,9 +225,11 @@ class GitCombinedDiffParser {
             var patches = new ArrayList<Patch>();
             for (int j = 0; j < headers.size(); j++) {
                 var h = headers.get(j);
+                // there are no hunks if only the 'raw' lines were requested
+                var hunksForPatch = j < hunks.size() ? hunks.get(j) : List.<Hunk>of();
                 patches.add(new TextualPatch(h.sourcePath(), h.sourceFileType(), h.sourceHash(),
                                              h.targetPath(), h.targetFileType(), h.targetHash(),
-                                             h.status(), hunks.get(j)));
+                                             h.status(), hunksForPatch));
             }
             patchesPerParent.add(patches);
         }
@@ -38,6 +38,7 @@ class GitCommits implements Commits, AutoCloseable {
     private final String range;
     private final boolean reverse;
     private final int num;
+    private final DiffDetail detail;
     private final String format;
 
     private final List<Process> processes = new ArrayList<Process>();
@@ -45,10 +46,15 @@ class GitCommits implements Commits, AutoCloseable {
     private boolean closed = false;
 
     public GitCommits(Path dir, String range, boolean reverse, int num) throws IOException {
+        this(dir, range, reverse, num, DiffDetail.FULL);
+    }
+
+    public GitCommits(Path dir, String range, boolean reverse, int num, DiffDetail detail) throws IOException {
         this.dir = dir;
         this.range = range;
         this.reverse = reverse;
         this.num = num;
+        this.detail = detail;
         this.format = String.join("%n",
                                   COMMIT_DELIMITER,
                                   GitCommitMetadata.FORMAT);
@@ -58,18 +64,23 @@ class GitCommits implements Commits, AutoCloseable {
     @Override
     public Iterator<Commit> iterator() {
         var cmd = new ArrayList<String>();
-        cmd.addAll(List.of("git", "log", "--format=" + format,
-                                         "--patch",
-                                         "--find-renames=99%",
-                                         "--find-copies=99%",
-                                         "--find-copies-harder",
-                                         "--topo-order",
-                                         "--binary",
-                                         "-c",
-                                         "--raw",
-                                         "--no-abbrev",
-                                         "--unified=0",
-                                         "--no-color"));
+        cmd.addAll(List.of("git", "log", "--format=" + format, "--topo-order"));
+        if (detail.includes(DiffDetail.STATUS)) {
+            cmd.addAll(List.of("--find-renames=99%",
+                               "--find-copies=99%",
+                               "--find-copies-harder",
+                               "-c",
+                               "--raw",
+                               "--no-abbrev"));
+        }
+        if (detail.includes(DiffDetail.TEXT)) {
+            cmd.addAll(List.of("--patch",
+                               "--unified=0",
+                               "--no-color"));
+        }
+        if (detail.includes(DiffDetail.FULL)) {
+            cmd.add("--binary");
+        }
         if (reverse) {
             cmd.add("--reverse");
         }
@@ -28,19 +28,25 @@ import org.openjdk.skara.vcs.*;
 import org.openjdk.skara.vcs.tools.*;
 
 import java.io.*;
-import java.net.URI;
+import java.net.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class GitRepository implements Repository {
     private final Path dir;
     private final Logger log = Logger.getLogger("org.openjdk.skara.vcs.git");
+    private static final Map<Path, Object> objectCacheLocks = new ConcurrentHashMap<>();
     private Path cachedRoot = null;
+    private volatile CommitGraph cachedGraph = null;
+    private String cachedGraphShallowState = null;
+    private Optional<String> cachedPromisor = null;
 
     private java.lang.Process start(String... cmd) throws IOException {
         return start(Arrays.asList(cmd));
@@ -169,6 +175,11 @@ public class GitRepository implements Repository {
         return new GitCommits(dir, range, reverse, n);
     }
 
+    @Override
+    public Commits commits(String range, DiffDetail detail) throws IOException {
+        return new GitCommits(dir, range, false, -1, detail);
+    }
+
     @Override
     public Optional<Commit> lookup(Hash h) throws IOException {
         var commits = commits(h.hex(), 1).asList();
@@ -178,6 +189,15 @@ public class GitRepository implements Repository {
         return Optional.of(commits.get(0));
     }
 
+    @Override
+    public Optional<Commit> lookup(Hash h, DiffDetail detail) throws IOException {
+        var commits = new GitCommits(dir, h.hex(), false, 1, detail).asList();
+        if (commits.size() != 1) {
+            return Optional.empty();
+        }
+        return Optional.of(commits.get(0));
+    }
+
     @Override
     public Optional<Commit> lookup(Branch b) throws IOException {
         var hash = resolve(b.name()).orElseThrow(() -> new IOException("Branch " + b.name() + " not found"));
@@ -190,9 +210,7 @@ public class GitRepository implements Repository {
         return lookup(hash);
     }
 
-    public List<CommitMetadata> commitMetadata() throws IOException {
-        var revisions = "--all";
-        var p = start("git", "rev-list", "--format=" + GitCommitMetadata.FORMAT, "--no-abbrev", "--reverse", "--no-color", revisions);
+    private static List<CommitMetadata> readCommitMetadata(java.lang.Process p) throws IOException {
         var reader = new UnixStreamReader(p.getInputStream());
         var result = new ArrayList<CommitMetadata>();
 
@@ -210,6 +228,145 @@ public class GitRepository implements Repository {
         return result;
     }
 
+    public List<CommitMetadata> commitMetadata() throws IOException {
+        var revisions = "--all";
+        var p = start("git", "rev-list", "--format=" + GitCommitMetadata.FORMAT, "--no-abbrev", "--reverse", "--no-color", revisions);
+        return readCommitMetadata(p);
+    }
+
+    @Override
+    public List<CommitMetadata> commitMetadata(List<Hash> include, List<Hash> exclude) throws IOException {
+        if (include.isEmpty()) {
+            return new ArrayList<>();
+        }
+        var p = start("git", "rev-list", "--format=" + GitCommitMetadata.FORMAT, "--no-abbrev", "--reverse", "--no-color", "--stdin");
+        try {
+            try (var writer = new BufferedWriter(new OutputStreamWriter(p.getOutputStream(), StandardCharsets.UTF_8))) {
+                for (var hash : include) {
+                    writer.write(hash.hex());
+                    writer.newLine();
+                }
+                for (var hash : exclude) {
+                    writer.write("^" + hash.hex());
+                    writer.newLine();
+                }
+            }
+            return readCommitMetadata(p);
+        } catch (Throwable t) {
+            stop(p);
+            throw t;
+        }
+    }
+
+    @Override
+    public List<Hash> tips() throws IOException {
+        try (var p = capture("git", "show-ref", "--head", "--hash")) {
+            var res = p.await();
+            if (res.status() != 0) {
+                // No refs at all
+                return new ArrayList<>();
+            }
+            return res.stdout().stream()
+                      .distinct()
+                      .map(Hash::new)
+                      .collect(Collectors.toList());
+        }
+    }
+
+    private void loadCommits(CommitGraph graph, List<Hash> known) throws IOException {
+        var cmd = new ArrayList<>(List.of("git", "rev-list", "--parents", "--topo-order", "--reverse", "--all"));
+        if (!known.isEmpty()) {
+            cmd.addAll(List.of("--not", "--stdin"));
+        }
+        var p = start(cmd);
+        try {
+            try (var writer = new BufferedWriter(new OutputStreamWriter(p.getOutputStream(), StandardCharsets.UTF_8))) {
+                for (var hash : known) {
+                    writer.write(hash.hex());
+                    writer.newLine();
+                }
+            }
+
+            var reader = new UnixStreamReader(p.getInputStream());
+            var line = reader.readLine();
+            while (line != null) {
+                var parts = line.split(" ");
+                var parents = new ArrayList<Hash>(parts.length - 1);
+                for (var i = 1; i < parts.length; i++) {
+                    parents.add(new Hash(parts[i]));
+                }
+                graph.add(new Hash(parts[0]), parents);
+                line = reader.readLine();
+            }
+            await(p);
+        } catch (Throwable t) {
+            stop(p);
+            throw t;
+        }
+    }
+
+    /**
+     * Returns the commits at the shallow boundary, which change whenever commits at the
+     * boundary gain or lose parents.
+     */
+    private String shallowState() throws IOException {
+        var gitDir = gitDir();
+        var shallow = gitDir == null ? null : gitDir.resolve("shallow");
+        if (shallow == null || !Files.exists(shallow)) {
+            return "";
+        }
+        return Files.readString(shallow);
+    }
+
+    /**
+     * Drops the cached graph if the shallow boundary has moved since it was loaded, since
+     * the parents recorded for the commits at the old boundary are then wrong.
+     */
+    private void validateGraph() throws IOException {
+        if (cachedGraph != null && !shallowState().equals(cachedGraphShallowState)) {
+            cachedGraph = null;
+        }
+    }
+
+    private synchronized void invalidateGraph() {
+        cachedGraph = null;
+    }
+
+    @Override
+    public synchronized CommitGraph commitGraph() throws IOException {
+        validateGraph();
+        if (cachedGraph == null) {
+            var shallowState = shallowState();
+            var graph = new CommitGraph();
+            loadCommits(graph, List.of());
+            cachedGraph = graph;
+            cachedGraphShallowState = shallowState;
+        } else {
+            try {
+                loadCommits(cachedGraph, cachedGraph.tips());
+            } catch (IOException e) {
+                // Some of the known tips may have been garbage collected
+                cachedGraph = null;
+                return commitGraph();
+            }
+        }
+        return cachedGraph;
+    }
+
+    private synchronized Optional<CommitGraph> commitGraph(Hash... hashes) throws IOException {
+        validateGraph();
+        if (cachedGraph == null) {
+            return Optional.empty();
+        }
+        for (var hash : hashes) {
+            if (!cachedGraph.contains(hash)) {
+                var graph = commitGraph();
+                return Arrays.stream(hashes).allMatch(graph::contains) ? Optional.of(graph) : Optional.empty();
+            }
+        }
+        return Optional.of(cachedGraph);
+    }
+
     private List<Hash> refs() throws IOException {
         try (var p = capture("git", "show-ref", "--hash", "--abbrev")) {
             var res = p.await();
@@ -256,8 +413,42 @@ public class GitRepository implements Repository {
         return numLooseObjects == 0 && numPackedObjects == 0 && refs().size() == 0;
     }
 
+    /**
+     * Returns the git directory if the repository is rooted at dir, without running git.
+     * For anything else, such as a subdirectory of a repository, null is returned.
+     */
+    private Path gitDir() {
+        var gitDir = dir.resolve(".git");
+        if (Files.isRegularFile(gitDir.resolve("HEAD"))) {
+            return gitDir;
+        }
+        if (Files.isRegularFile(dir.resolve("HEAD")) && Files.isDirectory(dir.resolve("objects"))) {
+            return dir;
+        }
+        return null;
+    }
+
+    private static boolean hasIntactMarkers(Path gitDir) throws IOException {
+        for (var lock : List.of("HEAD.lock", "index.lock", "config.lock", "packed-refs.lock", "shallow.lock")) {
+            if (Files.exists(gitDir.resolve(lock))) {
+                return false;
+            }
+        }
+        if (!Files.isDirectory(gitDir.resolve("objects")) || !Files.isDirectory(gitDir.resolve("refs"))) {
+            return false;
+        }
+        var head = Files.readString(gitDir.resolve("HEAD")).strip();
+        return head.startsWith("ref: refs/") || head.matches("[0-9a-f]{40}");
+    }
+
     @Override
     public boolean isHealthy() throws IOException {
+        // Fast path: only fall back to exercising the refs if something looks off
+        var gitDir = gitDir();
+        if (gitDir != null && hasIntactMarkers(gitDir)) {
+            return true;
+        }
+
         var refs = refs();
         if (refs.size() == 0) {
             return true;
@@ -278,6 +469,23 @@ public class GitRepository implements Repository {
         return true;
     }
 
+    @Override
+    public boolean isPristine() throws IOException {
+        var gitDir = gitDir();
+        if (gitDir == null || gitDir.equals(dir)) {
+            return false;
+        }
+        for (var inProgress : List.of("rebase-merge", "rebase-apply", "MERGE_HEAD", "CHERRY_PICK_HEAD", "REVERT_HEAD")) {
+            if (Files.exists(gitDir.resolve(inProgress))) {
+                return false;
+            }
+        }
+        try (var p = capture("git", "status", "--porcelain", "--ignored")) {
+            var res = p.await();
+            return res.status() == 0 && res.stdout().isEmpty();
+        }
+    }
+
     @Override
     public void clean() throws IOException {
         cachedRoot = null;
@@ -319,6 +527,8 @@ public class GitRepository implements Repository {
     @Override
     public Repository reinitialize() throws IOException {
         cachedRoot = null;
+        invalidateGraph();
+        cachedPromisor = null;
 
         Files.walk(dir)
              .map(Path::toFile)
@@ -328,11 +538,69 @@ public class GitRepository implements Repository {
         return init();
     }
 
+    /**
+     * Objects fetched from other remotes than the one set up by usePartialClone can not be
+     * fetched on demand later on, so only fetches from that remote are filtered.
+     */
+    private boolean isPromisor(URI uri) throws IOException {
+        if (cachedPromisor == null) {
+            cachedPromisor = partialCloneRemote(dir);
+        }
+        return cachedPromisor.isPresent() && cachedPromisor.get().equals(uri.toString());
+    }
+
     @Override
     public Hash fetch(URI uri, String refspec) throws IOException {
-        try (var p = capture("git", "fetch", "--tags", uri.toString(), refspec)) {
+        return fetch(uri, refspec, 0);
+    }
+
+    @Override
+    public Hash fetch(URI uri, String refspec, int depth) throws IOException {
+        var cmd = new ArrayList<>(List.of("git", "fetch", "--tags"));
+        if (isPromisor(uri)) {
+            cmd.add("--filter=blob:none");
+        }
+        if (depth > 0) {
+            cmd.add("--depth=" + depth);
+        }
+        cmd.add(uri.toString());
+        cmd.add(refspec);
+        try (var p = capture(cmd)) {
+            await(p);
+        }
+        if (cachedGraph != null) {
+            commitGraph();
+        }
+        return resolve("FETCH_HEAD").get();
+    }
+
+    @Override
+    public void deepen(URI uri, List<Hash> hashes, int depth) throws IOException {
+        var cmd = new ArrayList<>(List.of("git", "fetch"));
+        if (isPromisor(uri)) {
+            cmd.add("--filter=blob:none");
+        }
+        cmd.add(depth > 0 ? "--deepen=" + depth : "--unshallow");
+        cmd.add(uri.toString());
+        for (var hash : hashes) {
+            cmd.add(hash.hex());
+        }
+        try (var p = capture(cmd)) {
             await(p);
-            return resolve("FETCH_HEAD").get();
+        }
+        // Commits at the old shallow boundary have gained parents
+        invalidateGraph();
+    }
+
+    @Override
+    public boolean isShallow() throws IOException {
+        var gitDir = gitDir();
+        if (gitDir != null) {
+            return Files.exists(gitDir.resolve("shallow"));
+        }
+        try (var p = capture("git", "rev-parse", "--is-shallow-repository")) {
+            var res = await(p);
+            return res.stdout().size() == 1 && res.stdout().get(0).equals("true");
         }
     }
 
@@ -341,6 +609,9 @@ public class GitRepository implements Repository {
         try (var p = capture("git", "fetch", "--tags", "--prune", "--prune-tags", "--all")) {
             await(p);
         }
+        if (cachedGraph != null) {
+            commitGraph();
+        }
     }
 
     private void checkout(String ref, boolean force) throws IOException {
@@ -368,6 +639,8 @@ public class GitRepository implements Repository {
     @Override
     public Repository init() throws IOException {
         cachedRoot = null;
+        invalidateGraph();
+        cachedPromisor = null;
 
         if (!Files.exists(dir)) {
             Files.createDirectories(dir);
@@ -425,6 +698,9 @@ public class GitRepository implements Repository {
         if (!Files.exists(dir)) {
             return false;
         }
+        if (gitDir() != null) {
+            return true;
+        }
 
         try (var p = capture("git", "rev-parse", "--git-dir")) {
             return p.await().status() == 0;
@@ -579,6 +855,17 @@ public class GitRepository implements Repository {
 
     @Override
     public Hash amend(String message, String authorName, String authorEmail, String committerName, String committerEmail) throws IOException {
+        return amend(message, authorName, authorEmail, null, committerName, committerEmail, null);
+    }
+
+    @Override
+    public Hash amend(String message,
+                      String authorName,
+                      String authorEmail,
+                      ZonedDateTime authorDate,
+                      String committerName,
+                      String committerEmail,
+                      ZonedDateTime committerDate) throws IOException {
         if (committerName == null) {
             committerName = authorName;
             committerEmail = authorEmail;
@@ -589,6 +876,14 @@ public class GitRepository implements Repository {
                          .environ("GIT_AUTHOR_EMAIL", authorEmail)
                          .environ("GIT_COMMITTER_NAME", committerName)
                          .environ("GIT_COMMITTER_EMAIL", committerEmail);
+        if (authorDate != null) {
+            cmd = cmd.environ("GIT_AUTHOR_DATE",
+                              authorDate.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        }
+        if (committerDate != null) {
+            cmd = cmd.environ("GIT_COMMITTER_DATE",
+                              committerDate.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        }
         try (var p = cmd.execute()) {
             await(p);
             return head();
@@ -621,6 +916,11 @@ public class GitRepository implements Repository {
 
     @Override
     public Hash mergeBase(Hash first, Hash second) throws IOException {
+        var graph = commitGraph(first, second);
+        if (graph.isPresent()) {
+            return graph.get().mergeBase(first, second).orElseThrow(() ->
+                    new IOException("No merge base found for " + first.hex() + " and " + second.hex()));
+        }
         try (var p = capture("git", "merge-base", first.hex(), second.hex())) {
             var res = await(p);
             if (res.stdout().size() != 1) {
@@ -632,6 +932,10 @@ public class GitRepository implements Repository {
 
     @Override
     public boolean isAncestor(Hash ancestor, Hash descendant) throws IOException {
+        var graph = commitGraph(ancestor, descendant);
+        if (graph.isPresent()) {
+            return graph.get().isAncestor(ancestor, descendant);
+        }
         try (var p = capture("git", "merge-base", "--is-ancestor", ancestor.hex(), descendant.hex())) {
             var res = p.await();
             return res.status() == 0;
@@ -640,11 +944,20 @@ public class GitRepository implements Repository {
 
     @Override
     public void rebase(Hash hash, String committerName, String committerEmail) throws IOException {
-        try (var p = Process.capture("git", "rebase", "--onto", hash.hex(), "--root", "--rebase-merges")
-                            .environ("GIT_COMMITTER_NAME", committerName)
-                            .environ("GIT_COMMITTER_EMAIL", committerEmail)
-                            .workdir(dir)
-                            .execute()) {
+        rebase(hash, committerName, committerEmail, null);
+    }
+
+    @Override
+    public void rebase(Hash hash, String committerName, String committerEmail, ZonedDateTime committerDate) throws IOException {
+        var cmd = Process.capture("git", "rebase", "--onto", hash.hex(), "--root", "--rebase-merges")
+                         .environ("GIT_COMMITTER_NAME", committerName)
+                         .environ("GIT_COMMITTER_EMAIL", committerEmail)
+                         .workdir(dir);
+        if (committerDate != null) {
+            cmd = cmd.environ("GIT_COMMITTER_DATE",
+                              committerDate.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        }
+        try (var p = cmd.execute()) {
             await(p);
         }
     }
@@ -817,6 +1130,16 @@ public class GitRepository implements Repository {
         }
     }
 
+    @Override
+    public List<Path> changedPaths(Hash from, Hash to) throws IOException {
+        try (var p = capture("git", "-c", "core.quotePath=false", "diff", "--name-only", "--no-renames", "--no-color", from.hex(), to.hex())) {
+            var res = await(p);
+            return res.stdout().stream()
+                      .map(Path::of)
+                      .collect(Collectors.toList());
+        }
+    }
+
     @Override
     public Diff diff(Hash from) throws IOException {
         return diff(from, null);
@@ -1004,12 +1327,133 @@ public class GitRepository implements Repository {
         }
     }
 
+    private static String objectCacheName(URI remote) {
+        // Credentials are not part of the key, nor should they end up on disk
+        var key = remote.toString();
+        if (remote.getUserInfo() != null) {
+            try {
+                key = new URI(remote.getScheme(), null, remote.getHost(), remote.getPort(),
+                              remote.getPath(), null, null).toString();
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        return URLEncoder.encode(key, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Updates the bare repository in objectCache that holds the objects of the given remote,
+     * creating it if needed. Only ref is fetched from the remote, so that the cost of keeping
+     * the cache current is proportional to what the caller is about to fetch itself. Only one
+     * fetch into a given cache repository can run at any time, both within this process and
+     * across processes sharing the same cache folder.
+     */
+    private static Path updateObjectCache(Path objectCache, URI remote, String ref) throws IOException {
+        var name = objectCacheName(remote);
+        var cache = objectCache.resolve(name).toAbsolutePath();
+        Files.createDirectories(cache);
+
+        var target = ref.startsWith("refs/") ? ref : "refs/cache/" + ref;
+        var lock = objectCacheLocks.computeIfAbsent(cache, c -> new Object());
+        synchronized (lock) {
+            var lockFile = objectCache.resolve(name + ".lock");
+            try (var channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                var fileLock = channel.lock();
+                try {
+                    if (!Files.exists(cache.resolve("HEAD"))) {
+                        try (var p = capture(cache, "git", "init", "--bare")) {
+                            await(p);
+                        }
+                        // Repositories using this one as an alternate may depend on any object in it
+                        try (var p = capture(cache, "git", "config", "gc.pruneExpire", "never")) {
+                            await(p);
+                        }
+                    }
+                    try (var p = capture(cache, "git", "fetch", "--force", remote.toString(),
+                                         "+" + ref + ":" + target)) {
+                        await(p);
+                    }
+                } finally {
+                    fileLock.release();
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Makes the repository at repo borrow objects from the shared object cache for the
+     * given remote, so that a subsequent fetch only needs to transfer objects that are
+     * not already present in the cache.
+     */
+    public static void useObjectCache(Path repo, Path objectCache, URI remote, String ref) throws IOException {
+        var cache = updateObjectCache(objectCache, remote, ref);
+        var info = repo.resolve(".git").resolve("objects").resolve("info");
+        if (!Files.isDirectory(info)) {
+            // A bare repository
+            info = repo.resolve("objects").resolve("info");
+        }
+        Files.createDirectories(info);
+
+        var alternates = info.resolve("alternates");
+        var alternate = cache.resolve("objects").toString();
+        var existing = Files.exists(alternates) ? Files.readAllLines(alternates) : List.<String>of();
+        if (!existing.contains(alternate)) {
+            var lines = new ArrayList<>(existing);
+            lines.add(alternate);
+            Files.write(alternates, lines);
+        }
+    }
+
+    private static Optional<String> partialCloneRemote(Path repo) throws IOException {
+        try (var p = capture(repo, "git", "config", "--get-regexp", "^(extensions\\.partialclone|remote\\.origin\\.url)$")) {
+            var res = p.await();
+            if (res.status() != 0 || !res.stdout().contains("extensions.partialclone origin")) {
+                return Optional.empty();
+            }
+            return res.stdout().stream()
+                      .filter(line -> line.startsWith("remote.origin.url "))
+                      .map(line -> line.substring("remote.origin.url ".length()))
+                      .findAny();
+        }
+    }
+
+    /**
+     * Turns the repository at repo into a partial clone of the given remote. Subsequent
+     * fetches only transfer commits and trees, the contents of files are fetched from
+     * the remote on demand, for example when a file is checked out or diffed.
+     */
+    public static void usePartialClone(Path repo, URI remote) throws IOException {
+        var current = partialCloneRemote(repo);
+        if (current.isPresent() && current.get().equals(remote.toString())) {
+            return;
+        }
+        var settings = List.of(List.of("remote.origin.url", remote.toString()),
+                               List.of("remote.origin.promisor", "true"),
+                               List.of("remote.origin.partialclonefilter", "blob:none"),
+                               List.of("core.repositoryformatversion", "1"),
+                               List.of("extensions.partialClone", "origin"));
+        for (var setting : settings) {
+            try (var p = capture(repo, "git", "config", setting.get(0), setting.get(1))) {
+                await(p);
+            }
+        }
+    }
+
     public static Repository clone(URI from, Path to, boolean isBare) throws IOException {
+        return clone(from, to, isBare, null);
+    }
+
+    public static Repository clone(URI from, Path to, boolean isBare, Path objectCache) throws IOException {
         var cmd = new ArrayList<String>();
         cmd.addAll(List.of("git", "clone"));
         if (isBare) {
             cmd.add("--bare");
         }
+        if (objectCache != null) {
+            cmd.add("--reference");
+            cmd.add(updateObjectCache(objectCache, from, "HEAD").toString());
+        }
         cmd.addAll(List.of(from.toString(), to.toString()));
         try (var p = capture(Path.of("").toAbsolutePath(), cmd)) {
             await(p);
@@ -1018,8 +1462,18 @@ public class GitRepository implements Repository {
     }
 
     public static Repository mirror(URI from, Path to) throws IOException {
-        var cwd = Path.of("").toAbsolutePath();
-        try (var p = capture(cwd, "git", "clone", "--mirror", from.toString(), to.toString())) {
+        return mirror(from, to, null);
+    }
+
+    public static Repository mirror(URI from, Path to, Path objectCache) throws IOException {
+        var cmd = new ArrayList<String>();
+        cmd.addAll(List.of("git", "clone", "--mirror"));
+        if (objectCache != null) {
+            cmd.add("--reference");
+            cmd.add(updateObjectCache(objectCache, from, "HEAD").toString());
+        }
+        cmd.addAll(List.of(from.toString(), to.toString()));
+        try (var p = capture(Path.of("").toAbsolutePath(), cmd)) {
             await(p);
         }
         return new GitRepository(to);
@@ -1054,6 +1508,15 @@ public class GitRepository implements Repository {
 
     @Override
     public boolean contains(Branch b, Hash h) throws IOException {
+        if (cachedGraph != null) {
+            var tip = resolve(b.name());
+            if (tip.isPresent()) {
+                var graph = commitGraph(tip.get(), h);
+                if (graph.isPresent()) {
+                    return graph.get().reaches(tip.get(), h);
+                }
+            }
+        }
         try (var p = capture("git", "for-each-ref", "--contains", h.hex(), "--format", "%(refname:short)")) {
             var res = await(p);
             for (var line : res.stdout()) {
@@ -229,6 +229,12 @@ public class HgRepository implements Repository {
         return new HgCommits(dir, range, ext, reverse, n);
     }
 
+    @Override
+    public Commits commits(String range, DiffDetail detail) throws IOException {
+        // The extension always produces the full diffs
+        return commits(range);
+    }
+
     @Override
     public Optional<Commit> lookup(Hash h) throws IOException {
         var commits = commits(h.hex()).asList();
@@ -238,6 +244,12 @@ public class HgRepository implements Repository {
         return Optional.of(commits.get(0));
     }
 
+    @Override
+    public Optional<Commit> lookup(Hash h, DiffDetail detail) throws IOException {
+        // The extension always produces the full diffs
+        return lookup(h);
+    }
+
     @Override
     public Optional<Commit> lookup(Branch b) throws IOException {
         var hash = resolve(b.name()).orElseThrow(() -> new IOException("Branch " + b.name() + " not found"));
@@ -252,10 +264,39 @@ public class HgRepository implements Repository {
 
     @Override
     public List<CommitMetadata> commitMetadata() throws IOException {
+        return commitMetadata((String) null);
+    }
+
+    @Override
+    public List<CommitMetadata> commitMetadata(List<Hash> include, List<Hash> exclude) throws IOException {
+        if (include.isEmpty()) {
+            return new ArrayList<>();
+        }
+        var revs = "::(" + include.stream().map(Hash::hex).collect(Collectors.joining(" + ")) + ")";
+        if (!exclude.isEmpty()) {
+            revs += " - ::(" + exclude.stream().map(Hash::hex).collect(Collectors.joining(" + ")) + ")";
+        }
+        return commitMetadata(revs);
+    }
+
+    @Override
+    public List<Hash> tips() throws IOException {
+        try (var p = capture("hg", "log", "--rev", "heads(all())", "--template", "{node}\n")) {
+            return await(p).stdout().stream()
+                           .map(Hash::new)
+                           .collect(Collectors.toList());
+        }
+    }
+
+    private List<CommitMetadata> commitMetadata(String revs) throws IOException {
         var ext = Files.createTempFile("ext", ".py");
         copyResource(EXT_PY, ext);
 
-        var p = start("hg", "--config", "extensions.dump=" + ext.toAbsolutePath().toString(), "metadata");
+        var cmd = new ArrayList<>(List.of("hg", "--config", "extensions.dump=" + ext.toAbsolutePath().toString(), "metadata"));
+        if (revs != null) {
+            cmd.add(revs);
+        }
+        var p = start(cmd);
         var reader = new UnixStreamReader(p.getInputStream());
         var result = new ArrayList<CommitMetadata>();
 
@@ -269,6 +310,30 @@ public class HgRepository implements Repository {
         return result;
     }
 
+    @Override
+    public CommitGraph commitGraph() throws IOException {
+        // Revision numbers are ordered so that parents always come before their children
+        var graph = new CommitGraph();
+        var nullNode = "0".repeat(40);
+        var p = start("hg", "log", "--rev", "all()", "--template", "{node} {p1node} {p2node}\n");
+        var reader = new UnixStreamReader(p.getInputStream());
+        var line = reader.readLine();
+        while (line != null) {
+            var parts = line.split(" ");
+            var parents = new ArrayList<Hash>();
+            for (var i = 1; i < parts.length; i++) {
+                if (!parts[i].equals(nullNode)) {
+                    parents.add(new Hash(parts[i]));
+                }
+            }
+            graph.add(new Hash(parts[0]), parents);
+            line = reader.readLine();
+        }
+
+        await(p);
+        return graph;
+    }
+
     @Override
     public boolean isEmpty() throws IOException {
         var numBranches = branches().size();
@@ -363,6 +428,26 @@ public class HgRepository implements Repository {
         return newHeads.iterator().next();
     }
 
+    @Override
+    public Hash fetch(URI uri, String refspec, int depth) throws IOException {
+        // Mercurial does not support shallow history
+        return fetch(uri, refspec);
+    }
+
+    @Override
+    public void deepen(URI uri, List<Hash> hashes, int depth) throws IOException {
+    }
+
+    @Override
+    public boolean isShallow() throws IOException {
+        return false;
+    }
+
+    @Override
+    public boolean isPristine() throws IOException {
+        return false;
+    }
+
     @Override
     public void fetchAll() throws IOException {
         var pullPaths = new ArrayList<URI>();
@@ -538,8 +623,18 @@ public class HgRepository implements Repository {
 
     @Override
     public Hash amend(String message, String authorName, String authorEmail) throws IOException {
+        return amend(message, authorName, authorEmail, null);
+    }
+
+    private Hash amend(String message, String authorName, String authorEmail, ZonedDateTime authorDate) throws IOException {
         var user = authorEmail == null ? authorName : authorName + " <" + authorEmail + ">";
-        try (var p = capture("hg", "commit", "--amend", "--message=" + message, "--user=" + user)) {
+        var cmd = new ArrayList<String>();
+        cmd.addAll(List.of("hg", "commit", "--amend", "--message=" + message, "--user=" + user));
+        if (authorDate != null) {
+            var formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+            cmd.add("--date=" + authorDate.format(formatter));
+        }
+        try (var p = capture(cmd)) {
             await(p);
         }
         return resolve("tip").orElseThrow(() -> new IOException("Could not resolve 'tip'"));
@@ -555,6 +650,23 @@ public class HgRepository implements Repository {
         return amend(message, authorName, authorEmail);
     }
 
+    @Override
+    public Hash amend(String message,
+                      String authorName,
+                      String authorEmail,
+                      ZonedDateTime authorDate,
+                      String committerName,
+                      String committerEmail,
+                      ZonedDateTime committerDate) throws IOException {
+        if (!Objects.equals(authorName, committerName) ||
+            !Objects.equals(authorEmail, committerEmail) ||
+            !Objects.equals(authorDate, committerDate)) {
+            throw new IllegalArgumentException("hg does not support different author and committer data");
+        }
+
+        return amend(message, authorName, authorEmail, authorDate);
+    }
+
     @Override
     public Tag tag(Hash hash, String name, String message, String authorName, String authorEmail) throws IOException {
         var user = authorName + " <" + authorEmail + ">";
@@ -599,6 +711,12 @@ public class HgRepository implements Repository {
 
     @Override
     public void rebase(Hash hash, String committerName, String committerEmail) throws IOException {
+        rebase(hash, committerName, committerEmail, null);
+    }
+
+    @Override
+    public void rebase(Hash hash, String committerName, String committerEmail, ZonedDateTime committerDate) throws IOException {
+        // hg rebase keeps the original dates, there is no separate committer date
         var current = currentBranch().name();
         try (var p = capture("hg", "--config", "extensions.rebase=",
                              "rebase", "--dest", hash.hex(), "--base", current)) {
@@ -717,6 +835,17 @@ public class HgRepository implements Repository {
         }
     }
 
+    @Override
+    public List<Path> changedPaths(Hash from, Hash to) throws IOException {
+        try (var p = capture("hg", "status", "--no-status", "--modified", "--added", "--removed",
+                                            "--rev", from.hex(), "--rev", to.hex())) {
+            var res = await(p);
+            return res.stdout().stream()
+                      .map(Path::of)
+                      .collect(Collectors.toList());
+        }
+    }
+
     @Override
     public void dump(FileEntry entry, Path to) throws IOException {
         var output = to.toAbsolutePath();
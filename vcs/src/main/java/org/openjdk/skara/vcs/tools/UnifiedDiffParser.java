@@ -164,6 +164,7 @@ public class UnifiedDiffParser {
         while ((line = reader.readLine()) != null &&
                 !line.startsWith("@@") &&
                 !line.startsWith("GIT binary patch") &&
+                !line.startsWith("Binary files ") &&
                 !line.startsWith("diff") &&
                 !line.equals(delimiter)) {
             // ignore extended headers, we have the data via the 'raw' lines
@@ -171,6 +172,10 @@ public class UnifiedDiffParser {
 
         if (line != null && line.startsWith("GIT binary patch")) {
             return parseSingleFileBinaryHunks(reader);
+        } else if (line != null && line.startsWith("Binary files ")) {
+            // the patch was produced without --binary, the content is not available
+            line = reader.readLine();
+            return Hunks.ofBinary(List.of());
         } else {
             return parseSingleFileTextualHunks(reader);
         }
@@ -207,6 +212,16 @@ public class UnifiedDiffParser {
         var parser = new UnifiedDiffParser(delimiter);
 
         var headers = parser.parseRawLines(reader);
+        if (parser.line == null || parser.line.equals(delimiter)) {
+            // only the 'raw' lines were requested, there are no hunks
+            var patches = new ArrayList<Patch>();
+            for (var header : headers) {
+                patches.add(new TextualPatch(header.sourcePath(), header.sourceFileType(), header.sourceHash(),
+                                             header.targetPath(), header.targetFileType(), header.targetHash(),
+                                             header.status(), List.of()));
+            }
+            return patches;
+        }
         var hunks = parser.parseHunks(reader);
 
         if (headers.size() != hunks.size()) {
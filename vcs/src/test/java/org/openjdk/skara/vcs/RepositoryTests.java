@@ -1848,4 +1848,349 @@ public class RepositoryTests {
             assertEquals(upstream.defaultBranch().name(), ref.name());
         }
     }
+
+    @ParameterizedTest
+    @EnumSource(VCS.class)
+    void testCommitGraph(VCS vcs) throws IOException {
+        try (var dir = new TemporaryDirectory(false)) {
+            var r = Repository.init(dir.path(), vcs);
+
+            var readme = dir.path().resolve("README");
+            Files.writeString(readme, "Hello\n");
+            r.add(readme);
+            var initial = r.commit("Initial commit", "duke", "duke@openjdk.org");
+
+            Files.writeString(readme, "Hello again\n");
+            r.add(readme);
+            var second = r.commit("Second commit", "duke", "duke@openjdk.org");
+
+            r.checkout(initial, false);
+            var contributing = dir.path().resolve("CONTRIBUTING");
+            Files.writeString(contributing, "Hello\n");
+            r.add(contributing);
+            var third = r.commit("Third commit", "duke", "duke@openjdk.org");
+
+            r.merge(second);
+            var merge = r.commit("Merge", "duke", "duke@openjdk.org");
+
+            var graph = r.commitGraph();
+            assertEquals(4, graph.size());
+            assertEquals(List.of(), graph.parents(initial));
+            assertEquals(List.of(initial), graph.parents(second));
+            assertEquals(Set.of(third, second), new HashSet<>(graph.parents(merge)));
+            assertEquals(1, graph.generation(initial));
+            assertEquals(3, graph.generation(merge));
+            assertEquals(List.of(merge), graph.tips());
+
+            assertTrue(graph.isAncestor(initial, merge));
+            assertTrue(graph.isAncestor(second, merge));
+            assertTrue(graph.isAncestor(merge, merge));
+            assertFalse(graph.isAncestor(second, third));
+            assertFalse(graph.isAncestor(merge, initial));
+
+            assertEquals(Optional.of(initial), graph.mergeBase(second, third));
+            assertEquals(Optional.of(second), graph.mergeBase(second, merge));
+
+            assertEquals(3, graph.count(initial, merge));
+            assertEquals(1, graph.count(second, third));
+            assertEquals(0, graph.count(merge, second));
+
+            assertTrue(graph.reaches(merge, third));
+            assertFalse(graph.reaches(second, third));
+        }
+    }
+
+    @Test
+    void testCommitGraphIsUpdatedIncrementally() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var r = Repository.init(dir.path(), VCS.GIT);
+
+            var readme = dir.path().resolve("README");
+            Files.writeString(readme, "Hello\n");
+            r.add(readme);
+            var initial = r.commit("Initial commit", "duke", "duke@openjdk.org");
+
+            var graph = r.commitGraph();
+            assertEquals(1, graph.size());
+
+            Files.writeString(readme, "Hello again\n");
+            r.add(readme);
+            var second = r.commit("Second commit", "duke", "duke@openjdk.org");
+            assertFalse(graph.contains(second));
+
+            assertTrue(r.isAncestor(initial, second));
+            assertEquals(initial, r.mergeBase(initial, second));
+            assertTrue(r.contains(r.currentBranch(), second));
+            assertTrue(graph.contains(second));
+            assertEquals(2, graph.size());
+        }
+    }
+
+    @Test
+    void testCommitGraphFollowsShallowBoundary() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var upstream = Repository.init(dir.path().resolve("upstream"), VCS.GIT);
+            var readme = upstream.root().resolve("README");
+            var hashes = new ArrayList<Hash>();
+            for (var i = 0; i < 4; i++) {
+                Files.writeString(readme, "Hello " + i + "\n");
+                upstream.add(readme);
+                hashes.add(upstream.commit("Commit " + i, "duke", "duke@openjdk.org"));
+            }
+
+            var uri = URI.create("file://" + upstream.root());
+            var local = Repository.init(dir.path().resolve("local"), VCS.GIT);
+            var head = local.fetch(uri, "+master:refs/heads/fetched", 1);
+            assertEquals(hashes.get(3), head);
+            var graph = local.commitGraph();
+            assertEquals(List.of(), graph.parents(head));
+            assertFalse(local.isAncestor(hashes.get(2), head));
+
+            // Fetching more history moves the boundary, and the graph must be reloaded
+            local.fetch(uri, "+master:refs/heads/fetched", 3);
+            assertTrue(local.isAncestor(hashes.get(2), head));
+            graph = local.commitGraph();
+            assertEquals(List.of(hashes.get(2)), graph.parents(head));
+            assertEquals(3, graph.size());
+        }
+    }
+
+    @Test
+    void testMaterializeWithObjectCache() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var upstream = Repository.init(dir.path().resolve("upstream.git"), VCS.GIT);
+            var readme = upstream.root().resolve("README");
+            Files.writeString(readme, "Hello\n");
+            upstream.add(readme);
+            var head = upstream.commit("Added README", "duke", "duke@openjdk.org");
+            upstream.branch(head, "other");
+
+            var cache = dir.path().resolve("cache");
+            var uri = URI.create("file://" + upstream.root());
+            var first = Repository.materialize(dir.path().resolve("first"), uri, "master", cache);
+            assertEquals(head, first.head());
+
+            // Only the requested ref is fetched into the cache
+            var cached = Files.list(cache).filter(Files::isDirectory).findAny().orElseThrow();
+            assertEquals(List.of("master"), Files.list(cached.resolve("refs").resolve("cache"))
+                                                 .map(f -> f.getFileName().toString())
+                                                 .collect(Collectors.toList()));
+            assertEquals(0, Files.list(cached.resolve("refs").resolve("heads")).count());
+
+            var alternates = dir.path().resolve("first").resolve(".git").resolve("objects").resolve("info").resolve("alternates");
+            var lines = Files.readAllLines(alternates);
+            assertEquals(1, lines.size());
+            assertTrue(lines.get(0).startsWith(cache.toAbsolutePath().toString()));
+
+            // Materializing again must not add the same alternate twice
+            Repository.materialize(dir.path().resolve("first"), uri, "master", cache);
+            assertEquals(lines, Files.readAllLines(alternates));
+
+            var second = Repository.clone(uri, dir.path().resolve("second"), false, cache);
+            assertEquals(head, second.head());
+            assertEquals(lines, Files.readAllLines(dir.path().resolve("second").resolve(".git").resolve("objects")
+                                                      .resolve("info").resolve("alternates")));
+
+            var third = Repository.mirror(uri, dir.path().resolve("third"), cache);
+            assertEquals(Optional.of(head), third.resolve("other"));
+            assertEquals(lines, Files.readAllLines(dir.path().resolve("third").resolve("objects")
+                                                      .resolve("info").resolve("alternates")));
+        }
+    }
+
+    @Test
+    void testMaterializePartialDeepensToMergeBase() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var upstream = Repository.init(dir.path().resolve("upstream.git"), VCS.GIT);
+            var readme = upstream.root().resolve("README");
+            Files.writeString(readme, "Hello\n");
+            upstream.add(readme);
+            var base = upstream.commit("Added README", "duke", "duke@openjdk.org");
+
+            upstream.branch(base, "feature");
+            for (var i = 0; i < 40; i++) {
+                Files.writeString(readme, "Hello " + i + "\n");
+                upstream.add(readme);
+                upstream.commit("Change " + i, "duke", "duke@openjdk.org");
+            }
+            var master = upstream.head();
+            upstream.checkout(new Branch("feature"), false);
+            Files.writeString(readme, "Feature\n");
+            upstream.add(readme);
+            var feature = upstream.commit("Feature", "duke", "duke@openjdk.org");
+
+            var uri = URI.create("file://" + upstream.root());
+            var path = dir.path().resolve("partial");
+            var partial = Repository.materializePartial(path, uri, "master", true, 4);
+            assertEquals(master, partial.head());
+            assertTrue(partial.isShallow());
+            assertEquals(4, partial.commits().asList().size());
+            assertEquals(List.of("origin"), partial.config("extensions.partialClone"));
+            assertEquals("Hello 39", partial.lines(Path.of("README"), master).orElseThrow().get(0));
+
+            assertEquals(feature, partial.fetch(uri, "feature", 4));
+            assertEquals(base, partial.mergeBase(master, feature, uri));
+
+            // A regular materialize must not reuse the shallow history
+            var full = Repository.materialize(path, uri, "master");
+            assertFalse(full.isShallow());
+            assertEquals(41, full.commits().asList().size());
+        }
+    }
+
+    @Test
+    void testMaterializePartialWithObjectCache() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var upstream = Repository.init(dir.path().resolve("upstream.git"), VCS.GIT);
+            var readme = upstream.root().resolve("README");
+            Files.writeString(readme, "Hello\n");
+            upstream.add(readme);
+            var base = upstream.commit("Added README", "duke", "duke@openjdk.org");
+            var other = upstream.root().resolve("OTHER");
+            Files.writeString(other, "Other\n");
+            upstream.add(other);
+            Files.writeString(readme, "Hello again\n");
+            upstream.add(readme);
+            var head = upstream.commit("Added OTHER", "duke", "duke@openjdk.org");
+
+            var uri = URI.create("file://" + upstream.root());
+            var cache = dir.path().resolve("cache");
+            var path = dir.path().resolve("partial");
+            var partial = Repository.materializePartial(path, uri, "master", false, 1, cache);
+            assertEquals(head, partial.resolve("FETCH_HEAD").orElseThrow());
+            assertTrue(partial.isShallow());
+            assertEquals(List.of("origin"), partial.config("extensions.partialClone"));
+            assertTrue(Files.exists(path.resolve(".git/objects/info/alternates")));
+            assertFalse(Files.exists(path.resolve("README")));
+
+            assertEquals(base, partial.mergeBase(head, partial.fetch(uri, base.hex(), 1), uri));
+            assertEquals(Set.of(Path.of("README"), Path.of("OTHER")), new HashSet<>(partial.changedPaths(base, head)));
+        }
+    }
+
+    @Test
+    void testMaterializeCleansUnlessPristine() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var upstream = Repository.init(dir.path().resolve("upstream.git"), VCS.GIT);
+            var readme = upstream.root().resolve("README");
+            Files.writeString(readme, "Hello\n");
+            upstream.add(readme);
+            var head = upstream.commit("Added README", "duke", "duke@openjdk.org");
+
+            var uri = URI.create("file://" + upstream.root());
+            var path = dir.path().resolve("local");
+            var local = Repository.materialize(path, uri, "master");
+            assertTrue(local.isHealthy());
+            assertTrue(local.isPristine());
+
+            // Modified tracked files require a clean
+            Files.writeString(path.resolve("README"), "Modified\n");
+            assertFalse(local.isPristine());
+            local = Repository.materialize(path, uri, "master");
+            assertEquals("Hello\n", Files.readString(path.resolve("README")));
+            assertTrue(local.isPristine());
+
+            // So do untracked and ignored files, also in subdirectories
+            Files.createDirectories(path.resolve("sub"));
+            Files.writeString(path.resolve("sub").resolve("untracked"), "Untracked\n");
+            assertFalse(local.isPristine());
+            local = Repository.materialize(path, uri, "master");
+            assertFalse(Files.exists(path.resolve("sub").resolve("untracked")));
+            assertTrue(local.isPristine());
+
+            Files.createDirectories(path.resolve(".git").resolve("info"));
+            Files.writeString(path.resolve(".git").resolve("info").resolve("exclude"), "*.o\n");
+            Files.writeString(path.resolve("sub.o"), "Ignored\n");
+            assertFalse(local.isPristine());
+            local = Repository.materialize(path, uri, "master");
+            assertFalse(Files.exists(path.resolve("sub.o")));
+            assertTrue(local.isPristine());
+
+            // A stale lock from an interrupted git process
+            Files.writeString(path.resolve(".git").resolve("index.lock"), "");
+            local = Repository.materialize(path, uri, "master");
+            assertEquals(head, local.head());
+            assertFalse(Files.exists(path.resolve(".git").resolve("index.lock")));
+        }
+    }
+
+    @Test
+    void testCommitsWithLessDetail() throws IOException {
+        try (var dir = new TemporaryDirectory()) {
+            var r = Repository.init(dir.path(), VCS.GIT);
+
+            var readme = dir.path().resolve("README");
+            Files.write(readme, List.of("Hello, world!"));
+            r.add(readme);
+            var first = r.commit("Added README", "duke", "duke@openjdk.java.net");
+
+            Files.write(readme, List.of("One more line"), WRITE, APPEND);
+            var image = dir.path().resolve("image.bin");
+            Files.write(image, new byte[] { 0, 1, 2, 3 });
+            r.add(readme);
+            r.add(image);
+            var second = r.commit("Modified README", "duke", "duke@openjdk.java.net");
+
+            r.checkout(first, false);
+            var contributing = dir.path().resolve("CONTRIBUTING");
+            Files.write(contributing, List.of("Send those patches!"));
+            r.add(contributing);
+            var third = r.commit("Added contributing", "duke", "duke@openjdk.java.net");
+
+            r.merge(second);
+            Files.write(readme, List.of("One last line"), WRITE, APPEND);
+            r.add(readme);
+            var merge = r.commit("Merge", "duke", "duke@openjdk.java.net");
+
+            var range = first.hex() + ".." + merge.hex();
+            var full = r.commits(range).asList();
+            assertEquals(3, full.size());
+
+            var none = r.commits(range, DiffDetail.NONE).asList();
+            assertEquals(3, none.size());
+            for (var i = 0; i < none.size(); i++) {
+                assertEquals(full.get(i).hash(), none.get(i).hash());
+                assertEquals(full.get(i).message(), none.get(i).message());
+                for (var diff : none.get(i).parentDiffs()) {
+                    assertEquals(List.of(), diff.patches());
+                }
+            }
+
+            for (var detail : List.of(DiffDetail.STATUS, DiffDetail.TEXT)) {
+                var commits = r.commits(range, detail).asList();
+                assertEquals(3, commits.size());
+                for (var i = 0; i < commits.size(); i++) {
+                    var expectedDiffs = full.get(i).parentDiffs();
+                    var actualDiffs = commits.get(i).parentDiffs();
+                    assertEquals(expectedDiffs.size(), actualDiffs.size());
+                    for (var j = 0; j < expectedDiffs.size(); j++) {
+                        var expectedPatches = expectedDiffs.get(j).patches();
+                        var actualPatches = actualDiffs.get(j).patches();
+                        assertEquals(expectedPatches.size(), actualPatches.size());
+                        for (var k = 0; k < expectedPatches.size(); k++) {
+                            var expected = expectedPatches.get(k);
+                            var actual = actualPatches.get(k);
+                            assertEquals(expected.source().path(), actual.source().path());
+                            assertEquals(expected.target().path(), actual.target().path());
+                            assertEquals(expected.target().type(), actual.target().type());
+                            assertEquals(expected.status(), actual.status());
+                            if (detail == DiffDetail.STATUS) {
+                                assertEquals(List.of(), actual.asTextualPatch().hunks());
+                            } else if (expected.isBinary()) {
+                                assertTrue(actual.isBinary());
+                                assertEquals(List.of(), actual.asBinaryPatch().hunks());
+                            } else {
+                                var expectedHunks = expected.asTextualPatch().hunks();
+                                var actualHunks = actual.asTextualPatch().hunks();
+                                assertEquals(expectedHunks.size(), actualHunks.size());
+                                for (var l = 0; l < expectedHunks.size(); l++) {
+                                    assertEquals(expectedHunks.get(l).target().lines(), actualHunks.get(l).target().lines());
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
 }